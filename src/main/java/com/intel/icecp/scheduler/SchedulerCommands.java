@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler;
+
+import com.intel.icecp.rpc.Command;
+import com.intel.icecp.rpc.CommandRegistry;
+import com.intel.icecp.scheduler.schedule.TriggerCounters;
+
+import java.util.Map;
+
+/**
+ * RPC commands served by the {@link SchedulerModule}
+ */
+public class SchedulerCommands {
+    private final TriggerCounters counters;
+
+    /**
+     * Constructor
+     *
+     * @param counters counters of the scheduled triggers
+     */
+    public SchedulerCommands(TriggerCounters counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * Add the commands to an RPC registry
+     *
+     * @param registry the registry of the RPC server
+     */
+    public void register(CommandRegistry registry) {
+        try {
+            registry.add(new Command("stats", this, SchedulerCommands.class.getMethod("stats")));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Command method not found", e);
+        }
+    }
+
+    /**
+     * Command {@code stats}: the fired, published, failed and skipped totals and the counts of every trigger
+     *
+     * @return the fire counts
+     */
+    public Map<String, Object> stats() {
+        return counters.toMap();
+    }
+}
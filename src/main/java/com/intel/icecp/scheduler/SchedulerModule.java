@@ -16,32 +16,59 @@
 
 package com.intel.icecp.scheduler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intel.icecp.core.Channel;
 import com.intel.icecp.core.Module;
 import com.intel.icecp.core.Node;
 import com.intel.icecp.core.attributes.AttributeNotFoundException;
 import com.intel.icecp.core.attributes.AttributeNotWriteableException;
+import com.intel.icecp.core.attributes.AttributeRegistrationException;
 import com.intel.icecp.core.attributes.Attributes;
 import com.intel.icecp.core.attributes.ModuleStateAttribute;
+import com.intel.icecp.core.metadata.Persistence;
+import com.intel.icecp.core.misc.ChannelIOException;
+import com.intel.icecp.core.misc.ChannelLifetimeException;
 import com.intel.icecp.core.misc.Configuration;
 import com.intel.icecp.core.modules.ModuleProperty;
+import com.intel.icecp.node.utils.ChannelUtils;
+import com.intel.icecp.rpc.Rpc;
+import com.intel.icecp.rpc.RpcServer;
+import com.intel.icecp.scheduler.attributes.ScheduleImage;
+import com.intel.icecp.scheduler.attributes.SchedulerLagAttribute;
+import com.intel.icecp.scheduler.attributes.SchedulerStatsAttribute;
 import com.intel.icecp.scheduler.attributes.SchedulerTriggersAttribute;
-import com.intel.icecp.scheduler.attributes.Triggers;
+import com.intel.icecp.scheduler.attributes.TriggersLoader;
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.schedule.LagWatchdog;
 import com.intel.icecp.scheduler.schedule.Schedule;
 import com.intel.icecp.scheduler.schedule.ScheduleFactory;
+import com.intel.icecp.scheduler.schedule.SchedulerMetrics;
+import com.intel.icecp.scheduler.schedule.TriggerCounters;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Module used to schedule time based triggers. Triggers that are fired result in publishing trigger event messages used
  * to synchronize time based activities of subscribers.
- * 
+ * <p>
+ * While running, the module is in {@link State#ERROR} whenever the schedule's {@link LagWatchdog} reports it degraded
+ * (too far behind on publishing fires), and back in {@link State#RUNNING} once it recovers. The lag itself is exposed
+ * as the {@link SchedulerLagAttribute}. The fire counts of the triggers are exposed as the
+ * {@link SchedulerStatsAttribute} and by the {@code stats} command of the module's RPC server, see
+ * {@link SchedulerCommands}.
  */
 @ModuleProperty(name = "scheduler-module", attributes = {SchedulerTriggersAttribute.class})
 public class SchedulerModule implements Module {
@@ -49,13 +76,20 @@ public class SchedulerModule implements Module {
     private static Node node;
     private Attributes schedulerAttributes;
 
-    private final Schedule schedule;
+    private final Supplier<Schedule> scheduleSupplier;
+    private Schedule schedule;
+    private RpcServer commandServer;
+    private ScheduledExecutorService metricsPublisher;
+    private Channel<MetricsMessage> metricsChannel;
+    private boolean stopped;
+    private final TriggersLoader loader = new TriggersLoader();
 
     /**
-     * Constructor
+     * Constructor. The schedule is created when {@link #run(Node, Attributes)} has a configuration to load, so
+     * constructing the module does not start any scheduling engine.
      */
     public SchedulerModule() {
-        schedule = ScheduleFactory.create();
+        this.scheduleSupplier = ScheduleFactory::create;
     }
 
     /**
@@ -64,7 +98,17 @@ public class SchedulerModule implements Module {
      * @param schedule Schedule object used to schedule and process triggers
      */
     public SchedulerModule(Schedule schedule) {
-        this.schedule = schedule;
+        this.scheduleSupplier = () -> schedule;
+    }
+
+    /**
+     * @return the schedule of the module, created on first use
+     */
+    private synchronized Schedule schedule() {
+        if (schedule == null) {
+            schedule = scheduleSupplier.get();
+        }
+        return schedule;
     }
 
     public static synchronized Node getNode() {
@@ -93,6 +137,9 @@ public class SchedulerModule implements Module {
     @Override
     public void run(Node node, Attributes attributes) {
         this.schedulerAttributes = attributes;
+        synchronized (this) {
+            stopped = false;
+        }
         if (node == null) {
             LOGGER.error("Null node has been passed in");
             setAttribute(ModuleStateAttribute.class, State.ERROR);
@@ -104,7 +151,12 @@ public class SchedulerModule implements Module {
         String schedulerConfig;
         try {
             schedulerConfig = schedulerAttributes.get(SchedulerTriggersAttribute.class);
-            LOGGER.info("Retrieved value {} from trigger attribute", schedulerConfig);
+            if (schedulerConfig != null) {
+                // the value can hold 100k+ triggers; only its size and hash are worth logging at startup
+                LOGGER.info("Retrieved {} characters (hash {}) from trigger attribute", schedulerConfig.length(),
+                        Integer.toHexString(schedulerConfig.hashCode()));
+                LOGGER.debug("Trigger attribute value {}", schedulerConfig);
+            }
         } catch (AttributeNotFoundException e) {
             LOGGER.error("Scheduler Trigger attribute not found", e);
             setAttribute(ModuleStateAttribute.class, State.ERROR);
@@ -117,78 +169,178 @@ public class SchedulerModule implements Module {
         }
 
         // start the schedule manager
-        if (!schedule.start()) {
+        if (!schedule().start()) {
             LOGGER.error("Unable to start the schedule manager");
             setAttribute(ModuleStateAttribute.class, State.ERROR);
             return;
         }
         LOGGER.info("Started schedule manager");
         setAttribute(ModuleStateAttribute.class, State.RUNNING);
+        watchLag(schedule().getWatchdog());
+        exposeStats(node, schedule().getCounters());
+        publishMetrics(node, schedule().getMetrics());
     }
 
     /**
-     * Parse all triggers returned from attribute
-     * @param schedulerConfig attribute value of triggers
-     * @return true if parsing and scheduling was successful, else false
+     * Publish a snapshot of the schedule's metrics on the metrics channel now and every
+     * {@link ConfigConstants#METRICS_PERIOD_MILLIS}
+     *
+     * @param node the node the module runs on
+     * @param metrics the metrics of the schedule, or null if it does not report metrics
      */
-    private boolean parseTriggers(String schedulerConfig) {
-        ObjectMapper mapper = new ObjectMapper();
-        if (schedulerConfig != null && !schedulerConfig.isEmpty()) {
-            try {
-                // retrieve all triggers
-                Triggers allTriggers = mapper.readValue(schedulerConfig, Triggers.class);
-                List<RangeTrigger> validRangeTriggers = allTriggers.getValidRangeTriggers();
-                LOGGER.info("Module contains {} valid interval triggers: {}", validRangeTriggers.size(), validRangeTriggers.toString());
+    private void publishMetrics(Node node, SchedulerMetrics metrics) {
+        if (metrics == null || ConfigConstants.METRICS_PERIOD_MILLIS <= 0) {
+            return;
+        }
+        URI uri = ConfigConstants.METRICS_CHANNEL != null ? URI.create(ConfigConstants.METRICS_CHANNEL)
+                : node.getDefaultUri() != null ? ChannelUtils.join(node.getDefaultUri(), "scheduler", "metrics") : null;
+        if (uri == null) {
+            LOGGER.warn("No channel to publish scheduler metrics on");
+            return;
+        }
+        Channel<MetricsMessage> channel;
+        try {
+            channel = node.openChannel(uri, MetricsMessage.class, Persistence.DEFAULT);
+        } catch (ChannelLifetimeException e) {
+            LOGGER.error("Unable to open the scheduler metrics channel {}", uri, e);
+            return;
+        }
 
-                List<IntervalTrigger> validIntervalTriggers = allTriggers.getValidIntervalTriggers();
-                LOGGER.info("Module contains {} valid interval triggers: {}", validIntervalTriggers.size(), validIntervalTriggers.toString());
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleAtFixedRate(() -> {
+            try {
+                channel.publish(metrics.snapshot());
+            } catch (ChannelIOException | RuntimeException e) {
+                LOGGER.error("Unable to publish scheduler metrics on {}", uri, e);
+            }
+        }, 0, ConfigConstants.METRICS_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            metricsPublisher = publisher;
+            metricsChannel = channel;
+        }
+        LOGGER.info("Publishing scheduler metrics on {} every {} ms", uri, ConfigConstants.METRICS_PERIOD_MILLIS);
+    }
 
-                boolean added = false;
-                added |= scheduleRangeTriggers(validRangeTriggers);
-                added |= scheduleIntervalTriggers(validIntervalTriggers);
+    /**
+     * Expose the fire counts of the schedule as an attribute and serve them with the {@code stats} command
+     *
+     * @param node the node the module runs on
+     * @param counters the counters of the schedule, or null if it does not count fires
+     */
+    private void exposeStats(Node node, TriggerCounters counters) {
+        if (counters == null) {
+            return;
+        }
+        try {
+            if (!schedulerAttributes.has(SchedulerStatsAttribute.NAME)) {
+                schedulerAttributes.add(new SchedulerStatsAttribute(counters));
+            }
+        } catch (AttributeRegistrationException e) {
+            LOGGER.error("Attribute {} could not be added", SchedulerStatsAttribute.NAME, e);
+        }
 
-                // return true if either of the triggers was successfully scheduled
-                return added;
-            } catch (IOException e) {
-                LOGGER.error("Unable to parse scheduler config:{} into triggers", schedulerConfig, e);
-                return false;
+        URI uri = ConfigConstants.RPC_CHANNEL != null ? URI.create(ConfigConstants.RPC_CHANNEL)
+                : node.getDefaultUri() != null ? ChannelUtils.join(node.getDefaultUri(), "scheduler") : null;
+        if (uri == null || node.channels() == null) {
+            LOGGER.warn("No channel to serve scheduler commands on");
+            return;
+        }
+        try {
+            RpcServer server = Rpc.newServer(node.channels(), uri);
+            new SchedulerCommands(counters).register(server.registry());
+            server.serve();
+            synchronized (this) {
+                commandServer = server;
             }
+            LOGGER.info("Serving scheduler commands on {}", uri);
+        } catch (ChannelLifetimeException | ChannelIOException e) {
+            LOGGER.error("Unable to serve scheduler commands on {}", uri, e);
         }
-        // return false since schedulerConfig value was empty/null
-        return false;
     }
 
     /**
-     * Add trigger to schedule
-     * @param intervalTriggers list of interval triggers
-     * @return true if schedules, else false
+     * Expose the lag of the schedule as an attribute and track its degraded state in the module state
+     *
+     * @param watchdog the watchdog of the schedule, or null if it does not measure its lag
      */
-    private boolean scheduleIntervalTriggers(List<IntervalTrigger> intervalTriggers) {
-        if (intervalTriggers.isEmpty()) {
-            LOGGER.error("No valid range triggers defined! Please check config file.");
-            return false;
+    private void watchLag(LagWatchdog watchdog) {
+        if (watchdog == null) {
+            return;
+        }
+        try {
+            if (!schedulerAttributes.has(SchedulerLagAttribute.NAME)) {
+                schedulerAttributes.add(new SchedulerLagAttribute(watchdog));
+            }
+        } catch (AttributeRegistrationException e) {
+            LOGGER.error("Attribute {} could not be added", SchedulerLagAttribute.NAME, e);
         }
+        watchdog.setListener((degraded, lagMillis) -> setRunningState(degraded ? State.ERROR : State.RUNNING));
+    }
 
-        intervalTriggers
-                .parallelStream()
-                .forEach(trigger -> schedule.scheduleIntervalTrigger(trigger, this.getClass().getName()));
-        return true;
+    /**
+     * Set the state of the running module, unless it was stopped. The watchdog thread may still be notifying a
+     * listener it read before {@link #stop(StopReason)} removed it, so this must not undo {@link State#STOPPED}.
+     *
+     * @param state {@link State#RUNNING} or {@link State#ERROR}
+     */
+    private synchronized void setRunningState(State state) {
+        if (!stopped) {
+            setAttribute(ModuleStateAttribute.class, state);
+        }
     }
 
     /**
-     * Add trigger to schedule
-     * @param rangeTriggers list of range triggers
-     * @return true if schedules, else false
+     * Parse all triggers returned from attribute and add them to the schedule as they are read. If a
+     * {@link ScheduleImage} compiled from the same attribute value is installed, the triggers are loaded from it instead.
+     * @param schedulerConfig attribute value of triggers
+     * @return true if parsing and scheduling was successful, else false
      */
-    private boolean scheduleRangeTriggers(List<RangeTrigger> rangeTriggers) {
-        if (rangeTriggers.isEmpty()) {
-            LOGGER.error("No valid range triggers defined! Please check config file.");
+    private boolean parseTriggers(String schedulerConfig) {
+        if (schedulerConfig == null || schedulerConfig.isEmpty()) {
+            // return false since schedulerConfig value was empty/null
             return false;
         }
 
-        rangeTriggers
+        String creatorName = this.getClass().getName();
+        Schedule schedule = schedule();
+        Consumer<List<RangeTrigger>> rangeSink = rangeTriggers -> rangeTriggers
                 .parallelStream()
-                .forEach(trigger -> schedule.scheduleRangeTrigger(trigger, this.getClass().getName()));
+                .forEach(trigger -> schedule.scheduleRangeTrigger(trigger, creatorName));
+        Consumer<List<IntervalTrigger>> intervalSink = intervalTriggers -> intervalTriggers
+                .parallelStream()
+                .forEach(trigger -> schedule.scheduleIntervalTrigger(trigger, creatorName));
+        Consumer<List<EventTrigger>> eventSink = eventTriggers -> eventTriggers
+                .forEach(trigger -> schedule.scheduleEventTrigger(trigger, creatorName));
+
+        TriggersLoader.Counts counts = ScheduleImage.load(Paths.get(ConfigConstants.SCHEDULE_IMAGE), schedulerConfig,
+                schedule::addCalendar, rangeSink, intervalSink, eventSink);
+        if (counts != null) {
+            LOGGER.info("Loaded triggers from schedule image {}", ConfigConstants.SCHEDULE_IMAGE);
+        } else {
+            try {
+                counts = loader.load(schedulerConfig, schedule::addCalendar, rangeSink, intervalSink, eventSink);
+            } catch (IOException e) {
+                LOGGER.error("Unable to parse scheduler config ({} characters) into triggers", schedulerConfig.length(), e);
+                // triggers loaded before the error must not start
+                schedule.stop();
+                return false;
+            }
+        }
+
+        LOGGER.info("Module contains {} valid range triggers, {} valid interval triggers and {} valid event triggers, "
+                + "ignored {} invalid triggers", counts.getRange(), counts.getInterval(), counts.getEvent(), counts.getInvalid());
+        if (!counts.getUndefinedCalendars().isEmpty()) {
+            LOGGER.warn("Triggers reference undefined calendars {}; they fire as if no calendar was set",
+                    counts.getUndefinedCalendars());
+        }
+        if (counts.getValid() == 0) {
+            LOGGER.error("No valid triggers defined! Please check config file.");
+            return false;
+        }
         return true;
     }
 
@@ -214,7 +366,45 @@ public class SchedulerModule implements Module {
     @Override
     public void stop(StopReason reason) {
         LOGGER.info("Stopping module, reason = {}", reason);
-        schedule.stop();
-        setAttribute(ModuleStateAttribute.class, State.STOPPED);
+        Schedule current;
+        RpcServer server;
+        ScheduledExecutorService publisher;
+        Channel<MetricsMessage> channel;
+        synchronized (this) {
+            current = schedule;
+            server = commandServer;
+            commandServer = null;
+            publisher = metricsPublisher;
+            metricsPublisher = null;
+            channel = metricsChannel;
+            metricsChannel = null;
+        }
+        if (publisher != null) {
+            publisher.shutdownNow();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (ChannelLifetimeException e) {
+                LOGGER.error("Unable to close the scheduler metrics channel", e);
+            }
+        }
+        if (server != null) {
+            try {
+                server.close();
+            } catch (ChannelLifetimeException e) {
+                LOGGER.error("Unable to close the scheduler command server", e);
+            }
+        }
+        if (current != null) {
+            if (current.getWatchdog() != null) {
+                current.getWatchdog().setListener(null);
+            }
+            current.stop();
+        }
+        synchronized (this) {
+            stopped = true;
+            setAttribute(ModuleStateAttribute.class, State.STOPPED);
+        }
     }
 }
\ No newline at end of file
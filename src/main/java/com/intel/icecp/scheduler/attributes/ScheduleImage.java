@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.trigger.AdaptiveFeedback;
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Binary form of a {@link Triggers} configuration, compiled at build time so nodes do not parse the JSON on every
+ * start. The image holds a table of interned strings followed by the calendars and triggers, whose text fields refer
+ * to the table; interval triggers carry their resolved interval, timing and adaptive policy. Only configurations without invalid
+ * calendars or triggers compile.
+ * <p>
+ * The image records a SHA-256 hash of the JSON it was compiled from. {@link #load} maps the image with a single read
+ * and only uses it if it was compiled from the same JSON as the configured attribute, so a stale or corrupt image
+ * falls back to parsing the JSON with {@link TriggersLoader}.
+ * <p>
+ * Layout (big endian): magic, version, source hash, string table ({@code int} count, then {@code int} length and
+ * UTF-8 bytes per string), calendars, range, interval and event triggers, each an {@code int} count followed by the
+ * records. Absent strings, deadlines and optional numbers are stored as -1, as is the count of absent lists and the
+ * feedback of non-adaptive interval triggers.
+ */
+public final class ScheduleImage {
+    /**
+     * Magic number at the start of an image, "ICSI"
+     */
+    public static final int MAGIC = 0x49435349;
+
+    /**
+     * Version of the image layout
+     */
+    public static final int VERSION = 5;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int HASH_LENGTH = 32;
+    private static final int NONE = -1;
+    private static final PayloadFormat[] FORMATS = PayloadFormat.values();
+    private static final TriggerPriority[] PRIORITIES = TriggerPriority.values();
+    private static final FireDelivery[] DELIVERIES = FireDelivery.values();
+    private static final IntervalTiming[] TIMINGS = IntervalTiming.values();
+    private static final AdaptiveFeedback[] FEEDBACKS = AdaptiveFeedback.values();
+
+    private ScheduleImage() {
+    }
+
+    /**
+     * Validate a triggers configuration and compile it into an image
+     *
+     * @param config the triggers configuration
+     * @param image path the image is written to; replaced atomically if it exists
+     * @return counts of the compiled calendars and triggers
+     * @throws IOException if the configuration cannot be parsed, contains invalid calendars or triggers, or the image
+     * cannot be written
+     */
+    public static TriggersLoader.Counts compile(String config, Path image) throws IOException {
+        List<ExclusionCalendar> calendars = new ArrayList<>();
+        List<RangeTrigger> ranges = new ArrayList<>();
+        List<IntervalTrigger> intervals = new ArrayList<>();
+        List<EventTrigger> events = new ArrayList<>();
+        TriggersLoader.Counts counts = new TriggersLoader().load(config, calendars::add, ranges::addAll, intervals::addAll,
+                events::addAll);
+        if (counts.getInvalid() > 0) {
+            throw new IOException("Configuration contains " + counts.getInvalid() + " invalid calendars or triggers");
+        }
+
+        Writer writer = new Writer();
+        for (ExclusionCalendar calendar : calendars) {
+            writer.writeCalendar(calendar);
+        }
+        for (RangeTrigger trigger : ranges) {
+            writer.writeRange(trigger);
+        }
+        for (IntervalTrigger trigger : intervals) {
+            writer.writeInterval(trigger);
+        }
+        for (EventTrigger trigger : events) {
+            writer.writeEvent(trigger);
+        }
+
+        Path temp = image.resolveSibling(image.getFileName() + ".tmp");
+        try {
+            Files.write(temp, writer.toByteArray(hash(config), calendars.size(), ranges.size(), intervals.size(),
+                    events.size()));
+            Files.move(temp, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return counts;
+    }
+
+    /**
+     * Load calendars and triggers from an image compiled from a given configuration. The whole image is decoded before
+     * anything is handed to the sinks, so the sinks see either all of it or nothing.
+     *
+     * @param image path of the image
+     * @param config the configured triggers configuration the image must have been compiled from
+     * @param calendarSink receives each exclusion calendar
+     * @param rangeSink receives chunks of range triggers
+     * @param intervalSink receives chunks of interval triggers
+     * @return counts of the loaded calendars and triggers, or null if the image is missing, stale or corrupt and the
+     * configuration has to be parsed instead; event triggers are counted but not loaded
+     */
+    public static TriggersLoader.Counts load(Path image, String config, Consumer<ExclusionCalendar> calendarSink,
+                                             Consumer<List<RangeTrigger>> rangeSink,
+                                             Consumer<List<IntervalTrigger>> intervalSink) {
+        return load(image, config, calendarSink, rangeSink, intervalSink, eventTriggers -> { });
+    }
+
+    /**
+     * Load calendars and triggers of every type from an image compiled from a given configuration. The whole image is
+     * decoded before anything is handed to the sinks, so the sinks see either all of it or nothing.
+     *
+     * @param image path of the image
+     * @param config the configured triggers configuration the image must have been compiled from
+     * @param calendarSink receives each exclusion calendar
+     * @param rangeSink receives chunks of range triggers
+     * @param intervalSink receives chunks of interval triggers
+     * @param eventSink receives chunks of event triggers
+     * @return counts of the loaded calendars and triggers, or null if the image is missing, stale or corrupt and the
+     * configuration has to be parsed instead
+     */
+    public static TriggersLoader.Counts load(Path image, String config, Consumer<ExclusionCalendar> calendarSink,
+                                             Consumer<List<RangeTrigger>> rangeSink,
+                                             Consumer<List<IntervalTrigger>> intervalSink,
+                                             Consumer<List<EventTrigger>> eventSink) {
+        Reader reader;
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            reader = Reader.open(buffer, hash(config));
+            if (reader == null) {
+                LOGGER.info("Schedule image {} was not compiled from the configured triggers, parsing them instead", image);
+                return null;
+            }
+            reader.read();
+        } catch (NoSuchFileException e) {
+            LOGGER.debug("No schedule image at {}", image);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to read schedule image {}, parsing the configured triggers instead", image, e);
+            return null;
+        }
+
+        TriggersLoader.Counts counts = new TriggersLoader.Counts();
+        for (ExclusionCalendar calendar : reader.calendars) {
+            calendarSink.accept(calendar);
+            counts.calendars.add(calendar.getName());
+        }
+        deliver(reader.ranges, rangeSink);
+        deliver(reader.intervals, intervalSink);
+        deliver(reader.events, eventSink);
+        counts.range = reader.ranges.size();
+        counts.interval = reader.intervals.size();
+        counts.event = reader.events.size();
+        reader.ranges.forEach(trigger -> addReference(trigger, counts));
+        reader.intervals.forEach(trigger -> addReference(trigger, counts));
+        reader.events.forEach(trigger -> addReference(trigger, counts));
+        LOGGER.debug("Loaded schedule image {}: {}", image, counts);
+        return counts;
+    }
+
+    private static void addReference(BaseTrigger trigger, TriggersLoader.Counts counts) {
+        if (trigger.getCalendar() != null) {
+            counts.referencedCalendars.add(trigger.getCalendar());
+        }
+    }
+
+    private static <T> void deliver(List<T> triggers, Consumer<List<T>> sink) {
+        for (int from = 0; from < triggers.size(); from += TriggersLoader.DEFAULT_CHUNK_SIZE) {
+            int to = Math.min(triggers.size(), from + TriggersLoader.DEFAULT_CHUNK_SIZE);
+            sink.accept(new ArrayList<>(triggers.subList(from, to)));
+        }
+    }
+
+    /**
+     * @param config a triggers configuration
+     * @return the SHA-256 hash of the configuration's UTF-8 bytes
+     */
+    static byte[] hash(String config) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(config.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Compile the {@code scheduler-triggers} attribute of a module configuration file into an image
+     *
+     * @param args path of the module configuration (e.g. {@code configuration/config.json}) and of the image
+     * @throws IOException if the configuration is invalid or the image cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ScheduleImage <config.json> <image>");
+            System.exit(1);
+        }
+        JsonNode attribute = Json.MAPPER.readTree(Paths.get(args[0]).toFile()).get("scheduler-triggers");
+        if (attribute == null) {
+            throw new IOException("No scheduler-triggers attribute in " + args[0]);
+        }
+        String config = attribute.isTextual() ? attribute.asText() : attribute.toString();
+        TriggersLoader.Counts counts = compile(config, Paths.get(args[1]));
+        System.out.println("Compiled " + counts + " into " + args[1]);
+    }
+
+    /**
+     * Mapper for params, only loaded when an image has params
+     */
+    private static final class Json {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+    }
+
+    private static final class Writer {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> table = new ArrayList<>();
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(records);
+
+        void writeCalendar(ExclusionCalendar calendar) throws IOException {
+            out.writeInt(intern(calendar.getName()));
+            out.writeInt(calendar.getDates().size());
+            for (LocalDate date : calendar.getDates()) {
+                out.writeInt(intern(date.toString()));
+            }
+            out.writeInt(calendar.getDaysOfWeek().size());
+            for (DayOfWeek day : calendar.getDaysOfWeek()) {
+                out.writeInt(intern(day.name()));
+            }
+            out.writeInt(calendar.getWindows().size());
+            for (ExclusionCalendar.Window window : calendar.getWindows()) {
+                out.writeInt(intern(window.getStartTime().format(ConfigConstants.TIME_FORMAT)));
+                out.writeInt(intern(window.getEndTime().format(ConfigConstants.TIME_FORMAT)));
+            }
+        }
+
+        void writeRange(RangeTrigger trigger) throws IOException {
+            writeBase(trigger);
+            out.writeInt(intern(trigger.getStartTime()));
+            out.writeInt(intern(trigger.getEndTime()));
+        }
+
+        void writeInterval(IntervalTrigger trigger) throws IOException {
+            writeBase(trigger);
+            out.writeInt(trigger.getInterval());
+            out.writeInt(intern(trigger.getUnit().name()));
+            out.writeByte(trigger.getTiming().ordinal());
+            out.writeLong(trigger.getIntervalNanos());
+            AdaptivePolicy adaptive = trigger.getAdaptive();
+            if (adaptive == null) {
+                out.writeByte(NONE);
+                return;
+            }
+            out.writeByte(adaptive.getFeedback().ordinal());
+            out.writeInt(adaptive.getMinInterval());
+            out.writeInt(adaptive.getMaxInterval());
+            out.writeInt(adaptive.getStep() != null ? adaptive.getStep() : NONE);
+            out.writeDouble(adaptive.getBackoffFactor() != null ? adaptive.getBackoffFactor() : NONE);
+            out.writeLong(adaptive.getLatencyTargetMillis() != null ? adaptive.getLatencyTargetMillis() : NONE);
+        }
+
+        void writeEvent(EventTrigger trigger) throws IOException {
+            writeBase(trigger);
+            out.writeInt(intern(trigger.getSourceChannel()));
+            out.writeLong(trigger.getDebounceMillis() != null ? trigger.getDebounceMillis() : NONE);
+            out.writeLong(trigger.getThrottleMillis() != null ? trigger.getThrottleMillis() : NONE);
+            out.writeDouble(trigger.getMaxPerSecond() != null ? trigger.getMaxPerSecond() : NONE);
+        }
+
+        private void writeBase(BaseTrigger trigger) throws IOException {
+            out.writeInt(intern(trigger.getId()));
+            out.writeInt(intern(trigger.getPublishChannel()));
+            out.writeInt(intern(trigger.getCmd()));
+            out.writeInt(intern(trigger.getParams() != null ? Json.MAPPER.writeValueAsString(trigger.getParams()) : null));
+            out.writeByte(trigger.getPayloadFormat().ordinal());
+            out.writeByte(trigger.getPriority().ordinal());
+            out.writeByte(trigger.getDelivery().ordinal());
+            out.writeLong(trigger.getDeadlineMillis() != null ? trigger.getDeadlineMillis() : NONE);
+            out.writeInt(intern(trigger.getCalendar()));
+            List<String> publishChannels = trigger.getPublishChannels();
+            out.writeInt(publishChannels != null ? publishChannels.size() : NONE);
+            if (publishChannels != null) {
+                for (String channel : publishChannels) {
+                    out.writeInt(intern(channel));
+                }
+            }
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return strings.computeIfAbsent(value, key -> {
+                table.add(key);
+                return table.size() - 1;
+            });
+        }
+
+        byte[] toByteArray(byte[] hash, int calendars, int ranges, int intervals, int events) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() + 64 * table.size());
+            DataOutputStream image = new DataOutputStream(bytes);
+            image.writeInt(MAGIC);
+            image.writeInt(VERSION);
+            image.write(hash);
+            image.writeInt(table.size());
+            for (String value : table) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                image.writeInt(utf8.length);
+                image.write(utf8);
+            }
+            image.writeInt(calendars);
+            image.writeInt(ranges);
+            image.writeInt(intervals);
+            image.writeInt(events);
+            records.writeTo(image);
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private final List<ExclusionCalendar> calendars = new ArrayList<>();
+        private final List<RangeTrigger> ranges = new ArrayList<>();
+        private final List<IntervalTrigger> intervals = new ArrayList<>();
+        private final List<EventTrigger> events = new ArrayList<>();
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return a reader positioned after the header, or null if the image was compiled from other JSON
+         * @throws IOException if the buffer is not an image of this version
+         */
+        static Reader open(ByteBuffer buffer, byte[] expectedHash) throws IOException {
+            if (buffer.remaining() < 8 + HASH_LENGTH || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a schedule image");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported schedule image version " + version);
+            }
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            return Arrays.equals(hash, expectedHash) ? new Reader(buffer) : null;
+        }
+
+        void read() throws IOException {
+            try {
+                strings = new String[count()];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] utf8 = new byte[count()];
+                    buffer.get(utf8);
+                    strings[i] = new String(utf8, StandardCharsets.UTF_8);
+                }
+                int calendarCount = count();
+                int rangeCount = count();
+                int intervalCount = count();
+                int eventCount = count();
+                for (int i = 0; i < calendarCount; i++) {
+                    calendars.add(readCalendar());
+                }
+                for (int i = 0; i < rangeCount; i++) {
+                    ranges.add(readRange());
+                }
+                for (int i = 0; i < intervalCount; i++) {
+                    intervals.add(readInterval());
+                }
+                for (int i = 0; i < eventCount; i++) {
+                    events.add(readEvent());
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Truncated schedule image", e);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException(buffer.remaining() + " unexpected bytes after the schedule image");
+            }
+        }
+
+        private ExclusionCalendar readCalendar() {
+            String name = string();
+            List<String> dates = strings(count());
+            List<String> days = strings(count());
+            int windowCount = count();
+            List<ExclusionCalendar.Window> windows = new ArrayList<>(windowCount);
+            for (int i = 0; i < windowCount; i++) {
+                windows.add(new ExclusionCalendar.Window(string(), string()));
+            }
+            return new ExclusionCalendar(name, dates, days, windows);
+        }
+
+        private RangeTrigger readRange() throws IOException {
+            Common common = new Common();
+            RangeTrigger trigger = new RangeTrigger(common.id, string(), string(), common.channel, common.cmd,
+                    common.params);
+            common.applyTo(trigger);
+            return trigger;
+        }
+
+        private IntervalTrigger readInterval() throws IOException {
+            Common common = new Common();
+            IntervalTrigger trigger = new IntervalTrigger(common.id, buffer.getInt(), string(), common.channel,
+                    common.cmd, common.params);
+            trigger.setTiming(TIMINGS[buffer.get()]);
+            if (trigger.getIntervalNanos() != buffer.getLong()) {
+                throw new IOException("Interval of trigger " + common.id + " does not match its compiled interval");
+            }
+            byte feedback = buffer.get();
+            if (feedback != NONE) {
+                AdaptiveFeedback adaptiveFeedback = FEEDBACKS[feedback];
+                int min = buffer.getInt();
+                int max = buffer.getInt();
+                int step = buffer.getInt();
+                double backoffFactor = buffer.getDouble();
+                long latencyTarget = buffer.getLong();
+                trigger.setAdaptive(new AdaptivePolicy(min, max, adaptiveFeedback, step != NONE ? step : null,
+                        backoffFactor != NONE ? backoffFactor : null, latencyTarget != NONE ? latencyTarget : null));
+            }
+            common.applyTo(trigger);
+            return trigger;
+        }
+
+        private EventTrigger readEvent() throws IOException {
+            Common common = new Common();
+            EventTrigger trigger = new EventTrigger(common.id, string(), common.channel, common.cmd, common.params);
+            long debounce = buffer.getLong();
+            long throttle = buffer.getLong();
+            double maxPerSecond = buffer.getDouble();
+            trigger.setDebounceMillis(debounce != NONE ? debounce : null);
+            trigger.setThrottleMillis(throttle != NONE ? throttle : null);
+            trigger.setMaxPerSecond(maxPerSecond != NONE ? maxPerSecond : null);
+            common.applyTo(trigger);
+            return trigger;
+        }
+
+        private int count() {
+            return checkCount(buffer.getInt());
+        }
+
+        private int checkCount(int count) {
+            if (count < 0 || count > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            return count;
+        }
+
+        private List<String> optionalStrings() {
+            int count = buffer.getInt();
+            return count == NONE ? null : strings(checkCount(count));
+        }
+
+        private String string() {
+            int index = buffer.getInt();
+            return index == NONE ? null : strings[index];
+        }
+
+        private List<String> strings(int count) {
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        /**
+         * Fields every trigger record starts with
+         */
+        private final class Common {
+            private final String id = string();
+            private final String channel = string();
+            private final String cmd = string();
+            private final Map<String, Object> params = params(string());
+            private final PayloadFormat format = FORMATS[buffer.get()];
+            private final TriggerPriority priority = PRIORITIES[buffer.get()];
+            private final FireDelivery delivery = DELIVERIES[buffer.get()];
+            private final long deadline = buffer.getLong();
+            private final String calendar = string();
+            private final List<String> publishChannels = optionalStrings();
+
+            Common() throws IOException {
+            }
+
+            void applyTo(BaseTrigger trigger) {
+                trigger.setPayloadFormat(format);
+                trigger.setPriority(priority);
+                trigger.setDelivery(delivery);
+                trigger.setDeadlineMillis(deadline != NONE ? deadline : null);
+                trigger.setCalendar(calendar);
+                trigger.setPublishChannels(publishChannels);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> params(String json) throws IOException {
+            return json != null ? Json.MAPPER.readValue(json, Map.class) : null;
+        }
+    }
+}
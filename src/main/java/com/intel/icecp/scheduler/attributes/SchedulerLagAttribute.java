@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.intel.icecp.core.attributes.BaseAttribute;
+import com.intel.icecp.scheduler.schedule.LagWatchdog;
+
+/**
+ * Read-only attribute holding how far behind the scheduler is on publishing its fires, in milliseconds, as last
+ * measured by its {@link LagWatchdog}.
+ */
+public class SchedulerLagAttribute extends BaseAttribute<Long> {
+    /**
+     * Name of the attribute
+     */
+    public static final String NAME = "scheduler-lag-millis";
+
+    private final LagWatchdog watchdog;
+
+    /**
+     * Constructor
+     *
+     * @param watchdog watchdog measuring the lag
+     */
+    public SchedulerLagAttribute(LagWatchdog watchdog) {
+        super(NAME, Long.class);
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public Long value() {
+        return watchdog.getLagMillis();
+    }
+}
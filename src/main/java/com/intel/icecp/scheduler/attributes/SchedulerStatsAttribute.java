@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intel.icecp.core.attributes.BaseAttribute;
+import com.intel.icecp.scheduler.schedule.TriggerCounters;
+
+/**
+ * Read-only attribute holding the fire counts of the scheduler as a JSON string: the fired, published, failed and
+ * skipped totals and the counts of every trigger. The value is read from the {@link TriggerCounters} when the
+ * attribute is read.
+ */
+// String valued like SchedulerTriggersAttribute
+public class SchedulerStatsAttribute extends BaseAttribute<String> {
+    /**
+     * Name of the attribute
+     */
+    public static final String NAME = "scheduler-stats";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TriggerCounters counters;
+
+    /**
+     * Constructor
+     *
+     * @param counters counters of the scheduled triggers
+     */
+    public SchedulerStatsAttribute(TriggerCounters counters) {
+        super(NAME, String.class);
+        this.counters = counters;
+    }
+
+    @Override
+    public String value() {
+        try {
+            return MAPPER.writeValueAsString(counters.toMap());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize scheduler stats", e);
+        }
+    }
+}
@@ -19,6 +19,8 @@ package com.intel.icecp.scheduler.attributes;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 
@@ -37,6 +39,8 @@ public class Triggers {
 
     private final RangeTrigger[] rangeTriggers;
     private final IntervalTrigger[] intervalTriggers;
+    private final EventTrigger[] eventTriggers;
+    private final ExclusionCalendar[] calendars;
 
     /**
      * Constructor
@@ -44,11 +48,54 @@ public class Triggers {
      * @param intervalTriggers array of interval triggers
      * @param rangeTriggers array of range triggers
      */
+    public Triggers(IntervalTrigger[] intervalTriggers, RangeTrigger[] rangeTriggers) {
+        this(intervalTriggers, rangeTriggers, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param intervalTriggers array of interval triggers
+     * @param rangeTriggers array of range triggers
+     * @param calendars array of exclusion calendars referenced by the triggers
+     */
+    public Triggers(IntervalTrigger[] intervalTriggers, RangeTrigger[] rangeTriggers, ExclusionCalendar[] calendars) {
+        this(intervalTriggers, rangeTriggers, null, calendars);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param intervalTriggers array of interval triggers
+     * @param rangeTriggers array of range triggers
+     * @param eventTriggers array of event triggers
+     * @param calendars array of exclusion calendars referenced by the triggers
+     */
     @JsonCreator
     public Triggers(@JsonProperty("intervalTriggers") IntervalTrigger[] intervalTriggers,
-                    @JsonProperty("rangeTriggers") RangeTrigger[] rangeTriggers) {
+                    @JsonProperty("rangeTriggers") RangeTrigger[] rangeTriggers,
+                    @JsonProperty("eventTriggers") EventTrigger[] eventTriggers,
+                    @JsonProperty("calendars") ExclusionCalendar[] calendars) {
         this.rangeTriggers = rangeTriggers;
         this.intervalTriggers = intervalTriggers;
+        this.eventTriggers = eventTriggers;
+        this.calendars = calendars;
+    }
+
+    /**
+     * Get all valid exclusion calendars
+     *
+     * @return list of valid calendars
+     */
+    public List<ExclusionCalendar> getValidCalendars() {
+        List<ExclusionCalendar> validCalendars = new ArrayList<>();
+        if (calendars != null) {
+            validCalendars = Arrays.asList(calendars)
+                    .stream()
+                    .filter(ExclusionCalendar::isValid)
+                    .collect(Collectors.toList());
+        }
+        return validCalendars;
     }
 
     /**
@@ -83,4 +130,20 @@ public class Triggers {
         return validIntervalTriggers;
     }
 
+    /**
+     * Get all valid event triggers
+     *
+     * @return list of valid event triggers
+     */
+    public List<EventTrigger> getValidEventTriggers() {
+        List<EventTrigger> validEventTriggers = new ArrayList<>();
+        if (eventTriggers != null) {
+            validEventTriggers = Arrays.asList(eventTriggers)
+                    .stream()
+                    .filter(EventTrigger::isValid)
+                    .collect(Collectors.toList());
+        }
+        return validEventTriggers;
+    }
+
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Streaming loader for the {@link Triggers} configuration. Triggers are read one at a time from the JSON, validated,
+ * and handed to a sink in chunks, so a configuration with a very large number of triggers never has to be held in
+ * memory as a whole.
+ * <p>
+ * The accepted JSON is the same as for {@link Triggers}: an object with optional {@code calendars},
+ * {@code rangeTriggers}, {@code intervalTriggers} and {@code eventTriggers} arrays. Unknown fields fail the load. Calendars are handed to
+ * their sink one at a time as they are read; triggers may reference calendars defined later in the configuration.
+ */
+public class TriggersLoader {
+    /**
+     * Default number of valid triggers handed to a sink at once
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int chunkSize;
+
+    /**
+     * Constructor, using {@link #DEFAULT_CHUNK_SIZE}
+     */
+    public TriggersLoader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param chunkSize number of valid triggers handed to a sink at once
+     */
+    public TriggersLoader(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Load triggers from a configuration string. Triggers that are loaded before a parse error has been detected have
+     * already been handed to the sinks; callers that need all-or-nothing semantics must undo them on failure.
+     *
+     * @param config the triggers configuration
+     * @param rangeSink receives chunks of valid range triggers
+     * @param intervalSink receives chunks of valid interval triggers
+     * @return counts of the loaded triggers
+     * @throws IOException if the configuration cannot be parsed
+     */
+    public Counts load(String config, Consumer<List<RangeTrigger>> rangeSink,
+                       Consumer<List<IntervalTrigger>> intervalSink) throws IOException {
+        return load(config, calendar -> { }, rangeSink, intervalSink);
+    }
+
+    /**
+     * Load exclusion calendars and triggers from a configuration string
+     *
+     * @param config the triggers configuration
+     * @param calendarSink receives each valid exclusion calendar
+     * @param rangeSink receives chunks of valid range triggers
+     * @param intervalSink receives chunks of valid interval triggers
+     * @return counts of the loaded calendars and triggers; event triggers are counted but not loaded
+     * @throws IOException if the configuration cannot be parsed
+     */
+    public Counts load(String config, Consumer<ExclusionCalendar> calendarSink, Consumer<List<RangeTrigger>> rangeSink,
+                       Consumer<List<IntervalTrigger>> intervalSink) throws IOException {
+        return load(config, calendarSink, rangeSink, intervalSink, eventTriggers -> { });
+    }
+
+    /**
+     * Load exclusion calendars and triggers of every type from a configuration string
+     *
+     * @param config the triggers configuration
+     * @param calendarSink receives each valid exclusion calendar
+     * @param rangeSink receives chunks of valid range triggers
+     * @param intervalSink receives chunks of valid interval triggers
+     * @param eventSink receives chunks of valid event triggers
+     * @return counts of the loaded calendars and triggers
+     * @throws IOException if the configuration cannot be parsed
+     */
+    public Counts load(String config, Consumer<ExclusionCalendar> calendarSink, Consumer<List<RangeTrigger>> rangeSink,
+                       Consumer<List<IntervalTrigger>> intervalSink, Consumer<List<EventTrigger>> eventSink)
+            throws IOException {
+        Counts counts = new Counts();
+        try (JsonParser parser = MAPPER.getFactory().createParser(config)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("calendars".equals(field)) {
+                    readCalendars(parser, calendarSink, counts);
+                } else if ("rangeTriggers".equals(field)) {
+                    readArray(parser, RangeTrigger.class, rangeSink, counts);
+                } else if ("intervalTriggers".equals(field)) {
+                    readArray(parser, IntervalTrigger.class, intervalSink, counts);
+                } else if ("eventTriggers".equals(field)) {
+                    readArray(parser, EventTrigger.class, eventSink, counts);
+                } else {
+                    throw new JsonMappingException("Unrecognized field \"" + field + "\"", parser.getCurrentLocation());
+                }
+            }
+            expect(parser, parser.getCurrentToken(), JsonToken.END_OBJECT);
+        }
+        return counts;
+    }
+
+    private void readCalendars(JsonParser parser, Consumer<ExclusionCalendar> sink, Counts counts) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.START_ARRAY);
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            ExclusionCalendar calendar = MAPPER.readValue(parser, ExclusionCalendar.class);
+            if (calendar != null && calendar.isValid()) {
+                sink.accept(calendar);
+                counts.calendars.add(calendar.getName());
+            } else {
+                counts.invalid++;
+                LOGGER.warn("Ignoring invalid calendar {}{}", calendar != null ? calendar.getName() : null,
+                        calendar != null && calendar.getParseError() != null ? ": " + calendar.getParseError() : "");
+            }
+        }
+    }
+
+    private <T extends BaseTrigger> void readArray(JsonParser parser, Class<T> type, Consumer<List<T>> sink,
+                                                   Counts counts) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.START_ARRAY);
+
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            T trigger = MAPPER.readValue(parser, type);
+            if (trigger != null && trigger.isValid()) {
+                if (trigger.getCalendar() != null) {
+                    counts.referencedCalendars.add(trigger.getCalendar());
+                }
+                chunk.add(trigger);
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, sink, type, counts);
+                }
+            } else {
+                counts.invalid++;
+                LOGGER.warn("Ignoring invalid {} {}{}", type.getSimpleName(), trigger != null ? trigger.getId() : null,
+                        trigger != null && trigger.getParamsError() != null ? ": " + trigger.getParamsError() : "");
+            }
+        }
+        flush(chunk, sink, type, counts);
+    }
+
+    private <T extends BaseTrigger> void flush(List<T> chunk, Consumer<List<T>> sink, Class<T> type, Counts counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        sink.accept(chunk);
+        if (type == RangeTrigger.class) {
+            counts.range += chunk.size();
+        } else if (type == EventTrigger.class) {
+            counts.event += chunk.size();
+        } else {
+            counts.interval += chunk.size();
+        }
+        LOGGER.debug("Loaded {} {}s", chunk.size(), type.getSimpleName());
+        chunk.clear();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonMappingException {
+        if (actual != expected) {
+            throw new JsonMappingException("Expected " + expected + " but found " + actual, parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Counts of calendars and triggers seen by a load
+     */
+    public static class Counts {
+        final Set<String> calendars = new HashSet<>();
+        final Set<String> referencedCalendars = new HashSet<>();
+        int range;
+        int interval;
+        int event;
+        int invalid;
+
+        /**
+         * @return number of valid exclusion calendars
+         */
+        public int getCalendars() {
+            return calendars.size();
+        }
+
+        /**
+         * @return names of calendars referenced by valid triggers but not defined by the configuration
+         */
+        public Set<String> getUndefinedCalendars() {
+            Set<String> undefined = new HashSet<>(referencedCalendars);
+            undefined.removeAll(calendars);
+            return Collections.unmodifiableSet(undefined);
+        }
+
+        /**
+         * @return number of valid range triggers
+         */
+        public int getRange() {
+            return range;
+        }
+
+        /**
+         * @return number of valid interval triggers
+         */
+        public int getInterval() {
+            return interval;
+        }
+
+        /**
+         * @return number of valid event triggers
+         */
+        public int getEvent() {
+            return event;
+        }
+
+        /**
+         * @return number of calendars and triggers ignored because they were invalid
+         */
+        public int getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * @return number of valid triggers
+         */
+        public int getValid() {
+            return range + interval + event;
+        }
+
+        @Override
+        public String toString() {
+            return "Counts{" +
+                    "calendars=" + calendars.size() +
+                    ", range=" + range +
+                    ", interval=" + interval +
+                    ", event=" + event +
+                    ", invalid=" + invalid +
+                    '}';
+        }
+    }
+}
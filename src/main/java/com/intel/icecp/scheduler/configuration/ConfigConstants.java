@@ -27,6 +27,115 @@ public class ConfigConstants {
      */
     public static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a");
 
+    /**
+     * Number of fires of each trigger that are always written to the fire event log; set with the
+     * {@code icecp.scheduler.fireLog.first} system property
+     */
+    public static final long FIRE_LOG_FIRST = Long.getLong("icecp.scheduler.fireLog.first", 10);
+
+    /**
+     * After the first fires, only every n-th fire of a trigger is written to the fire event log; set with the
+     * {@code icecp.scheduler.fireLog.every} system property, 0 disables sampled fire events
+     */
+    public static final long FIRE_LOG_EVERY = Long.getLong("icecp.scheduler.fireLog.every", 100);
+
+    /**
+     * Number of threads publishing fired triggers; set with the {@code icecp.scheduler.dispatch.workers} system
+     * property
+     */
+    public static final int DISPATCH_WORKERS = Integer.getInteger("icecp.scheduler.dispatch.workers", 2);
+
+    /**
+     * Maximum number of fires of each priority waiting to be published; further fires are dropped. Set with the
+     * {@code icecp.scheduler.dispatch.capacity} system property
+     */
+    public static final int DISPATCH_CAPACITY = Integer.getInteger("icecp.scheduler.dispatch.capacity", 10_000);
+
+    /**
+     * Deadline used to order fires of triggers without a deadline among the fires of the same priority; such fires
+     * are never dropped for being late. Set with the {@code icecp.scheduler.dispatch.defaultDeadlineMillis} system
+     * property
+     */
+    public static final long DISPATCH_DEFAULT_DEADLINE_MILLIS = Long.getLong("icecp.scheduler.dispatch.defaultDeadlineMillis", 60_000L);
+
+    /**
+     * Number of threads publishing a fire on the extra channels of triggers with several publish channels; set with
+     * the {@code icecp.scheduler.fanout.threads} system property
+     */
+    public static final int FANOUT_THREADS = Integer.getInteger("icecp.scheduler.fanout.threads", 4);
+
+    /**
+     * Maximum number of fires buffered for each local subscriber before further fires are dropped for it; set with the
+     * {@code icecp.scheduler.local.bufferSize} system property
+     */
+    public static final int LOCAL_BUFFER_SIZE = Integer.getInteger("icecp.scheduler.local.bufferSize", 1024);
+
+    /**
+     * Period, in milliseconds, at which the lag watchdog measures how far behind the dispatcher is; set with the
+     * {@code icecp.scheduler.watchdog.periodMillis} system property
+     */
+    public static final long WATCHDOG_PERIOD_MILLIS = Long.getLong("icecp.scheduler.watchdog.periodMillis", 1000L);
+
+    /**
+     * Dispatcher lag, in milliseconds, above which the scheduler is degraded; it recovers once the lag falls below half
+     * of it. Set with the {@code icecp.scheduler.watchdog.lagThresholdMillis} system property
+     */
+    public static final long WATCHDOG_LAG_THRESHOLD_MILLIS = Long.getLong("icecp.scheduler.watchdog.lagThresholdMillis", 5000L);
+
+    /**
+     * Whether low priority fires are shed while the scheduler is degraded; set with the
+     * {@code icecp.scheduler.watchdog.shedLow} system property
+     */
+    public static final boolean WATCHDOG_SHED_LOW = Boolean.getBoolean("icecp.scheduler.watchdog.shedLow");
+
+    /**
+     * Channel the scheduler's RPC commands (e.g. {@code stats}) are served on; set with the
+     * {@code icecp.scheduler.rpc.channel} system property. Defaults to {@code scheduler} under the node's default URI
+     */
+    public static final String RPC_CHANNEL = System.getProperty("icecp.scheduler.rpc.channel");
+
+    /**
+     * Channel the scheduler publishes its metrics snapshots on; set with the {@code icecp.scheduler.metrics.channel}
+     * system property. Defaults to {@code scheduler/metrics} under the node's default URI
+     */
+    public static final String METRICS_CHANNEL = System.getProperty("icecp.scheduler.metrics.channel");
+
+    /**
+     * Period, in milliseconds, at which the scheduler publishes its metrics snapshots, 0 to not publish them; set with
+     * the {@code icecp.scheduler.metrics.periodMillis} system property
+     */
+    public static final long METRICS_PERIOD_MILLIS = Long.getLong("icecp.scheduler.metrics.periodMillis", 10_000L);
+
+    /**
+     * Whether the scheduler emits its Java Flight Recorder events when Flight Recorder is available; set with the
+     * {@code icecp.scheduler.jfr} system property
+     */
+    public static final boolean JFR_EVENTS = Boolean.parseBoolean(System.getProperty("icecp.scheduler.jfr", "true"));
+
+    /**
+     * Change of the wall clock against the monotonic clock, in milliseconds, that is reported as a wall clock jump;
+     * set with the {@code icecp.scheduler.clockJump.thresholdMillis} system property
+     */
+    public static final long CLOCK_JUMP_THRESHOLD_MILLIS = Long.getLong("icecp.scheduler.clockJump.thresholdMillis", 1000L);
+
+    /**
+     * Interval triggers firing more often than this, in microseconds, are fired by the high resolution timer instead
+     * of Quartz; set with the {@code icecp.scheduler.highResolution.thresholdMicros} system property
+     */
+    public static final long HIGH_RESOLUTION_THRESHOLD_MICROS = Long.getLong("icecp.scheduler.highResolution.thresholdMicros", 10_000L);
+
+    /**
+     * Time before a high resolution fire is due, in microseconds, from which the timer busy-waits instead of parking;
+     * set with the {@code icecp.scheduler.highResolution.spinMicros} system property
+     */
+    public static final long HIGH_RESOLUTION_SPIN_MICROS = Long.getLong("icecp.scheduler.highResolution.spinMicros", 100L);
+
+    /**
+     * Path of the compiled schedule image loaded instead of parsing the triggers configuration, if it was compiled from
+     * the same configuration; set with the {@code icecp.scheduler.image} system property
+     */
+    public static final String SCHEDULE_IMAGE = System.getProperty("icecp.scheduler.image", "configuration/scheduler-triggers.bin");
+
     private ConfigConstants() {
     }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.intel.icecp.core.messages.BytesMessage;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command published by triggers using the {@link com.intel.icecp.scheduler.trigger.PayloadFormat#CBOR} payload format.
+ * On the wire it is a two element CBOR array {@code [cmd, params]}, where params is a map (or null). The scheduler
+ * encodes it once per trigger; subscribers use {@link #decode(BytesMessage)} to read it.
+ */
+public final class CompactCommand {
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    private final String cmd;
+    private final Map<String, Object> params;
+
+    /**
+     * Constructor
+     *
+     * @param cmd the command name, may be null
+     * @param params the command parameters, may be null
+     */
+    public CompactCommand(String cmd, Map<String, Object> params) {
+        this.cmd = cmd;
+        this.params = params;
+    }
+
+    /**
+     * Encode a command
+     *
+     * @param cmd the command name, may be null
+     * @param params the command parameters, may be null
+     * @return the CBOR encoded command
+     * @throws IOException if the params cannot be encoded
+     */
+    public static byte[] encode(String cmd, Map<String, ?> params) throws IOException {
+        return CBOR_MAPPER.writeValueAsBytes(Arrays.asList(cmd, params));
+    }
+
+    /**
+     * Decode a command published by the scheduler
+     *
+     * @param message the received message
+     * @return the decoded command
+     * @throws IOException if the message is not a compact command
+     */
+    public static CompactCommand decode(BytesMessage message) throws IOException {
+        return decode(message.getBytes());
+    }
+
+    /**
+     * Decode a command published by the scheduler
+     *
+     * @param bytes the received bytes
+     * @return the decoded command
+     * @throws IOException if the bytes are not a compact command
+     */
+    @SuppressWarnings("unchecked")
+    public static CompactCommand decode(byte[] bytes) throws IOException {
+        List<Object> fields = CBOR_MAPPER.readValue(bytes, List.class);
+        if (fields.size() != 2 || (fields.get(0) != null && !(fields.get(0) instanceof String))
+                || (fields.get(1) != null && !(fields.get(1) instanceof Map))) {
+            throw new IOException("Not a compact command: " + fields);
+        }
+        return new CompactCommand((String) fields.get(0), (Map<String, Object>) fields.get(1));
+    }
+
+    /**
+     * @return the command name, may be null
+     */
+    public String getCmd() {
+        return cmd;
+    }
+
+    /**
+     * @return the command parameters, empty if the trigger has none
+     */
+    public Map<String, Object> getParams() {
+        return params != null ? Collections.unmodifiableMap(params) : Collections.emptyMap();
+    }
+
+    @Override
+    public String toString() {
+        return "CompactCommand{" +
+                "cmd='" + cmd + '\'' +
+                ", params=" + params +
+                '}';
+    }
+}
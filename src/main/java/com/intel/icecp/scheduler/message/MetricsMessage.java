@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.message;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.intel.icecp.core.Message;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Snapshot of the scheduler's metrics, published periodically on the scheduler's metrics channel. Counts are totals
+ * since the schedule started; the fire rate and recent failures cover the period since the previous snapshot.
+ */
+@SuppressWarnings("serial")
+@JsonPropertyOrder({
+        "ts",
+        "period",
+        "fired",
+        "published",
+        "failed",
+        "skipped",
+        "fireRate",
+        "recentFailed",
+        "lag",
+        "maxLag",
+        "depth",
+        "priorities",
+        "hitRatio",
+        "clockJumps",
+        "lastClockJump",
+        "timerLateness",
+        "channels"
+})
+public class MetricsMessage implements Message {
+
+    private final Date timestamp;
+    private final long periodMillis;
+    private final long fired;
+    private final long published;
+    private final long failed;
+    private final long skipped;
+    private final double fireRate;
+    private final long recentFailed;
+    private final long lagMillis;
+    private final long maxLagMillis;
+    private final int queueDepth;
+    private final List<PriorityMetrics> priorities;
+    private final double channelHitRatio;
+    private final long clockJumps;
+    private final long lastClockJumpMillis;
+    private final long maxTimerLatenessMicros;
+    private final List<ChannelMetrics> channels;
+
+    /**
+     * Constructor
+     *
+     * @param timestamp time the snapshot was taken
+     * @param periodMillis time since the previous snapshot
+     * @param fired fires counted
+     * @param published fires published
+     * @param failed fires that failed to publish
+     * @param skipped fires skipped, e.g. excluded by a calendar or dropped by the dispatcher
+     * @param fireRate fires per second since the previous snapshot
+     * @param recentFailed fires that failed to publish since the previous snapshot
+     * @param lagMillis current dispatch lag
+     * @param maxLagMillis highest dispatch lag measured
+     * @param queueDepth fires queued for dispatch, over all priorities
+     * @param priorities dispatch metrics of every priority class
+     * @param channelHitRatio share of publishes that found their channel already open
+     * @param clockJumps wall clock jumps detected
+     * @param lastClockJumpMillis size of the last wall clock jump, negative if the clock was set back
+     * @param maxTimerLatenessMicros largest delay of a monotonic timer fire past its due time
+     * @param channels publish outcomes of every channel published on
+     */
+    @JsonCreator
+    public MetricsMessage(@JsonProperty(value = "ts", required = true) Date timestamp,
+                          @JsonProperty("period") long periodMillis,
+                          @JsonProperty("fired") long fired,
+                          @JsonProperty("published") long published,
+                          @JsonProperty("failed") long failed,
+                          @JsonProperty("skipped") long skipped,
+                          @JsonProperty("fireRate") double fireRate,
+                          @JsonProperty("recentFailed") long recentFailed,
+                          @JsonProperty("lag") long lagMillis,
+                          @JsonProperty("maxLag") long maxLagMillis,
+                          @JsonProperty("depth") int queueDepth,
+                          @JsonProperty("priorities") List<PriorityMetrics> priorities,
+                          @JsonProperty("hitRatio") double channelHitRatio,
+                          @JsonProperty("clockJumps") long clockJumps,
+                          @JsonProperty("lastClockJump") long lastClockJumpMillis,
+                          @JsonProperty("timerLateness") long maxTimerLatenessMicros,
+                          @JsonProperty("channels") List<ChannelMetrics> channels) {
+        this.timestamp = timestamp;
+        this.periodMillis = periodMillis;
+        this.fired = fired;
+        this.published = published;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.fireRate = fireRate;
+        this.recentFailed = recentFailed;
+        this.lagMillis = lagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.queueDepth = queueDepth;
+        this.priorities = priorities;
+        this.channelHitRatio = channelHitRatio;
+        this.clockJumps = clockJumps;
+        this.lastClockJumpMillis = lastClockJumpMillis;
+        this.maxTimerLatenessMicros = maxTimerLatenessMicros;
+        this.channels = channels;
+    }
+
+    /**
+     * @return time the snapshot was taken
+     */
+    @JsonGetter("ts")
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return time since the previous snapshot, in milliseconds
+     */
+    @JsonGetter("period")
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * @return fires counted
+     */
+    @JsonGetter("fired")
+    public long getFired() {
+        return fired;
+    }
+
+    /**
+     * @return fires published
+     */
+    @JsonGetter("published")
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * @return fires that failed to publish
+     */
+    @JsonGetter("failed")
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return fires skipped
+     */
+    @JsonGetter("skipped")
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return fires per second since the previous snapshot
+     */
+    @JsonGetter("fireRate")
+    public double getFireRate() {
+        return fireRate;
+    }
+
+    /**
+     * @return fires that failed to publish since the previous snapshot
+     */
+    @JsonGetter("recentFailed")
+    public long getRecentFailed() {
+        return recentFailed;
+    }
+
+    /**
+     * @return current dispatch lag, in milliseconds
+     */
+    @JsonGetter("lag")
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * @return highest dispatch lag measured, in milliseconds
+     */
+    @JsonGetter("maxLag")
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * @return fires queued for dispatch, over all priorities
+     */
+    @JsonGetter("depth")
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return dispatch metrics of every priority class
+     */
+    @JsonGetter("priorities")
+    public List<PriorityMetrics> getPriorities() {
+        return priorities;
+    }
+
+    /**
+     * @return share of publishes that found their channel already open, 1 if nothing was published yet
+     */
+    @JsonGetter("hitRatio")
+    public double getChannelHitRatio() {
+        return channelHitRatio;
+    }
+
+    /**
+     * @return wall clock jumps detected
+     */
+    @JsonGetter("clockJumps")
+    public long getClockJumps() {
+        return clockJumps;
+    }
+
+    /**
+     * @return size of the last wall clock jump in milliseconds, negative if the clock was set back, or 0 if there was
+     * none
+     */
+    @JsonGetter("lastClockJump")
+    public long getLastClockJumpMillis() {
+        return lastClockJumpMillis;
+    }
+
+    /**
+     * @return largest delay between the time a monotonic timer fire was due and the time it was queued, in
+     * microseconds
+     */
+    @JsonGetter("timerLateness")
+    public long getMaxTimerLatenessMicros() {
+        return maxTimerLatenessMicros;
+    }
+
+    /**
+     * @return publish outcomes of every channel published on
+     */
+    @JsonGetter("channels")
+    public List<ChannelMetrics> getChannels() {
+        return channels;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsMessage{" +
+                "timestamp=" + timestamp +
+                ", periodMillis=" + periodMillis +
+                ", fired=" + fired +
+                ", published=" + published +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", fireRate=" + fireRate +
+                ", recentFailed=" + recentFailed +
+                ", lagMillis=" + lagMillis +
+                ", maxLagMillis=" + maxLagMillis +
+                ", queueDepth=" + queueDepth +
+                ", priorities=" + priorities +
+                ", channelHitRatio=" + channelHitRatio +
+                ", clockJumps=" + clockJumps +
+                ", lastClockJumpMillis=" + lastClockJumpMillis +
+                ", maxTimerLatenessMicros=" + maxTimerLatenessMicros +
+                ", channels=" + channels +
+                '}';
+    }
+
+    /**
+     * Dispatch metrics of one priority class; counts are totals since the schedule started
+     */
+    @JsonPropertyOrder({"priority", "depth", "enqueued", "dispatched", "dropped", "expired", "shed", "meanWait", "maxWait"})
+    public static final class PriorityMetrics {
+        private final TriggerPriority priority;
+        private final int depth;
+        private final long enqueued;
+        private final long dispatched;
+        private final long dropped;
+        private final long expired;
+        private final long shed;
+        private final long meanWaitMicros;
+        private final long maxWaitMicros;
+
+        /**
+         * Constructor
+         *
+         * @param priority the priority class
+         * @param depth fires waiting to be published
+         * @param enqueued fires queued
+         * @param dispatched fires handed to a publish worker
+         * @param dropped fires dropped because the queue was full or the dispatcher was closed
+         * @param expired fires dropped because their deadline passed before they were published
+         * @param shed fires not queued because the dispatcher was shedding load
+         * @param meanWaitMicros mean time a dispatched fire waited in the queue
+         * @param maxWaitMicros longest time a dispatched fire waited in the queue
+         */
+        @JsonCreator
+        public PriorityMetrics(@JsonProperty(value = "priority", required = true) TriggerPriority priority,
+                               @JsonProperty("depth") int depth,
+                               @JsonProperty("enqueued") long enqueued,
+                               @JsonProperty("dispatched") long dispatched,
+                               @JsonProperty("dropped") long dropped,
+                               @JsonProperty("expired") long expired,
+                               @JsonProperty("shed") long shed,
+                               @JsonProperty("meanWait") long meanWaitMicros,
+                               @JsonProperty("maxWait") long maxWaitMicros) {
+            this.priority = priority;
+            this.depth = depth;
+            this.enqueued = enqueued;
+            this.dispatched = dispatched;
+            this.dropped = dropped;
+            this.expired = expired;
+            this.shed = shed;
+            this.meanWaitMicros = meanWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+        }
+
+        /**
+         * @return the priority class
+         */
+        @JsonGetter("priority")
+        public TriggerPriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return fires waiting to be published
+         */
+        @JsonGetter("depth")
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return fires queued
+         */
+        @JsonGetter("enqueued")
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        /**
+         * @return fires handed to a publish worker
+         */
+        @JsonGetter("dispatched")
+        public long getDispatched() {
+            return dispatched;
+        }
+
+        /**
+         * @return fires dropped because the queue was full or the dispatcher was closed
+         */
+        @JsonGetter("dropped")
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return fires dropped because their deadline passed before they were published
+         */
+        @JsonGetter("expired")
+        public long getExpired() {
+            return expired;
+        }
+
+        /**
+         * @return fires not queued because the dispatcher was shedding load
+         */
+        @JsonGetter("shed")
+        public long getShed() {
+            return shed;
+        }
+
+        /**
+         * @return mean time a dispatched fire waited in the queue, in microseconds
+         */
+        @JsonGetter("meanWait")
+        public long getMeanWaitMicros() {
+            return meanWaitMicros;
+        }
+
+        /**
+         * @return longest time a dispatched fire waited in the queue, in microseconds
+         */
+        @JsonGetter("maxWait")
+        public long getMaxWaitMicros() {
+            return maxWaitMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "PriorityMetrics{priority=" + priority + ", depth=" + depth + ", enqueued=" + enqueued
+                    + ", dispatched=" + dispatched + ", dropped=" + dropped + ", expired=" + expired + ", shed=" + shed
+                    + ", meanWaitMicros=" + meanWaitMicros + ", maxWaitMicros=" + maxWaitMicros + '}';
+        }
+    }
+
+    /**
+     * Publish outcomes of one channel, totals since the schedule started
+     */
+    @JsonPropertyOrder({"channel", "published", "failed"})
+    public static final class ChannelMetrics {
+        private final URI channel;
+        private final long published;
+        private final long failed;
+
+        /**
+         * Constructor
+         *
+         * @param channel the publish channel
+         * @param published messages published on the channel
+         * @param failed publishes on the channel that failed
+         */
+        @JsonCreator
+        public ChannelMetrics(@JsonProperty(value = "channel", required = true) URI channel,
+                              @JsonProperty("published") long published,
+                              @JsonProperty("failed") long failed) {
+            this.channel = channel;
+            this.published = published;
+            this.failed = failed;
+        }
+
+        /**
+         * @return the publish channel
+         */
+        @JsonGetter("channel")
+        public URI getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return messages published on the channel
+         */
+        @JsonGetter("published")
+        public long getPublished() {
+            return published;
+        }
+
+        /**
+         * @return publishes on the channel that failed
+         */
+        @JsonGetter("failed")
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelMetrics{channel=" + channel + ", published=" + published + ", failed=" + failed + '}';
+        }
+    }
+}
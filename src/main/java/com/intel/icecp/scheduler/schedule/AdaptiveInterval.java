@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.AdaptiveFeedback;
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interval of an adaptive interval trigger, adjusted by additive increase / multiplicative decrease (AIMD) of the fire
+ * rate: a fire the {@link AdaptiveFeedback feedback} reports as congested multiplies the interval by the backoff
+ * factor, any other fire shortens it by the step. The interval stays within the bounds of the {@link AdaptivePolicy}.
+ * <p>
+ * Feedback arrives from the threads publishing the fires and, for {@link AdaptiveFeedback#RESPONSE}, from the threads
+ * delivering command responses; the timer reads the interval without locking whenever it computes the next fire.
+ * With {@link AdaptiveFeedback#RESPONSE}, a fire whose request is still unanswered when the next fire is published
+ * counts as congested.
+ */
+public final class AdaptiveInterval {
+    private final AdaptiveFeedback feedback;
+    private final long minNanos;
+    private final long maxNanos;
+    private final long stepNanos;
+    private final double backoffFactor;
+    private final long latencyTargetNanos;
+    private final LongAdder backoffs = new LongAdder();
+    private final LongAdder recoveries = new LongAdder();
+    private volatile long intervalNanos;
+    private boolean awaitingResponse;
+    private long sentNanos;
+
+    /**
+     * Constructor
+     *
+     * @param policy bounds and feedback of the interval
+     * @param unit time unit of the policy's intervals and step
+     * @param initialNanos interval before any feedback, in nanoseconds; clamped to the bounds
+     */
+    public AdaptiveInterval(AdaptivePolicy policy, TimeUnit unit, long initialNanos) {
+        this.feedback = policy.getFeedback();
+        this.minNanos = unit.toNanos(policy.getMinInterval());
+        this.maxNanos = unit.toNanos(policy.getMaxInterval());
+        this.stepNanos = unit.toNanos(policy.getStep() != null ? policy.getStep() : policy.getMinInterval());
+        this.backoffFactor = policy.getBackoffFactor() != null ? policy.getBackoffFactor() : 2;
+        this.latencyTargetNanos = policy.getLatencyTargetMillis() != null
+                ? TimeUnit.MILLISECONDS.toNanos(policy.getLatencyTargetMillis()) : 0;
+        this.intervalNanos = Math.max(minNanos, Math.min(maxNanos, initialNanos));
+    }
+
+    /**
+     * @param trigger a configured trigger
+     * @return the adaptive interval of the trigger, or null if it is not an adaptive interval trigger
+     */
+    static AdaptiveInterval from(BaseTrigger trigger) {
+        if (!(trigger instanceof IntervalTrigger) || ((IntervalTrigger) trigger).getAdaptive() == null) {
+            return null;
+        }
+        IntervalTrigger interval = (IntervalTrigger) trigger;
+        return new AdaptiveInterval(interval.getAdaptive(), interval.getUnit(), interval.getIntervalNanos());
+    }
+
+    /**
+     * @return the signal the interval backs off on
+     */
+    public AdaptiveFeedback getFeedback() {
+        return feedback;
+    }
+
+    /**
+     * @return the current interval, in nanoseconds
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Report that a fire is about to be published. Called before publishing so that a response arriving before the
+     * publish returns is not missed.
+     *
+     * @param nowNanos monotonic time the publish starts
+     */
+    public synchronized void onPublishing(long nowNanos) {
+        if (feedback != AdaptiveFeedback.RESPONSE) {
+            return;
+        }
+        if (awaitingResponse) {
+            backOff();
+        }
+        awaitingResponse = true;
+        sentNanos = nowNanos;
+    }
+
+    /**
+     * Report the outcome of publishing a fire
+     *
+     * @param published true if the fire was published on every channel
+     * @param startNanos monotonic time the publish started
+     * @param endNanos monotonic time the publish completed
+     */
+    public synchronized void onPublished(boolean published, long startNanos, long endNanos) {
+        if (!published) {
+            awaitingResponse = false;
+            backOff();
+        } else if (feedback == AdaptiveFeedback.FAILURES) {
+            recover();
+        } else if (feedback == AdaptiveFeedback.LATENCY) {
+            adjust(endNanos - startNanos > latencyTargetNanos);
+        }
+    }
+
+    /**
+     * Report a response to the command request of the trigger. Responses that arrive after the next fire was
+     * published are ignored, since that fire already backed off.
+     *
+     * @param error true if the command failed
+     * @param nowNanos monotonic time the response arrived
+     */
+    public synchronized void onResponse(boolean error, long nowNanos) {
+        if (feedback != AdaptiveFeedback.RESPONSE || !awaitingResponse) {
+            return;
+        }
+        awaitingResponse = false;
+        adjust(error || (latencyTargetNanos > 0 && nowNanos - sentNanos > latencyTargetNanos));
+    }
+
+    private void adjust(boolean congested) {
+        if (congested) {
+            backOff();
+        } else {
+            recover();
+        }
+    }
+
+    private void backOff() {
+        long backedOff = (long) Math.min(maxNanos, intervalNanos * backoffFactor);
+        intervalNanos = Math.max(backedOff, minNanos);
+        backoffs.increment();
+    }
+
+    private void recover() {
+        intervalNanos = Math.max(minNanos, intervalNanos - stepNanos);
+        recoveries.increment();
+    }
+
+    /**
+     * @return number of fires that lengthened the interval
+     */
+    public long getBackoffs() {
+        return backoffs.sum();
+    }
+
+    /**
+     * @return number of fires that shortened the interval, or would have if it was not at its minimum
+     */
+    public long getRecoveries() {
+        return recoveries.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveInterval{" +
+                "feedback=" + feedback +
+                ", intervalNanos=" + intervalNanos +
+                ", backoffs=" + getBackoffs() +
+                ", recoveries=" + getRecoveries() +
+                '}';
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link ExclusionCalendar} compiled for the fire path. Excluded dates become a bitmap indexed by epoch day,
+ * excluded days of the week a 7 bit mask and excluded windows a bitmap of the 1440 minutes of a day, so deciding
+ * whether a fire is excluded takes an offset lookup and three bit tests. The UTC offset of the schedule's time zone is
+ * cached until the zone's next transition.
+ * <p>
+ * One instance exists per calendar name and is shared by all triggers referencing it. Triggers may reference a
+ * calendar before it is defined; until then nothing is excluded.
+ */
+final class CompiledCalendar {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    final String name;
+    private volatile Bitmaps bitmaps;
+
+    CompiledCalendar(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Compile a calendar definition, replacing any earlier definition
+     *
+     * @param calendar the calendar definition
+     * @param zone time zone the calendar's dates and times are local to
+     */
+    void define(ExclusionCalendar calendar, ZoneId zone) {
+        BitSet days = new BitSet();
+        for (LocalDate date : calendar.getDates()) {
+            long epochDay = date.toEpochDay();
+            // the bitmap is indexed by epoch day; fires never fall on days outside of it, so such dates are ignored
+            if (epochDay >= 0 && epochDay <= Integer.MAX_VALUE) {
+                days.set((int) epochDay);
+            }
+        }
+
+        int daysOfWeek = 0;
+        for (DayOfWeek day : calendar.getDaysOfWeek()) {
+            daysOfWeek |= 1 << day.ordinal();
+        }
+
+        BitSet minutes = new BitSet(MINUTES_PER_DAY);
+        for (ExclusionCalendar.Window window : calendar.getWindows()) {
+            int start = window.getStartTime().toSecondOfDay() / 60;
+            int end = window.getEndTime().toSecondOfDay() / 60;
+            if (end > start) {
+                minutes.set(start, end);
+            } else {
+                minutes.set(start, MINUTES_PER_DAY);
+                minutes.set(0, end);
+            }
+        }
+
+        this.bitmaps = new Bitmaps(zone.getRules(), days, daysOfWeek, minutes);
+    }
+
+    /**
+     * @return true if the calendar has been defined
+     */
+    boolean isDefined() {
+        return bitmaps != null;
+    }
+
+    /**
+     * @param epochMillis the time of a fire
+     * @return true if fires at that time are excluded
+     */
+    boolean isExcluded(long epochMillis) {
+        Bitmaps current = bitmaps;
+        if (current == null) {
+            return false;
+        }
+
+        long localMillis = epochMillis + offsetMillis(current, epochMillis);
+        long epochDay = Math.floorDiv(localMillis, DAY_MILLIS);
+        // 1970-01-01 was a Thursday
+        int dayOfWeek = (int) Math.floorMod(epochDay + DayOfWeek.THURSDAY.ordinal(), 7L);
+        int minute = (int) (Math.floorMod(localMillis, DAY_MILLIS) / MINUTE_MILLIS);
+
+        return (current.daysOfWeek & (1 << dayOfWeek)) != 0
+                || current.minutes.get(minute)
+                || (epochDay >= 0 && epochDay <= Integer.MAX_VALUE && current.days.get((int) epochDay));
+    }
+
+    private static long offsetMillis(Bitmaps bitmaps, long epochMillis) {
+        Offset current = bitmaps.offset;
+        if (current == null || epochMillis < current.fromMillis || epochMillis >= current.untilMillis) {
+            ZoneRules rules = bitmaps.rules;
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+            ZoneOffsetTransition previous = rules.previousTransition(instant);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            current = new Offset(previous != null ? previous.toEpochSecond() * 1000 : Long.MIN_VALUE,
+                    next != null ? next.toEpochSecond() * 1000 : Long.MAX_VALUE,
+                    rules.getOffset(instant).getTotalSeconds() * 1000L);
+            bitmaps.offset = current;
+        }
+        return current.offsetMillis;
+    }
+
+    private static final class Bitmaps {
+        private final ZoneRules rules;
+        private final BitSet days;
+        private final int daysOfWeek;
+        private final BitSet minutes;
+        private volatile Offset offset;
+
+        Bitmaps(ZoneRules rules, BitSet days, int daysOfWeek, BitSet minutes) {
+            this.rules = rules;
+            this.days = days;
+            this.daysOfWeek = daysOfWeek;
+            this.minutes = minutes;
+        }
+    }
+
+    /**
+     * UTC offset valid from one zone transition to the next
+     */
+    private static final class Offset {
+        private final long fromMillis;
+        private final long untilMillis;
+        private final long offsetMillis;
+
+        Offset(long fromMillis, long untilMillis, long offsetMillis) {
+            this.fromMillis = fromMillis;
+            this.untilMillis = untilMillis;
+            this.offsetMillis = offsetMillis;
+        }
+    }
+}
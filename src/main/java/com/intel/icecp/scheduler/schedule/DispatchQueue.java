@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+/**
+ * Bounded queue of fires of one priority waiting to be published, with its metrics. Fires are taken earliest deadline
+ * first; fires with the same deadline are taken in the order they were queued. A fire with a hard deadline that has
+ * passed by the time it would be taken is dropped and counted as expired instead of being published.
+ * <p>
+ * The queue is a binary min-heap kept in preallocated parallel arrays, so queueing a fire does not allocate. Deadlines
+ * are {@link System#nanoTime()} values and are compared by difference. Not thread safe; guarded by the
+ * {@link Dispatcher} lock.
+ */
+final class DispatchQueue {
+    private final ScheduledTrigger[] triggers;
+    private final long[] deadlines;
+    private final long[] sequences;
+    private final long[] enqueuedAt;
+    private final long[] dueAt;
+    private final boolean[] hardDeadlines;
+    private int size;
+
+    private long enqueued;
+    private long dispatched;
+    private long dropped;
+    private long expired;
+    private long shed;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    DispatchQueue(int capacity) {
+        this.triggers = new ScheduledTrigger[capacity];
+        this.deadlines = new long[capacity];
+        this.sequences = new long[capacity];
+        this.enqueuedAt = new long[capacity];
+        this.dueAt = new long[capacity];
+        this.hardDeadlines = new boolean[capacity];
+    }
+
+    /**
+     * @param trigger the fired trigger
+     * @param nowNanos current {@link System#nanoTime()}
+     * @param dueNanos {@link System#nanoTime()} the fire was due at; at most now
+     * @param deadlineNanos {@link System#nanoTime()} by which the fire should be published
+     * @param hardDeadline true if the fire is dropped once its deadline has passed
+     * @return false if the fire was dropped, because the queue is full or its deadline has already passed
+     */
+    boolean offer(ScheduledTrigger trigger, long nowNanos, long dueNanos, long deadlineNanos, boolean hardDeadline) {
+        if (hardDeadline && nowNanos - deadlineNanos > 0) {
+            expired++;
+            return false;
+        }
+        if (size == triggers.length) {
+            dropped++;
+            return false;
+        }
+        int i = size++;
+        set(i, trigger, deadlineNanos, enqueued++, nowNanos, dueNanos, hardDeadline);
+        siftUp(i);
+        return true;
+    }
+
+    /**
+     * Count a fire that was not queued because the dispatcher is shedding load
+     */
+    void shed() {
+        shed++;
+    }
+
+    /**
+     * Find how long the earliest due queued fire has been waiting since it was due. The heap is ordered by deadline,
+     * not due time, so this scans the queued fires; it is only called periodically.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return nanoseconds since the earliest queued fire was due, or 0 if the queue is empty
+     */
+    long lagNanos(long nowNanos) {
+        long lag = 0;
+        for (int i = 0; i < size; i++) {
+            lag = Math.max(lag, nowNanos - dueAt[i]);
+        }
+        return lag;
+    }
+
+    /**
+     * @return the fire with the earliest deadline that has not expired, or null if there is none
+     */
+    ScheduledTrigger poll(long nowNanos) {
+        while (size > 0) {
+            ScheduledTrigger trigger = triggers[0];
+            boolean late = hardDeadlines[0] && nowNanos - deadlines[0] > 0;
+            long wait = nowNanos - enqueuedAt[0];
+            removeHead();
+
+            if (late) {
+                expired++;
+                trigger.countSkippedWithAliases(1);
+                continue;
+            }
+            dispatched++;
+            totalWaitNanos += wait;
+            if (wait > maxWaitNanos) {
+                maxWaitNanos = wait;
+            }
+            return trigger;
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int clear() {
+        int cleared = size;
+        for (int i = 0; i < size; i++) {
+            triggers[i].countSkippedWithAliases(1);
+            triggers[i] = null;
+        }
+        size = 0;
+        dropped += cleared;
+        return cleared;
+    }
+
+    DispatchStats stats(TriggerPriority priority) {
+        return new DispatchStats(priority, size, enqueued, dispatched, dropped, expired, shed, totalWaitNanos, maxWaitNanos);
+    }
+
+    private void removeHead() {
+        int last = --size;
+        if (last > 0) {
+            set(0, triggers[last], deadlines[last], sequences[last], enqueuedAt[last], dueAt[last], hardDeadlines[last]);
+        }
+        triggers[last] = null;
+        if (last > 0) {
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int first = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && before(left, first)) {
+                first = left;
+            }
+            if (right < size && before(right, first)) {
+                first = right;
+            }
+            if (first == i) {
+                return;
+            }
+            swap(i, first);
+            i = first;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        long diff = deadlines[a] - deadlines[b];
+        return diff < 0 || (diff == 0 && sequences[a] < sequences[b]);
+    }
+
+    private void swap(int a, int b) {
+        ScheduledTrigger trigger = triggers[a];
+        long deadline = deadlines[a];
+        long sequence = sequences[a];
+        long enqueueTime = enqueuedAt[a];
+        long due = dueAt[a];
+        boolean hard = hardDeadlines[a];
+        set(a, triggers[b], deadlines[b], sequences[b], enqueuedAt[b], dueAt[b], hardDeadlines[b]);
+        set(b, trigger, deadline, sequence, enqueueTime, due, hard);
+    }
+
+    private void set(int i, ScheduledTrigger trigger, long deadline, long sequence, long enqueueTime, long due, boolean hard) {
+        triggers[i] = trigger;
+        deadlines[i] = deadline;
+        sequences[i] = sequence;
+        enqueuedAt[i] = enqueueTime;
+        dueAt[i] = due;
+        hardDeadlines[i] = hard;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the dispatch metrics of one priority class.
+ */
+public final class DispatchStats {
+    private final TriggerPriority priority;
+    private final int depth;
+    private final long enqueued;
+    private final long dispatched;
+    private final long dropped;
+    private final long expired;
+    private final long shed;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    DispatchStats(TriggerPriority priority, int depth, long enqueued, long dispatched, long dropped, long expired,
+                  long shed, long totalWaitNanos, long maxWaitNanos) {
+        this.priority = priority;
+        this.depth = depth;
+        this.enqueued = enqueued;
+        this.dispatched = dispatched;
+        this.dropped = dropped;
+        this.expired = expired;
+        this.shed = shed;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * @return the priority class
+     */
+    public TriggerPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return number of fires currently waiting to be published
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return number of fires queued since the dispatcher was created
+     */
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    /**
+     * @return number of fires handed to a publish worker
+     */
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    /**
+     * @return number of fires dropped because the queue was full or the dispatcher was closed
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of fires dropped because their deadline passed before they were published
+     */
+    public long getExpired() {
+        return expired;
+    }
+
+    /**
+     * @return number of fires not queued because the dispatcher was shedding load
+     */
+    public long getShed() {
+        return shed;
+    }
+
+    /**
+     * @return mean time a dispatched fire waited in the queue, in microseconds
+     */
+    public long getMeanWaitMicros() {
+        return dispatched == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / dispatched);
+    }
+
+    /**
+     * @return longest time a dispatched fire waited in the queue, in microseconds
+     */
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchStats{" +
+                "priority=" + priority +
+                ", depth=" + depth +
+                ", enqueued=" + enqueued +
+                ", dispatched=" + dispatched +
+                ", dropped=" + dropped +
+                ", expired=" + expired +
+                ", shed=" + shed +
+                ", meanWaitMicros=" + getMeanWaitMicros() +
+                ", maxWaitMicros=" + getMaxWaitMicros() +
+                '}';
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queue between the schedule engine's firing thread and the publish workers. Firing only enqueues the trigger, so the
+ * engine is never held up by a slow publish. Each {@link TriggerPriority} has its own bounded queue, and workers
+ * always take from the highest priority queue that is not empty (strict priority), so critical triggers do not wait
+ * behind bulk ones when the workers are saturated. Fires arriving at a full queue are dropped and counted.
+ * <p>
+ * Within a priority, fires are published earliest deadline first. A trigger with a deadline must be published within
+ * that time of its scheduled fire time; once the deadline has passed the fire is dropped and counted as expired rather
+ * than publishing a stale command. Fires of triggers without a deadline are ordered as if they had the default
+ * deadline, counted from when they were queued, but never expire.
+ * <p>
+ * Queue depth, enqueued, dispatched, dropped, expired and shed counts and wait times are kept per priority; see
+ * {@link #getStats(TriggerPriority)}. The {@link #getLagNanos(long) lag} of the dispatcher is how long the earliest due
+ * queued fire has been waiting; while {@link #setShedding(boolean) shedding}, {@link TriggerPriority#LOW} fires are not
+ * queued at all, so the workers catch up on the others.
+ */
+public final class Dispatcher implements FireHandler, AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final TriggerPriority[] PRIORITIES = TriggerPriority.values();
+    private static final long JOIN_TIMEOUT_MILLIS = 5000;
+
+    private final FireHandler target;
+    private final long defaultDeadlineNanos;
+    private final Thread[] workers;
+    private final DispatchQueue[] queues = new DispatchQueue[PRIORITIES.length];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private boolean started;
+    private boolean running;
+    private volatile boolean shedding;
+
+    /**
+     * Constructor
+     *
+     * @param target handler publishing the dispatched fires
+     * @param workers number of publish worker threads
+     * @param capacity maximum number of queued fires per priority
+     */
+    public Dispatcher(FireHandler target, int workers, int capacity) {
+        this(target, workers, capacity, ConfigConstants.DISPATCH_DEFAULT_DEADLINE_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param target handler publishing the dispatched fires
+     * @param workers number of publish worker threads
+     * @param capacity maximum number of queued fires per priority
+     * @param defaultDeadlineMillis deadline used to order fires of triggers without one
+     */
+    public Dispatcher(FireHandler target, int workers, int capacity, long defaultDeadlineMillis) {
+        if (workers < 1 || capacity < 1 || defaultDeadlineMillis < 1) {
+            throw new IllegalArgumentException("Workers, capacity and default deadline must be positive: " + workers
+                    + ", " + capacity + ", " + defaultDeadlineMillis);
+        }
+        this.target = target;
+        this.defaultDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(defaultDeadlineMillis);
+        this.workers = new Thread[workers];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new DispatchQueue(capacity);
+        }
+    }
+
+    /**
+     * Start the publish workers. Fires queued before the start are published once the workers run.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (started) {
+                return;
+            }
+            started = true;
+            running = true;
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(this::work, "scheduler-dispatch-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a fire that is due now for publishing
+     *
+     * @param trigger the trigger that fired
+     */
+    @Override
+    public void fire(ScheduledTrigger trigger) {
+        FlightEvents.fired(trigger, System.currentTimeMillis(), 0);
+        enqueue(trigger, 0);
+    }
+
+    /**
+     * Queue a fire for publishing; the deadline and the lag of the fire count from its scheduled time, so a fire that
+     * was already late when it was queued has less time left
+     *
+     * @param trigger the trigger that fired
+     * @param scheduledMillis epoch time the fire was scheduled for
+     */
+    @Override
+    public void fire(ScheduledTrigger trigger, long scheduledMillis) {
+        long lateMillis = Math.max(0, System.currentTimeMillis() - scheduledMillis);
+        FlightEvents.fired(trigger, scheduledMillis, lateMillis);
+        enqueue(trigger, lateMillis);
+    }
+
+    private void enqueue(ScheduledTrigger trigger, long lateMillis) {
+        DispatchQueue queue = queues[trigger.getPriority().ordinal()];
+        long now = System.nanoTime();
+        boolean hardDeadline = trigger.getDeadlineMillis() > 0;
+        long deadline = now + (hardDeadline ? TimeUnit.MILLISECONDS.toNanos(trigger.getDeadlineMillis() - lateMillis) : defaultDeadlineNanos);
+        lock.lock();
+        try {
+            if (shedding && trigger.getPriority() == TriggerPriority.LOW) {
+                queue.shed();
+                trigger.countSkippedWithAliases(1);
+            } else if (queue.offer(trigger, now, now - TimeUnit.MILLISECONDS.toNanos(lateMillis), deadline, hardDeadline)) {
+                notEmpty.signal();
+            } else {
+                trigger.countSkippedWithAliases(1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            ScheduledTrigger trigger;
+            lock.lock();
+            try {
+                while ((trigger = poll()) == null) {
+                    if (!running) {
+                        return;
+                    }
+                    notEmpty.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                target.fire(trigger);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to publish fire of trigger {}", trigger.getId(), e);
+            }
+        }
+    }
+
+    private ScheduledTrigger poll() {
+        long now = System.nanoTime();
+        for (DispatchQueue queue : queues) {
+            // a queue holding only expired fires is emptied without returning one; lower priorities still get a turn
+            ScheduledTrigger trigger = queue.isEmpty() ? null : queue.poll(now);
+            if (trigger != null) {
+                return trigger;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start or stop shedding load. While shedding, fires of {@link TriggerPriority#LOW} priority are counted as shed
+     * instead of being queued; fires already queued are still published.
+     *
+     * @param shedding true to shed low priority fires
+     */
+    public void setShedding(boolean shedding) {
+        this.shedding = shedding;
+    }
+
+    /**
+     * @return true if low priority fires are being shed
+     */
+    public boolean isShedding() {
+        return shedding;
+    }
+
+    /**
+     * Measure how far behind the dispatcher is: how long the earliest due fire still waiting to be published has been
+     * due. Fires queued with their scheduled time count from that time, others from when they were queued.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return nanoseconds since the earliest queued fire was due, or 0 if no fire is waiting
+     */
+    public long getLagNanos(long nowNanos) {
+        lock.lock();
+        try {
+            long lag = 0;
+            for (DispatchQueue queue : queues) {
+                lag = Math.max(lag, queue.lagNanos(nowNanos));
+            }
+            return lag;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority the priority class
+     * @return snapshot of the dispatch metrics of the class
+     */
+    public DispatchStats getStats(TriggerPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].stats(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the workers once the queued fires are published. Fires still queued after a grace period are dropped.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Thread worker : workers) {
+            if (worker != null) {
+                try {
+                    worker.join(JOIN_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        lock.lock();
+        try {
+            for (TriggerPriority priority : PRIORITIES) {
+                int dropped = queues[priority.ordinal()].clear();
+                if (dropped > 0) {
+                    LOGGER.warn("Dropped {} queued {} priority fires on close", dropped, priority);
+                }
+                LOGGER.info("Dispatch {}", queues[priority.ordinal()].stats(priority));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
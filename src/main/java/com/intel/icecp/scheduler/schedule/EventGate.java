@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which messages of its source channel fire an {@link EventTrigger}. A debounced message only fires once no
+ * other message arrived for the debounce window; a fire is then dropped if it falls within the throttle window of the
+ * previous fire or exceeds the maximum rate, which is enforced with a token bucket holding one second's worth of fires.
+ * <p>
+ * The gate only decides; the caller times the debounce checks and fires the trigger. Times are monotonic nanoseconds.
+ */
+public final class EventGate {
+    /**
+     * Result of {@link #onEvent(long)} and {@link #check(long)}: fire the trigger now
+     */
+    public static final long FIRE = 0;
+
+    /**
+     * Result of {@link #onEvent(long)} and {@link #check(long)}: nothing to do
+     */
+    public static final long NONE = -1;
+
+    private final ScheduledTrigger trigger;
+    private final long debounceNanos;
+    private final long throttleNanos;
+    private final double tokensPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long refilledNanos;
+    private long lastFireNanos;
+    private boolean fired;
+    private long dueNanos;
+    private boolean checkPending;
+    private long received;
+    private long fires;
+    private long dropped;
+
+    /**
+     * Constructor
+     *
+     * @param trigger the trigger fired through the gate
+     * @param config the configuration of the trigger
+     * @param nowNanos the current monotonic time
+     */
+    public EventGate(ScheduledTrigger trigger, EventTrigger config, long nowNanos) {
+        this.trigger = trigger;
+        this.debounceNanos = config.getDebounceMillis() != null ? TimeUnit.MILLISECONDS.toNanos(config.getDebounceMillis()) : 0;
+        this.throttleNanos = config.getThrottleMillis() != null ? TimeUnit.MILLISECONDS.toNanos(config.getThrottleMillis()) : 0;
+        this.tokensPerNano = config.getMaxPerSecond() != null ? config.getMaxPerSecond() / TimeUnit.SECONDS.toNanos(1) : 0;
+        this.capacity = config.getMaxPerSecond() != null ? Math.max(1, config.getMaxPerSecond()) : 0;
+        this.tokens = capacity;
+        this.refilledNanos = nowNanos;
+    }
+
+    /**
+     * @return the trigger fired through the gate
+     */
+    public ScheduledTrigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Record a message of the source channel
+     *
+     * @param nowNanos the current monotonic time
+     * @return {@link #FIRE}, {@link #NONE}, or the delay in nanoseconds after which {@link #check(long)} must be called
+     */
+    public synchronized long onEvent(long nowNanos) {
+        received++;
+        if (debounceNanos == 0) {
+            return tryFire(nowNanos) ? FIRE : NONE;
+        }
+        dueNanos = nowNanos + debounceNanos;
+        if (checkPending) {
+            return NONE;
+        }
+        checkPending = true;
+        return debounceNanos;
+    }
+
+    /**
+     * Check a debounced message once its window may have passed
+     *
+     * @param nowNanos the current monotonic time
+     * @return {@link #FIRE}, {@link #NONE}, or the delay in nanoseconds after which this must be called again because
+     * later messages restarted the window
+     */
+    public synchronized long check(long nowNanos) {
+        if (!checkPending) {
+            return NONE;
+        }
+        if (nowNanos - dueNanos < 0) {
+            return dueNanos - nowNanos;
+        }
+        checkPending = false;
+        return tryFire(nowNanos) ? FIRE : NONE;
+    }
+
+    private boolean tryFire(long nowNanos) {
+        if (throttleNanos > 0 && fired && nowNanos - lastFireNanos < throttleNanos) {
+            dropped++;
+            return false;
+        }
+        if (capacity > 0) {
+            tokens = Math.min(capacity, tokens + (nowNanos - refilledNanos) * tokensPerNano);
+            refilledNanos = nowNanos;
+            if (tokens < 1) {
+                dropped++;
+                return false;
+            }
+            tokens--;
+        }
+        fired = true;
+        lastFireNanos = nowNanos;
+        fires++;
+        return true;
+    }
+
+    /**
+     * @return number of messages received from the source channel
+     */
+    public synchronized long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return number of fires let through
+     */
+    public synchronized long getFires() {
+        return fires;
+    }
+
+    /**
+     * @return number of fires dropped by the throttle window or rate limit
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+}
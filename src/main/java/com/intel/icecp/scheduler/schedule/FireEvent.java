@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.rpc.CommandRequest;
+
+import java.net.URI;
+
+/**
+ * A fire of a trigger delivered to subscribers running in the same JVM, see {@link LocalFirePublisher}. The event
+ * refers to the request and payload prepared when the trigger was scheduled instead of a serialized copy; they are
+ * shared by every fire and subscriber and must not be modified.
+ */
+public final class FireEvent {
+    private final String id;
+    private final String group;
+    private final URI[] channels;
+    private final CommandRequest request;
+    private final BytesMessage payload;
+    private final long firedMillis;
+
+    /**
+     * Constructor
+     *
+     * @param trigger the trigger that fired
+     * @param firedMillis epoch time of the fire
+     */
+    FireEvent(ScheduledTrigger trigger, long firedMillis) {
+        this.id = trigger.getId();
+        this.group = trigger.getGroup();
+        this.channels = trigger.getChannels();
+        this.request = trigger.getRequest();
+        this.payload = trigger.getPayload();
+        this.firedMillis = firedMillis;
+    }
+
+    /**
+     * @return the id of the trigger that fired
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the group of the trigger that fired
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return the channel the fire is published on for remote subscribers
+     */
+    public URI getChannel() {
+        return channels[0];
+    }
+
+    /**
+     * @param channel a channel
+     * @return true if the fire is published on the channel
+     */
+    public boolean isPublishedOn(URI channel) {
+        for (URI published : channels) {
+            if (published.equals(channel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the command request of the trigger
+     */
+    public CommandRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the pre-encoded compact payload of the trigger, or null if it publishes its request
+     */
+    public BytesMessage getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return epoch time of the fire
+     */
+    public long getFiredMillis() {
+        return firedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "FireEvent{" +
+                "id='" + id + '\'' +
+                ", group='" + group + '\'' +
+                ", channel=" + getChannel() +
+                ", firedMillis=" + firedMillis +
+                '}';
+    }
+}
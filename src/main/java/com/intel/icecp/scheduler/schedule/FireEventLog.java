@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sampled log of trigger fire events. For every trigger the first {@code first} fires are logged, after that only
+ * every {@code every}th fire; failures are always logged. Events go to the logger named after this class, which
+ * {@code configuration/log4j2.xml} routes to an asynchronous file appender, so fire events can be turned up, down or
+ * off without touching the rest of the module's logging.
+ */
+public final class FireEventLog {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final FireEventLog DEFAULT = new FireEventLog(ConfigConstants.FIRE_LOG_FIRST, ConfigConstants.FIRE_LOG_EVERY);
+
+    private final long first;
+    private final long every;
+
+    /**
+     * Constructor
+     *
+     * @param first number of fires of each trigger that are always logged
+     * @param every after the first fires, log every n-th fire of a trigger; 0 or less logs none
+     */
+    public FireEventLog(long first, long every) {
+        this.first = first;
+        this.every = every;
+    }
+
+    /**
+     * @return the fire event log configured through {@link ConfigConstants#FIRE_LOG_FIRST} and
+     * {@link ConfigConstants#FIRE_LOG_EVERY}
+     */
+    public static FireEventLog getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Check if the n-th fire of a trigger is logged
+     *
+     * @param fireCount the 1-based fire count of the trigger
+     * @return true if the fire is logged
+     */
+    boolean isSampled(long fireCount) {
+        return fireCount <= first || (every > 0 && (fireCount - first) % every == 0);
+    }
+
+    /**
+     * Record a successful fire
+     *
+     * @param trigger the trigger that fired
+     * @param fireCount the 1-based fire count of the trigger
+     */
+    public void fired(ScheduledTrigger trigger, long fireCount) {
+        if (isSampled(fireCount) && LOGGER.isInfoEnabled()) {
+            LOGGER.info("Fired trigger {} ({}) #{} on {}", trigger.getId(), trigger.getGroup(), fireCount, trigger.getChannel());
+        }
+    }
+
+    /**
+     * Record a failed fire; failures are never sampled out
+     *
+     * @param trigger the trigger that fired
+     * @param fireCount the 1-based fire count of the trigger
+     * @param cause the reason the fire failed
+     */
+    public void failed(ScheduledTrigger trigger, long fireCount, Throwable cause) {
+        LOGGER.error("Failed trigger {} ({}) #{} on {}", trigger.getId(), trigger.getGroup(), fireCount, trigger.getChannel(), cause);
+    }
+}
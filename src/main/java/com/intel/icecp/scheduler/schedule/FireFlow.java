@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+/**
+ * Interfaces of a reactive stream with backpressure, with the same methods and contracts as
+ * {@code java.util.concurrent.Flow} so subscribers can move to the JDK interfaces unchanged once the module targets a
+ * newer Java version.
+ */
+public final class FireFlow {
+    private FireFlow() {
+    }
+
+    /**
+     * Producer of items received by subscribers
+     *
+     * @param <T> the type of the published items
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Add a subscriber; its {@link Subscriber#onSubscribe(Subscription)} is called before any other signal
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items. The methods of a subscriber are called serially, never concurrently.
+     *
+     * @param <T> the type of the received items
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called once before any other method; nothing is received until items are requested on the subscription
+         *
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Receive the next item; called at most as many times as items were requested
+         *
+         * @param item the item
+         */
+        void onNext(T item);
+
+        /**
+         * Called once, after which no other method is called, when the subscription failed
+         *
+         * @param throwable the cause of the failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called once, after which no other method is called, when the publisher is closed
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and a subscriber
+     */
+    public interface Subscription {
+        /**
+         * Add to the number of items the subscriber is ready to receive
+         *
+         * @param n the number of items, greater than 0; {@link Long#MAX_VALUE} requests items without bound
+         */
+        void request(long n);
+
+        /**
+         * Stop receiving items; items already buffered are dropped
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+/**
+ * Callback invoked by a schedule engine every time a trigger fires; unlike a {@link ScheduledFireHandler} it also
+ * handles fires that are due now, such as the ones a {@link Dispatcher} hands to its publisher.
+ */
+@FunctionalInterface
+public interface FireHandler extends ScheduledFireHandler {
+    /**
+     * Handle a single fire of a trigger. Implementations are called on the engine's firing thread and should not
+     * allocate per call.
+     *
+     * @param trigger the trigger that fired
+     */
+    void fire(ScheduledTrigger trigger);
+
+    /**
+     * Handle a single fire of a trigger that was due at a given time, e.g. to expire it against its deadline. By
+     * default the scheduled time is ignored.
+     *
+     * @param trigger the trigger that fired
+     * @param scheduledMillis epoch time the fire was scheduled for
+     */
+    @Override
+    default void fire(ScheduledTrigger trigger, long scheduledMillis) {
+        fire(trigger);
+    }
+}
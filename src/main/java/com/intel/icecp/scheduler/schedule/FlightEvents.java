@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+
+import java.net.URI;
+
+/**
+ * Emits the scheduler's Java Flight Recorder events, so that scheduling, fire lateness, channel opens and publishes
+ * can be correlated with GC and I/O in the same recording.
+ * <p>
+ * Events are emitted only if the JVM has Flight Recorder (Java 8 from update 262) and
+ * {@code icecp.scheduler.jfr} is not {@code false}. When they are not emitted, or the event is not enabled in any
+ * running recording, each call only checks a flag: nothing is allocated and no field is computed. Events with a
+ * duration are begun and ended around the measured operation; the handle returned when beginning one is opaque and
+ * null when the event is not recorded.
+ */
+public final class FlightEvents {
+    private static final boolean AVAILABLE = ConfigConstants.JFR_EVENTS && available();
+
+    private FlightEvents() {
+    }
+
+    private static boolean available() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the scheduler's events can be recorded in this JVM
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Record that a trigger was scheduled
+     *
+     * @param trigger the registered trigger
+     * @param timer the timer firing the trigger, e.g. {@code quartz}
+     * @param intervalMillis repeat interval of the trigger, 0 if it does not repeat at an interval
+     * @param startMillis epoch time of the first fire
+     */
+    public static void scheduled(ScheduledTrigger trigger, String timer, long intervalMillis, long startMillis) {
+        if (AVAILABLE) {
+            JfrEvents.scheduled(trigger, timer, intervalMillis, startMillis);
+        }
+    }
+
+    /**
+     * Record that a trigger fired
+     *
+     * @param trigger the trigger that fired
+     * @param scheduledMillis epoch time the fire was scheduled for
+     * @param lateMillis how late the fire is against its scheduled time
+     */
+    public static void fired(ScheduledTrigger trigger, long scheduledMillis, long lateMillis) {
+        if (AVAILABLE) {
+            JfrEvents.fired(trigger, scheduledMillis, lateMillis);
+        }
+    }
+
+    /**
+     * @return handle of the channel open event to end once the channel is open, or null if it is not recorded
+     */
+    public static Object beginChannelOpen() {
+        return AVAILABLE ? JfrEvents.beginChannelOpen() : null;
+    }
+
+    /**
+     * @param event handle returned by {@link #beginChannelOpen()}
+     * @param uri the channel URI
+     * @param type type of the messages of the channel
+     * @param opened false if opening the channel failed
+     */
+    public static void endChannelOpen(Object event, URI uri, Class<?> type, boolean opened) {
+        if (event != null) {
+            JfrEvents.endChannelOpen(event, uri, type, opened);
+        }
+    }
+
+    /**
+     * @return handle of the publish event to end once the message is published, or null if it is not recorded
+     */
+    public static Object beginPublish() {
+        return AVAILABLE ? JfrEvents.beginPublish() : null;
+    }
+
+    /**
+     * @param event handle returned by {@link #beginPublish()}
+     * @param trigger the trigger whose fire is published
+     * @param uri the channel published on
+     * @param published false if publishing failed
+     */
+    public static void endPublish(Object event, ScheduledTrigger trigger, URI uri, boolean published) {
+        if (event != null) {
+            JfrEvents.endPublish(event, trigger, uri, published);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+import java.net.URI;
+
+/**
+ * The scheduler's Flight Recorder event types; only loaded by {@link FlightEvents} once Flight Recorder is known to be
+ * available, since loading it fails otherwise. Each event is allocated only if its type is enabled. Compiling this class
+ * needs a JDK with {@code jdk.jfr}, i.e. 8u262 or later.
+ */
+final class JfrEvents {
+    private static final EventType SCHEDULE = EventType.getEventType(TriggerScheduled.class);
+    private static final EventType FIRE = EventType.getEventType(TriggerFired.class);
+    private static final EventType CHANNEL_OPEN = EventType.getEventType(ChannelOpened.class);
+    private static final EventType PUBLISH = EventType.getEventType(FirePublished.class);
+
+    private JfrEvents() {
+    }
+
+    static void scheduled(ScheduledTrigger trigger, String timer, long intervalMillis, long startMillis) {
+        if (SCHEDULE.isEnabled()) {
+            TriggerScheduled event = new TriggerScheduled();
+            event.group = trigger.getGroup();
+            event.id = trigger.getId();
+            event.timer = timer;
+            event.alias = trigger.isAlias();
+            event.interval = intervalMillis;
+            event.start = startMillis;
+            event.commit();
+        }
+    }
+
+    static void fired(ScheduledTrigger trigger, long scheduledMillis, long lateMillis) {
+        if (FIRE.isEnabled()) {
+            TriggerFired event = new TriggerFired();
+            if (event.shouldCommit()) {
+                event.group = trigger.getGroup();
+                event.id = trigger.getId();
+                event.priority = trigger.getPriority().name();
+                event.scheduled = scheduledMillis;
+                event.late = lateMillis;
+                event.commit();
+            }
+        }
+    }
+
+    static Object beginChannelOpen() {
+        if (!CHANNEL_OPEN.isEnabled()) {
+            return null;
+        }
+        ChannelOpened event = new ChannelOpened();
+        event.begin();
+        return event;
+    }
+
+    static void endChannelOpen(Object handle, URI uri, Class<?> type, boolean opened) {
+        ChannelOpened event = (ChannelOpened) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.channel = uri.toString();
+            event.type = type.getName();
+            event.opened = opened;
+            event.commit();
+        }
+    }
+
+    static Object beginPublish() {
+        if (!PUBLISH.isEnabled()) {
+            return null;
+        }
+        FirePublished event = new FirePublished();
+        event.begin();
+        return event;
+    }
+
+    static void endPublish(Object handle, ScheduledTrigger trigger, URI uri, boolean published) {
+        FirePublished event = (FirePublished) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.group = trigger.getGroup();
+            event.id = trigger.getId();
+            event.channel = uri.toString();
+            event.compact = trigger.getPayload() != null;
+            event.published = published;
+            event.commit();
+        }
+    }
+
+    @Name("com.intel.icecp.scheduler.TriggerScheduled")
+    @Label("Trigger Scheduled")
+    @Category({"icecp", "Scheduler"})
+    @StackTrace(false)
+    static class TriggerScheduled extends Event {
+        @Label("Group")
+        String group;
+        @Label("Trigger")
+        String id;
+        @Label("Timer")
+        @Description("Timer firing the trigger")
+        String timer;
+        @Label("Alias")
+        @Description("Shares the fires of an equivalent trigger")
+        boolean alias;
+        @Label("Interval")
+        @Timespan(Timespan.MILLISECONDS)
+        long interval;
+        @Label("First Fire")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long start;
+    }
+
+    @Name("com.intel.icecp.scheduler.TriggerFired")
+    @Label("Trigger Fired")
+    @Category({"icecp", "Scheduler"})
+    @StackTrace(false)
+    static class TriggerFired extends Event {
+        @Label("Group")
+        String group;
+        @Label("Trigger")
+        String id;
+        @Label("Priority")
+        String priority;
+        @Label("Scheduled Time")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long scheduled;
+        @Label("Lateness")
+        @Description("Time between the scheduled time and the actual fire")
+        @Timespan(Timespan.MILLISECONDS)
+        long late;
+    }
+
+    @Name("com.intel.icecp.scheduler.ChannelOpened")
+    @Label("Channel Open")
+    @Category({"icecp", "Scheduler"})
+    @StackTrace(false)
+    static class ChannelOpened extends Event {
+        @Label("Channel")
+        String channel;
+        @Label("Message Type")
+        String type;
+        @Label("Opened")
+        boolean opened;
+    }
+
+    @Name("com.intel.icecp.scheduler.FirePublished")
+    @Label("Fire Published")
+    @Category({"icecp", "Scheduler"})
+    @StackTrace(false)
+    static class FirePublished extends Event {
+        @Label("Group")
+        String group;
+        @Label("Trigger")
+        String id;
+        @Label("Channel")
+        String channel;
+        @Label("Compact Payload")
+        boolean compact;
+        @Label("Published")
+        boolean published;
+    }
+}
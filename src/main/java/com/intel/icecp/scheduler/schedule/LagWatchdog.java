@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches how far behind the {@link Dispatcher} is (its {@link Dispatcher#getLagNanos(long) lag}) and reports when the
+ * scheduler is degraded: the lag exceeded the threshold and has not yet fallen below half of it. The gap between the
+ * two levels keeps a lag hovering around the threshold from flapping the state.
+ * <p>
+ * If configured to shed, the dispatcher sheds {@link TriggerPriority#LOW} fires while the scheduler is degraded.
+ * <p>
+ * The lag is measured on a single daemon thread every {@link ConfigConstants#WATCHDOG_PERIOD_MILLIS}; measuring
+ * locks the dispatcher briefly, so the fire path is not involved.
+ */
+public final class LagWatchdog implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Dispatcher dispatcher;
+    private final long thresholdNanos;
+    private final long periodMillis;
+    private final boolean shedLow;
+    private final LongSupplier nanoTime;
+    private volatile Listener listener;
+    private volatile long lagNanos;
+    private volatile long maxLagNanos;
+    private volatile boolean degraded;
+    private volatile long degradations;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor
+     *
+     * @param dispatcher the dispatcher to watch
+     */
+    public LagWatchdog(Dispatcher dispatcher) {
+        this(dispatcher, ConfigConstants.WATCHDOG_LAG_THRESHOLD_MILLIS, ConfigConstants.WATCHDOG_PERIOD_MILLIS,
+                ConfigConstants.WATCHDOG_SHED_LOW, System::nanoTime);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param dispatcher the dispatcher to watch
+     * @param thresholdMillis lag above which the scheduler is degraded
+     * @param periodMillis time between lag measurements
+     * @param shedLow true to shed low priority fires while degraded
+     * @param nanoTime monotonic time source, in nanoseconds
+     */
+    LagWatchdog(Dispatcher dispatcher, long thresholdMillis, long periodMillis, boolean shedLow, LongSupplier nanoTime) {
+        if (thresholdMillis < 1 || periodMillis < 1) {
+            throw new IllegalArgumentException("Lag threshold and period must be positive: " + thresholdMillis + ", "
+                    + periodMillis);
+        }
+        this.dispatcher = dispatcher;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.periodMillis = periodMillis;
+        this.shedLow = shedLow;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @param listener notified when the scheduler becomes degraded or recovers, or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the listener notified when the scheduler becomes degraded or recovers, or null for none
+     */
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * Start measuring the lag periodically
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::check, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measure the lag and update the degraded state
+     */
+    void check() {
+        long lag = dispatcher.getLagNanos(nanoTime.getAsLong());
+        lagNanos = lag;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+
+        boolean changed = false;
+        if (!degraded && lag > thresholdNanos) {
+            degraded = true;
+            degradations++;
+            changed = true;
+            LOGGER.warn("Scheduler degraded: dispatch lag {} ms exceeds {} ms{}", TimeUnit.NANOSECONDS.toMillis(lag),
+                    TimeUnit.NANOSECONDS.toMillis(thresholdNanos), shedLow ? ", shedding low priority fires" : "");
+        } else if (degraded && lag < thresholdNanos / 2) {
+            degraded = false;
+            changed = true;
+            LOGGER.info("Scheduler recovered: dispatch lag {} ms", TimeUnit.NANOSECONDS.toMillis(lag));
+        }
+
+        if (changed) {
+            if (shedLow) {
+                dispatcher.setShedding(degraded);
+            }
+            Listener current = listener;
+            if (current != null) {
+                try {
+                    current.onDegraded(degraded, TimeUnit.NANOSECONDS.toMillis(lag));
+                } catch (RuntimeException e) {
+                    LOGGER.error("Lag listener failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the dispatch lag at the last measurement, in milliseconds
+     */
+    public long getLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lagNanos);
+    }
+
+    /**
+     * @return the largest dispatch lag measured, in milliseconds
+     */
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    /**
+     * @return true if the lag exceeded the threshold and has not recovered since
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return number of times the scheduler became degraded
+     */
+    public long getDegradations() {
+        return degradations;
+    }
+
+    /**
+     * Stop measuring the lag; the dispatcher stops shedding
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (shedLow) {
+            dispatcher.setShedding(false);
+        }
+        LOGGER.info("Lag watchdog stopped: maxLagMillis={}, degradations={}", getMaxLagMillis(), getDegradations());
+    }
+
+    /**
+     * Notified when the degraded state of the scheduler changes
+     */
+    public interface Listener {
+        /**
+         * @param degraded true if the scheduler became degraded, false if it recovered
+         * @param lagMillis the dispatch lag that changed the state, in milliseconds
+         */
+        void onDegraded(boolean degraded, long lagMillis);
+    }
+}
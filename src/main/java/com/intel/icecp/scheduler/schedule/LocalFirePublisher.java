@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process delivery of trigger fires to modules running in the same JVM as the scheduler. Local subscribers receive
+ * each fire as a {@link FireEvent} referring to the trigger's prepared request, without opening a channel or
+ * serializing and parsing a message; remote subscribers keep receiving fires on the trigger's channels.
+ * <p>
+ * Every subscription buffers up to {@code bufferSize} events and delivers them on an executor as the subscriber
+ * requests them. Fires are never held up by a slow subscriber: when its buffer is full the fire is dropped for that
+ * subscriber and counted. While nobody is subscribed a fire costs one volatile read.
+ */
+public final class LocalFirePublisher implements FireFlow.Publisher<FireEvent>, AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final LocalFirePublisher DEFAULT = new LocalFirePublisher(ForkJoinPool.commonPool(), ConfigConstants.LOCAL_BUFFER_SIZE);
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final CopyOnWriteArrayList<LocalSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param executor executor delivering events to subscribers
+     * @param bufferSize maximum number of events buffered per subscriber
+     */
+    public LocalFirePublisher(Executor executor, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than 0: " + bufferSize);
+        }
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the publisher the fires of the scheduler module are delivered to, with the buffer size configured through
+     * {@link ConfigConstants#LOCAL_BUFFER_SIZE}; events are delivered on the common fork-join pool
+     */
+    public static LocalFirePublisher getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Subscribe to the fires of all triggers
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(FireFlow.Subscriber<? super FireEvent> subscriber) {
+        subscribe(null, subscriber);
+    }
+
+    /**
+     * Subscribe to the fires published on a channel, i.e. one of a trigger's resolved channels such as the
+     * {@code $cmd} channel an RPC server listens on
+     *
+     * @param channel the channel, or null for the fires of all triggers
+     * @param subscriber the subscriber
+     */
+    public void subscribe(URI channel, FireFlow.Subscriber<? super FireEvent> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null");
+        }
+        LocalSubscription subscription = new LocalSubscription(channel, subscriber);
+        subscriptions.add(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+        subscription.signal();
+    }
+
+    /**
+     * @return true if at least one subscriber is subscribed
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * @return number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return number of events dropped because a subscriber's buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Deliver a fire to the matching subscribers
+     *
+     * @param trigger the trigger that fired
+     * @return true if at least one subscriber accepted the fire; false if no subscriber matched or the buffers of all
+     * matching subscribers were full
+     */
+    public boolean offer(ScheduledTrigger trigger) {
+        if (subscriptions.isEmpty()) {
+            return false;
+        }
+        FireEvent event = new FireEvent(trigger, System.currentTimeMillis());
+        boolean accepted = false;
+        for (LocalSubscription subscription : subscriptions) {
+            if (subscription.channel == null || event.isPublishedOn(subscription.channel)) {
+                accepted |= subscription.offer(event);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Complete every subscription once its buffered events are delivered; later subscribers are completed right away
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (LocalSubscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Buffer and demand of one subscriber. Signals are delivered by at most one executor task at a time, which drains
+     * the buffer while there is demand.
+     */
+    private final class LocalSubscription implements FireFlow.Subscription, Runnable {
+        private final URI channel;
+        private final FireFlow.Subscriber<? super FireEvent> subscriber;
+        private final ArrayBlockingQueue<FireEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean subscribed;
+        private volatile boolean completing;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        LocalSubscription(URI channel, FireFlow.Subscriber<? super FireEvent> subscriber) {
+            this.channel = channel;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Number of requested items must be greater than 0: " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+
+        boolean offer(FireEvent event) {
+            if (done) {
+                return false;
+            }
+            if (buffer.offer(event)) {
+                signal();
+                return true;
+            }
+            dropped.increment();
+            return false;
+        }
+
+        void complete() {
+            completing = true;
+        }
+
+        void signal() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.error("Unable to deliver fires to local subscriber {}", subscriber, e);
+                    pending.set(0);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    if (!call(() -> subscriber.onSubscribe(this))) {
+                        return;
+                    }
+                }
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            long requested = demand.get();
+            long delivered = 0;
+            while (!done) {
+                Throwable failure = error;
+                if (failure != null) {
+                    cancel();
+                    call(() -> subscriber.onError(failure));
+                    return;
+                }
+                if (delivered == requested) {
+                    break;
+                }
+                FireEvent event = buffer.poll();
+                if (event == null) {
+                    break;
+                }
+                if (!call(() -> subscriber.onNext(event))) {
+                    return;
+                }
+                delivered++;
+            }
+            if (!done && completing && buffer.isEmpty()) {
+                cancel();
+                call(subscriber::onComplete);
+                return;
+            }
+            if (delivered > 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-delivered);
+            }
+        }
+
+        /**
+         * A subscriber that throws is cancelled, as it broke its contract
+         *
+         * @return true if the subscriber did not throw
+         */
+        private boolean call(Runnable signal) {
+            try {
+                signal.run();
+                return true;
+            } catch (RuntimeException e) {
+                LOGGER.error("Local subscriber {} failed, cancelling its subscription", subscriber, e);
+                cancel();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Clock;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Fires interval triggers on the monotonic clock ({@link System#nanoTime()}) instead of wall clock dates, so stepping
+ * the wall clock (e.g. NTP correcting a drifted edge device) neither delays fires nor makes missed fires burst.
+ * <p>
+ * {@link IntervalTiming#FIXED_RATE} triggers fire at the first fire time plus a whole number of intervals. Each fire
+ * time is computed from the first one rather than from the previous wakeup, so late wakeups do not add up to drift
+ * over days. If the timer falls behind by more than an interval (e.g. the device was suspended), the missed fires are
+ * skipped and counted instead of firing them back to back. {@link IntervalTiming#FIXED_DELAY} triggers fire an
+ * interval after the previous fire was handed to the target; for triggers with an {@link AdaptiveInterval} the
+ * interval is read from it each time, so feedback on a fire takes effect from the delay after the next fire is handed
+ * over.
+ * <p>
+ * The timer thread also compares the wall clock with the monotonic clock at least every second and counts a wall
+ * clock jump whenever they disagree by more than {@link ConfigConstants#CLOCK_JUMP_THRESHOLD_MILLIS}. Jumps do not
+ * change when monotonic triggers fire, but they do shift wall clock (Quartz) triggers, so they are logged.
+ * <p>
+ * Fires are handed to the target on the timer thread; the target is expected to only queue them, like
+ * {@link Dispatcher}.
+ * <p>
+ * A {@link #highResolution(FireHandler) high resolution} timer fires intervals below a millisecond: it parks until
+ * shortly before a fire is due and busy-waits the last microseconds, since parking alone overshoots by tens of
+ * microseconds.
+ */
+public final class MonotonicTimer implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long CHECK_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long JOIN_TIMEOUT_MILLIS = 5000;
+
+    private final FireHandler target;
+    private final Clock wallClock;
+    private final LongSupplier nanoTime;
+    private final long jumpThresholdMillis;
+    private final long spinNanos;
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>(MonotonicTimer::compare);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread thread;
+    private boolean started;
+    private volatile boolean running;
+    private boolean paused;
+    private long sequence;
+    private long wallOffsetMillis;
+    private long fires;
+    private long skipped;
+    private long maxLatenessNanos;
+    private long clockJumps;
+    private long lastClockJumpMillis;
+
+    /**
+     * Constructor
+     *
+     * @param target handler the fires are handed to
+     */
+    public MonotonicTimer(FireHandler target) {
+        this(target, Clock.systemUTC(), System::nanoTime, ConfigConstants.CLOCK_JUMP_THRESHOLD_MILLIS, 0,
+                "scheduler-monotonic-timer");
+    }
+
+    /**
+     * Create a timer for high resolution triggers. The timer busy-waits the last
+     * {@link ConfigConstants#HIGH_RESOLUTION_SPIN_MICROS} before each fire, and leaves detecting wall clock jumps to
+     * the regular timer.
+     *
+     * @param target handler the fires are handed to
+     * @return the timer
+     */
+    public static MonotonicTimer highResolution(FireHandler target) {
+        return new MonotonicTimer(target, Clock.systemUTC(), System::nanoTime, Long.MAX_VALUE,
+                TimeUnit.MICROSECONDS.toNanos(ConfigConstants.HIGH_RESOLUTION_SPIN_MICROS), "scheduler-hires-timer");
+    }
+
+    /**
+     * Constructor
+     *
+     * @param target handler the fires are handed to
+     * @param wallClock wall clock the scheduled fire times are reported in and checked for jumps
+     * @param nanoTime monotonic time source, in nanoseconds
+     * @param jumpThresholdMillis difference between the clocks reported as a wall clock jump
+     * @param spinNanos time before a fire is due from which the timer thread busy-waits instead of parking
+     * @param name name of the timer thread
+     */
+    MonotonicTimer(FireHandler target, Clock wallClock, LongSupplier nanoTime, long jumpThresholdMillis,
+                   long spinNanos, String name) {
+        if (jumpThresholdMillis < 1 || spinNanos < 0) {
+            throw new IllegalArgumentException("Invalid clock jump threshold or spin time: " + jumpThresholdMillis
+                    + ", " + spinNanos);
+        }
+        this.target = target;
+        this.wallClock = wallClock;
+        this.nanoTime = nanoTime;
+        this.jumpThresholdMillis = jumpThresholdMillis;
+        this.spinNanos = spinNanos;
+        this.wallOffsetMillis = wallOffsetMillis(nanoTime.getAsLong());
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Add a trigger. Its first fire is due immediately, or when the timer is started if it has not been started yet.
+     *
+     * @param trigger the trigger to fire
+     * @param intervalNanos time between fires, in nanoseconds
+     * @param timing {@link IntervalTiming#FIXED_RATE} or {@link IntervalTiming#FIXED_DELAY}
+     * @throws IllegalArgumentException if the interval is not positive or the timing is not monotonic
+     */
+    public void add(ScheduledTrigger trigger, long intervalNanos, IntervalTiming timing) {
+        if (intervalNanos < 1 || timing == null || timing == IntervalTiming.WALL_CLOCK) {
+            throw new IllegalArgumentException("Invalid monotonic interval " + intervalNanos + " ns " + timing);
+        }
+        lock.lock();
+        try {
+            long now = nanoTime.getAsLong();
+            entries.add(new Entry(trigger, intervalNanos, timing, now, sequence++));
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a trigger
+     *
+     * @param trigger the trigger to remove
+     * @return true if the trigger was scheduled on this timer
+     */
+    public boolean remove(ScheduledTrigger trigger) {
+        lock.lock();
+        try {
+            return entries.removeIf(entry -> entry.trigger == trigger);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start the timer thread. The first fire of triggers added so far is due now.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (started) {
+                return;
+            }
+            started = true;
+            running = true;
+            long now = nanoTime.getAsLong();
+            PriorityQueue<Entry> pending = new PriorityQueue<>(entries);
+            entries.clear();
+            for (Entry entry : pending) {
+                entry.restart(now);
+                entries.add(entry);
+            }
+            wallOffsetMillis = wallOffsetMillis(now);
+        } finally {
+            lock.unlock();
+        }
+        thread.start();
+    }
+
+    /**
+     * Pause or resume firing. Fires that fall due while paused are skipped like fires the timer fell behind on.
+     *
+     * @param paused true to pause the timer
+     */
+    public void setPaused(boolean paused) {
+        lock.lock();
+        try {
+            this.paused = paused;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the timer thread and remove all triggers
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            entries.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (started) {
+            try {
+                thread.join(JOIN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.info("Monotonic timer stopped: fires={}, skipped={}, maxLatenessMicros={}, clockJumps={}",
+                getFires(), getSkipped(), getMaxLatenessMicros(), getClockJumps());
+    }
+
+    private void run() {
+        lock.lock();
+        try {
+            while (running) {
+                long now = nanoTime.getAsLong();
+                checkClock(now);
+                long waitNanos = paused ? CHECK_PERIOD_NANOS : fireDue(now);
+                if (waitNanos <= spinNanos) {
+                    lock.unlock();
+                    try {
+                        spinUntil(now + waitNanos);
+                    } finally {
+                        lock.lock();
+                    }
+                } else {
+                    changed.awaitNanos(Math.min(waitNanos - spinNanos, CHECK_PERIOD_NANOS));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void spinUntil(long deadline) {
+        while (running && nanoTime.getAsLong() - deadline < 0) {
+            // busy-wait; parking would overshoot the deadline
+        }
+    }
+
+    /**
+     * Fire all triggers that are due and compute their next fire time. Called with the lock held.
+     *
+     * @param now the current monotonic time
+     * @return nanoseconds until the next fire is due, or {@link Long#MAX_VALUE} if there are no triggers
+     */
+    long fireDue(long now) {
+        Entry entry;
+        while ((entry = entries.peek()) != null && entry.nextNanos - now <= 0) {
+            entries.poll();
+            long latenessNanos = now - entry.nextNanos;
+            if (latenessNanos > maxLatenessNanos) {
+                maxLatenessNanos = latenessNanos;
+            }
+            long scheduledMillis = wallOffsetMillis + TimeUnit.NANOSECONDS.toMillis(entry.nextNanos);
+            fires++;
+            fire(entry.trigger, scheduledMillis);
+
+            if (entry.timing == IntervalTiming.FIXED_RATE) {
+                entry.fires++;
+                long next = entry.originNanos + entry.fires * entry.intervalNanos;
+                if (next - now <= 0) {
+                    long missed = (now - next) / entry.intervalNanos + 1;
+                    skipped += missed;
+                    entry.trigger.countSkippedWithAliases(missed);
+                    entry.fires += missed;
+                    next = entry.originNanos + entry.fires * entry.intervalNanos;
+                }
+                entry.nextNanos = next;
+            } else {
+                AdaptiveInterval adaptive = entry.trigger.getAdaptive();
+                entry.nextNanos = nanoTime.getAsLong() + (adaptive != null ? adaptive.getIntervalNanos() : entry.intervalNanos);
+            }
+            entry.sequence = sequence++;
+            entries.add(entry);
+        }
+        return entry != null ? entry.nextNanos - now : Long.MAX_VALUE;
+    }
+
+    private void fire(ScheduledTrigger trigger, long scheduledMillis) {
+        if (trigger.isExcluded(scheduledMillis)) {
+            trigger.countSkippedWithAliases(1);
+            return;
+        }
+        try {
+            target.fire(trigger, scheduledMillis);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to fire trigger {}", trigger.getId(), e);
+        }
+    }
+
+    /**
+     * Compare the wall clock with the monotonic clock and count a jump if they drifted apart by more than the
+     * threshold since the last check. Called with the lock held.
+     *
+     * @param now the current monotonic time
+     */
+    void checkClock(long now) {
+        long offset = wallOffsetMillis(now);
+        long jump = offset - wallOffsetMillis;
+        if (Math.abs(jump) > jumpThresholdMillis) {
+            clockJumps++;
+            lastClockJumpMillis = jump;
+            LOGGER.warn("Wall clock jumped by {} ms; monotonic triggers are not affected, wall clock triggers may "
+                    + "fire early, late or in a burst", jump);
+            wallOffsetMillis = offset;
+        }
+    }
+
+    private long wallOffsetMillis(long now) {
+        return wallClock.millis() - TimeUnit.NANOSECONDS.toMillis(now);
+    }
+
+    /**
+     * @return number of fires handed to the target, including fires excluded by a calendar
+     */
+    public long getFires() {
+        return read(() -> fires);
+    }
+
+    /**
+     * @return number of fixed rate fires skipped because the timer fell behind by more than an interval
+     */
+    public long getSkipped() {
+        return read(() -> skipped);
+    }
+
+    /**
+     * @return largest delay between the time a fire was due and the time it was handed to the target, in microseconds
+     */
+    public long getMaxLatenessMicros() {
+        return read(() -> TimeUnit.NANOSECONDS.toMicros(maxLatenessNanos));
+    }
+
+    /**
+     * @return number of wall clock jumps detected
+     */
+    public long getClockJumps() {
+        return read(() -> clockJumps);
+    }
+
+    /**
+     * @return size of the last wall clock jump in milliseconds, negative if the clock was set back, or 0 if there was
+     * none
+     */
+    public long getLastClockJumpMillis() {
+        return read(() -> lastClockJumpMillis);
+    }
+
+    /**
+     * @return number of triggers on the timer
+     */
+    public int size() {
+        return (int) read(() -> entries.size());
+    }
+
+    private long read(LongSupplier value) {
+        lock.lock();
+        try {
+            return value.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int compare(Entry a, Entry b) {
+        long diff = a.nextNanos - b.nextNanos;
+        if (diff != 0) {
+            return diff < 0 ? -1 : 1;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    private static final class Entry {
+        private final ScheduledTrigger trigger;
+        private final long intervalNanos;
+        private final IntervalTiming timing;
+        private long originNanos;
+        private long nextNanos;
+        private long fires;
+        private long sequence;
+
+        Entry(ScheduledTrigger trigger, long intervalNanos, IntervalTiming timing, long now, long sequence) {
+            this.trigger = trigger;
+            this.intervalNanos = intervalNanos;
+            this.timing = timing;
+            this.sequence = sequence;
+            restart(now);
+        }
+
+        void restart(long now) {
+            originNanos = now;
+            nextNanos = now;
+            fires = 0;
+        }
+    }
+}
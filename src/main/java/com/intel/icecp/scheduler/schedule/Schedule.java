@@ -17,6 +17,8 @@
 package com.intel.icecp.scheduler.schedule;
 
 
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 
@@ -45,6 +47,41 @@ public interface Schedule {
      */
     boolean resume();
 
+    /**
+     * Suspend all triggers of a group. Triggers added to the group while it is suspended are suspended too. Suspending
+     * a group takes constant time regardless of the number of triggers in it.
+     *
+     * @param triggerGroup the trigger group
+     * @return True if the group successfully suspended, false otherwise.
+     */
+    boolean suspendGroup(String triggerGroup);
+
+    /**
+     * Resume all triggers of a group. Triggers that were suspended individually stay suspended.
+     *
+     * @param triggerGroup the trigger group
+     * @return True if the group successfully resumed, false otherwise.
+     */
+    boolean resumeGroup(String triggerGroup);
+
+    /**
+     * Suspend a single trigger.
+     *
+     * @param triggerId the trigger id
+     * @param triggerGroup the trigger group
+     * @return True if the trigger successfully suspended, false otherwise, e.g. if it does not exist.
+     */
+    boolean suspendTrigger(String triggerId, String triggerGroup);
+
+    /**
+     * Resume a single trigger. The trigger does not fire while its group is suspended.
+     *
+     * @param triggerId the trigger id
+     * @param triggerGroup the trigger group
+     * @return True if the trigger successfully resumed, false otherwise, e.g. if it does not exist.
+     */
+    boolean resumeTrigger(String triggerId, String triggerGroup);
+
     /**
      * Stop the schedule. All triggers associated with this schedule will be deleted.
      *
@@ -61,6 +98,14 @@ public interface Schedule {
      */
     boolean checkJobExists(String triggerId, String triggerGroup);
 
+    /**
+     * Define an exclusion calendar. Triggers referencing the calendar by name do not fire on its excluded days and
+     * times, whether they were added to the schedule before or after the calendar was defined.
+     *
+     * @param calendar the calendar to define; a calendar with the same name is replaced
+     */
+    void addCalendar(ExclusionCalendar calendar);
+
     /**
      * Add a trigger to the schedule. Triggers are considered unique by their ID, which can be obtained with the {@link RangeTrigger#getId()} method.
      *
@@ -77,4 +122,39 @@ public interface Schedule {
      */
     void scheduleIntervalTrigger(IntervalTrigger trigger, String creatorName);
 
+    /**
+     * Add a trigger fired by the messages of its source channel to the schedule. Triggers are considered unique by their ID, which can be obtained with the {@link EventTrigger#getId()} method.
+     *
+     * @param trigger event trigger to add to the schedule.
+     * @param creatorName Additional metadata that indicates originator of the trigger being created.
+     */
+    void scheduleEventTrigger(EventTrigger trigger, String creatorName);
+
+    /**
+     * Get the watchdog reporting when the schedule falls behind on publishing its fires.
+     *
+     * @return the watchdog, or null if the schedule does not measure its lag
+     */
+    default LagWatchdog getWatchdog() {
+        return null;
+    }
+
+    /**
+     * Get the fire counts of the schedule's triggers.
+     *
+     * @return the counters, or null if the schedule does not count fires
+     */
+    default TriggerCounters getCounters() {
+        return null;
+    }
+
+    /**
+     * Get the source of the schedule's periodic metrics snapshots.
+     *
+     * @return the metrics, or null if the schedule does not report metrics
+     */
+    default SchedulerMetrics getMetrics() {
+        return null;
+    }
+
 }
@@ -18,6 +18,8 @@ package com.intel.icecp.scheduler.schedule;
 
 import com.intel.icecp.scheduler.schedule.quartz.QuartzSchedule;
 
+import java.time.Clock;
+
 /**
  * Class to create an instance of a quartz schedule
  */
@@ -32,4 +34,13 @@ public class ScheduleFactory {
     public static Schedule create() {
         return new QuartzSchedule();
     }
+
+    /**
+     * Create an instance of a quartz schedule computing trigger start times with a given clock
+     * @param clock the clock trigger start times are computed with
+     * @return an instance of {@link Schedule}
+     */
+    public static Schedule create(Clock clock) {
+        return new QuartzSchedule(clock);
+    }
 }
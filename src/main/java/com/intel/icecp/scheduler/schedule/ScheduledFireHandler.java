@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+/**
+ * Callback invoked by a schedule engine every time a trigger fires, with the time the fire was due. Sinks that only
+ * make sense for fires carrying their scheduled time, e.g. a simulation report, implement this instead of
+ * {@link FireHandler}.
+ */
+@FunctionalInterface
+public interface ScheduledFireHandler {
+    /**
+     * Handle a single fire of a trigger that was due at a given time
+     *
+     * @param trigger the trigger that fired
+     * @param scheduledMillis epoch time the fire was scheduled for
+     */
+    void fire(ScheduledTrigger trigger, long scheduledMillis);
+}
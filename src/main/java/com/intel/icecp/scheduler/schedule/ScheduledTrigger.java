@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.node.utils.ChannelUtils;
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.message.CompactCommand;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Runtime form of a trigger once it has been added to a schedule. Everything a fire needs (publish URI, command
+ * request or encoded payload) is resolved once when the trigger is scheduled, so firing the trigger does not parse,
+ * serialize or allocate.
+ */
+public final class ScheduledTrigger {
+    static final String URI_SUFFIX = "$cmd";
+    private static final ScheduledTrigger[] NO_ALIASES = new ScheduledTrigger[0];
+    private static final AtomicLongFieldUpdater<ScheduledTrigger> FIRES = AtomicLongFieldUpdater.newUpdater(ScheduledTrigger.class, "fires");
+    private static final AtomicReferenceFieldUpdater<ScheduledTrigger, CommandRequest> REQUEST =
+            AtomicReferenceFieldUpdater.newUpdater(ScheduledTrigger.class, CommandRequest.class, "request");
+
+    private final int slot;
+    private final String id;
+    private final TriggerGroup group;
+    private final URI[] channels;
+    private final CommandRequest command;
+    private final BytesMessage payload;
+    private final TriggerPriority priority;
+    private final long deadlineMillis;
+    private final CompiledCalendar calendar;
+    private final AdaptiveInterval adaptive;
+    private final FireDelivery delivery;
+    private final ScheduledTrigger primary;
+    private volatile ScheduledTrigger[] aliases = NO_ALIASES;
+    private volatile boolean suspended;
+    private volatile long fires;
+    private volatile CommandRequest request;
+
+    /**
+     * Constructor
+     *
+     * @param id the trigger id
+     * @param group the group (creator name) the trigger was scheduled under
+     * @param channel fully resolved channel the request is published on
+     * @param request the command request published on every fire
+     */
+    public ScheduledTrigger(String id, String group, URI channel, CommandRequest request) {
+        this(id, group, channel, request, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param id the trigger id
+     * @param group the group (creator name) the trigger was scheduled under
+     * @param channel fully resolved channel the request or payload is published on
+     * @param request the command request of the trigger
+     * @param payload pre-encoded payload published instead of the request, or null to publish the request
+     */
+    public ScheduledTrigger(String id, String group, URI channel, CommandRequest request, BytesMessage payload) {
+        this(-1, id, new TriggerGroup(group), new URI[]{channel}, request, payload, TriggerPriority.NORMAL, 0, null,
+                null, FireDelivery.BOTH);
+    }
+
+    /**
+     * Constructor for triggers stored in a {@link TriggerRegistry}
+     *
+     * @param slot the registry slot of the trigger
+     * @param id the trigger id
+     * @param group the group the trigger was registered in
+     * @param channels fully resolved channels the request or payload is published on, the publish channel first
+     * @param request the command request of the trigger; if it has no response URI, the trigger gets a request with a
+     * response URI of its own the first time its request is needed
+     * @param payload pre-encoded payload published instead of the request, or null to publish the request
+     * @param priority dispatch priority of the trigger's fires
+     * @param deadlineMillis time after its scheduled time a fire expires, or 0 if fires never expire
+     * @param calendar calendar of times the trigger does not fire at, or null if it always fires
+     * @param adaptive interval adapting to feedback from the consumer, or null if the trigger is not adaptive
+     * @param delivery where the trigger's fires are delivered
+     */
+    ScheduledTrigger(int slot, String id, TriggerGroup group, URI[] channels, CommandRequest request, BytesMessage payload,
+                     TriggerPriority priority, long deadlineMillis, CompiledCalendar calendar, AdaptiveInterval adaptive,
+                     FireDelivery delivery) {
+        this.slot = slot;
+        this.id = id;
+        this.group = group;
+        this.channels = channels;
+        this.command = request;
+        this.request = request != null && request.responseUri != null ? request : null;
+        this.payload = payload;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+        this.calendar = calendar;
+        this.adaptive = adaptive;
+        this.delivery = delivery;
+        this.primary = this;
+    }
+
+    /**
+     * Constructor for a trigger that is equivalent to an already registered trigger and shares its job
+     *
+     * @param slot the registry slot of the trigger
+     * @param id the trigger id
+     * @param primary the registered trigger whose job fires this trigger
+     */
+    ScheduledTrigger(int slot, String id, ScheduledTrigger primary) {
+        this.slot = slot;
+        this.id = id;
+        this.group = primary.group;
+        this.channels = primary.channels;
+        this.command = primary.command;
+        this.payload = primary.payload;
+        this.priority = primary.priority;
+        this.deadlineMillis = primary.deadlineMillis;
+        this.calendar = primary.calendar;
+        this.adaptive = primary.adaptive;
+        this.delivery = primary.delivery;
+        this.primary = primary;
+    }
+
+    /**
+     * Resolve a configured trigger into its runtime form. Calendars are only resolved by a {@link TriggerRegistry}, so
+     * the returned trigger is never excluded.
+     *
+     * @param trigger the configured trigger
+     * @param group the group (creator name) the trigger is scheduled under
+     * @return the scheduled trigger
+     * @throws IllegalArgumentException if the publish channel is not a valid URI or the payload cannot be encoded
+     */
+    public static ScheduledTrigger from(BaseTrigger trigger, String group) {
+        BytesMessage payload = trigger.getPayloadFormat() == PayloadFormat.CBOR ? encodePayload(trigger) : null;
+        return new ScheduledTrigger(-1, trigger.getId(), new TriggerGroup(group), resolveChannels(trigger),
+                newRequest(trigger), payload, trigger.getPriority(),
+                trigger.getDeadlineMillis() != null ? trigger.getDeadlineMillis() : 0, null, AdaptiveInterval.from(trigger),
+                trigger.getDelivery());
+    }
+
+    static CommandRequest newRequest(BaseTrigger trigger) {
+        if (trigger.getParams() != null) {
+            return CommandRequest.from(trigger.getCmd(), trigger.getParams());
+        }
+        return CommandRequest.from(trigger.getCmd());
+    }
+
+    /**
+     * @return the command and inputs of a trigger without a response URI, to be shared by every trigger with the same
+     * command and params
+     */
+    static CommandRequest newCommand(BaseTrigger trigger) {
+        if (trigger.getParams() != null) {
+            return CommandRequest.fromWithoutResponse(trigger.getCmd(), trigger.getParams());
+        }
+        return CommandRequest.fromWithoutResponse(trigger.getCmd());
+    }
+
+    /**
+     * @return a request for a shared command with a response URI of its own; the name and inputs are not copied
+     */
+    static CommandRequest withOwnResponse(CommandRequest command) {
+        return CommandRequest.from(command.name, command.inputs);
+    }
+
+    static BytesMessage encodePayload(BaseTrigger trigger) {
+        try {
+            return new BytesMessage(CompactCommand.encode(trigger.getCmd(), trigger.getParams()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to encode payload of trigger " + trigger.getId(), e);
+        }
+    }
+
+    /**
+     * Resolve every channel a trigger publishes on; see {@link #resolveChannel(BaseTrigger, String)}
+     */
+    static URI[] resolveChannels(BaseTrigger trigger) {
+        List<String> configured = trigger.getAllPublishChannels();
+        URI[] resolved = new URI[configured.size()];
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = resolveChannel(trigger, configured.get(i));
+        }
+        return resolved;
+    }
+
+    /**
+     * Compact payloads are published on the configured channel; RPC requests for a command go to the command's
+     * {@code $cmd} channel.
+     */
+    static URI resolveChannel(BaseTrigger trigger, String publishChannel) {
+        URI channel = URI.create(publishChannel);
+        if (trigger.getPayloadFormat() != PayloadFormat.CBOR && trigger.getCmd() != null && !trigger.getCmd().isEmpty()) {
+            channel = ChannelUtils.join(channel, URI_SUFFIX);
+        }
+        return channel;
+    }
+
+    /**
+     * @return the slot of the trigger in its {@link TriggerRegistry}, or -1 if it is not registered
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return the trigger id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the group (creator name) the trigger was scheduled under
+     */
+    public String getGroup() {
+        return group.name;
+    }
+
+    TriggerGroup getTriggerGroup() {
+        return group;
+    }
+
+    /**
+     * @return true if the group of the trigger is suspended
+     */
+    public boolean isGroupSuspended() {
+        return group.suspended;
+    }
+
+    /**
+     * @return true if the trigger itself is suspended; a suspended trigger is not fired even if its group is active
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+    }
+
+    /**
+     * @return the channel the request is published on; the first of {@link #getChannels()}
+     */
+    public URI getChannel() {
+        return channels[0];
+    }
+
+    /**
+     * @return every channel the request is published on, the publish channel first. The array is shared and must not
+     * be modified.
+     */
+    public URI[] getChannels() {
+        return channels;
+    }
+
+    /**
+     * @return the command request published on every fire; aliases share the request of their primary
+     */
+    public CommandRequest getRequest() {
+        if (primary != this) {
+            return primary.getRequest();
+        }
+        CommandRequest own = request;
+        if (own == null && command != null) {
+            // the response URI is only allocated once the trigger needs it, so registering a trigger does not pay for it
+            REQUEST.compareAndSet(this, null, withOwnResponse(command));
+            own = request;
+        }
+        return own;
+    }
+
+    /**
+     * @return the pre-encoded payload published instead of the request, or null if the request is published
+     */
+    public BytesMessage getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return the dispatch priority of the trigger's fires
+     */
+    public TriggerPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return time after its scheduled time a fire of the trigger expires, or 0 if fires never expire
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    CompiledCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * @return the interval of an adaptive interval trigger, which the publisher feeds back to; null if the trigger is
+     * not adaptive
+     */
+    public AdaptiveInterval getAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return where the trigger's fires are delivered
+     */
+    public FireDelivery getDelivery() {
+        return delivery;
+    }
+
+    /**
+     * @param epochMillis the time of a fire
+     * @return true if the trigger's exclusion calendar excludes fires at that time
+     */
+    public boolean isExcluded(long epochMillis) {
+        return calendar != null && calendar.isExcluded(epochMillis);
+    }
+
+    /**
+     * @return the trigger whose job fires this trigger; this trigger itself unless it is an alias
+     */
+    public ScheduledTrigger getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return true if this trigger shares the job of an equivalent trigger instead of having its own
+     */
+    public boolean isAlias() {
+        return primary != this;
+    }
+
+    /**
+     * @return the equivalent triggers fired together with this one; empty unless this is a primary with aliases
+     */
+    public ScheduledTrigger[] getAliases() {
+        return aliases;
+    }
+
+    void addAlias(ScheduledTrigger alias) {
+        ScheduledTrigger[] current = aliases;
+        ScheduledTrigger[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = alias;
+        aliases = updated;
+    }
+
+    void removeAlias(ScheduledTrigger alias) {
+        ScheduledTrigger[] current = aliases;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == alias) {
+                ScheduledTrigger[] updated = new ScheduledTrigger[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                aliases = updated.length == 0 ? NO_ALIASES : updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Count a fire of this trigger
+     *
+     * @return the 1-based number of this fire
+     */
+    public long countFire() {
+        count(TriggerCounters.FIRED, 1);
+        return FIRES.incrementAndGet(this);
+    }
+
+    /**
+     * Count the outcome of publishing a fire of this trigger
+     *
+     * @param published true if the fire was published on every channel
+     */
+    public void countOutcome(boolean published) {
+        count(published ? TriggerCounters.PUBLISHED : TriggerCounters.FAILED, 1);
+    }
+
+    /**
+     * Count fires of this trigger that were skipped instead of published
+     *
+     * @param fires number of skipped fires
+     */
+    public void countSkipped(long fires) {
+        count(TriggerCounters.SKIPPED, fires);
+    }
+
+    /**
+     * Count fires of this trigger that were skipped before reaching the publisher, and of its aliases, which share
+     * its fires
+     *
+     * @param fires number of skipped fires
+     */
+    public void countSkippedWithAliases(long fires) {
+        count(TriggerCounters.SKIPPED, fires);
+        for (ScheduledTrigger alias : aliases) {
+            alias.count(TriggerCounters.SKIPPED, fires);
+        }
+    }
+
+    private void count(int counter, long count) {
+        TriggerCounters counters = group.counters;
+        if (counters != null) {
+            counters.add(slot, counter, count);
+        }
+    }
+
+    /**
+     * @return number of times this trigger has fired
+     */
+    public long getFireCount() {
+        return fires;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledTrigger{" +
+                "id='" + id + '\'' +
+                ", group='" + group.name + '\'' +
+                ", channels=" + Arrays.toString(channels) +
+                (isAlias() ? ", primary='" + primary.id + '\'' : "") +
+                '}';
+    }
+}
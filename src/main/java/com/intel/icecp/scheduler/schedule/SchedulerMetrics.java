@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Takes snapshots of a schedule's metrics for publishing. Every figure is read from a running total (the
+ * {@link TriggerCounters} totals, the dispatch queue counters, the watchdog's last measurement, the channel cache
+ * lookups and the monotonic timers' counters), so a snapshot costs the same however many triggers are scheduled; only
+ * the per-channel publish outcomes grow, with the number of channels published on. Rates are the difference from the
+ * totals of the previous snapshot.
+ */
+public final class SchedulerMetrics {
+    private final TriggerCounters counters;
+    private final Dispatcher dispatcher;
+    private final LagWatchdog watchdog;
+    private final List<MonotonicTimer> timers;
+    private final LongSupplier channelHits;
+    private final LongSupplier channelMisses;
+    private final Supplier<List<MetricsMessage.ChannelMetrics>> channels;
+    private final LongSupplier nanoTime;
+    private long lastNanos;
+    private long lastFired;
+    private long lastFailed;
+
+    /**
+     * Constructor
+     *
+     * @param counters fire counters of the schedule
+     * @param dispatcher dispatcher queueing the fires of the schedule
+     * @param watchdog watchdog measuring the dispatch lag, or null if the lag is not measured
+     * @param channelHits number of publishes that found their channel open
+     * @param channelMisses number of publishes that had to open their channel
+     */
+    public SchedulerMetrics(TriggerCounters counters, Dispatcher dispatcher, LagWatchdog watchdog, LongSupplier channelHits,
+                            LongSupplier channelMisses) {
+        this(counters, dispatcher, watchdog, Collections.emptyList(), channelHits, channelMisses, Collections::emptyList,
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param counters fire counters of the schedule
+     * @param dispatcher dispatcher queueing the fires of the schedule
+     * @param watchdog watchdog measuring the dispatch lag, or null if the lag is not measured
+     * @param timers monotonic timers firing triggers of the schedule; their clock jumps are added up, so only one of
+     * them should detect jumps
+     * @param channelHits number of publishes that found their channel open
+     * @param channelMisses number of publishes that had to open their channel
+     * @param channels publish outcomes of every channel published on
+     */
+    public SchedulerMetrics(TriggerCounters counters, Dispatcher dispatcher, LagWatchdog watchdog,
+                            List<MonotonicTimer> timers, LongSupplier channelHits, LongSupplier channelMisses,
+                            Supplier<List<MetricsMessage.ChannelMetrics>> channels) {
+        this(counters, dispatcher, watchdog, timers, channelHits, channelMisses, channels, System::nanoTime);
+    }
+
+    SchedulerMetrics(TriggerCounters counters, Dispatcher dispatcher, LagWatchdog watchdog, List<MonotonicTimer> timers,
+                     LongSupplier channelHits, LongSupplier channelMisses,
+                     Supplier<List<MetricsMessage.ChannelMetrics>> channels, LongSupplier nanoTime) {
+        this.counters = counters;
+        this.dispatcher = dispatcher;
+        this.watchdog = watchdog;
+        this.timers = timers;
+        this.channelHits = channelHits;
+        this.channelMisses = channelMisses;
+        this.channels = channels;
+        this.nanoTime = nanoTime;
+        this.lastNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Take a snapshot; the fire rate and recent failures cover the time since the previous snapshot, or since
+     * construction for the first one
+     *
+     * @return the snapshot
+     */
+    public synchronized MetricsMessage snapshot() {
+        long now = nanoTime.getAsLong();
+        long periodNanos = now - lastNanos;
+        long fired = counters.getFired();
+        long failed = counters.getFailed();
+        double fireRate = periodNanos > 0 ? (fired - lastFired) * (double) TimeUnit.SECONDS.toNanos(1) / periodNanos : 0;
+        long recentFailed = failed - lastFailed;
+        lastNanos = now;
+        lastFired = fired;
+        lastFailed = failed;
+
+        int depth = 0;
+        List<MetricsMessage.PriorityMetrics> priorities = new ArrayList<>(TriggerPriority.values().length);
+        for (TriggerPriority priority : TriggerPriority.values()) {
+            DispatchStats stats = dispatcher.getStats(priority);
+            depth += stats.getDepth();
+            priorities.add(new MetricsMessage.PriorityMetrics(priority, stats.getDepth(), stats.getEnqueued(),
+                    stats.getDispatched(), stats.getDropped(), stats.getExpired(), stats.getShed(),
+                    stats.getMeanWaitMicros(), stats.getMaxWaitMicros()));
+        }
+        long hits = channelHits.getAsLong();
+        long lookups = hits + channelMisses.getAsLong();
+        long clockJumps = 0;
+        long lastClockJump = 0;
+        long maxLateness = 0;
+        for (MonotonicTimer timer : timers) {
+            long jumps = timer.getClockJumps();
+            if (jumps > 0) {
+                clockJumps += jumps;
+                lastClockJump = timer.getLastClockJumpMillis();
+            }
+            maxLateness = Math.max(maxLateness, timer.getMaxLatenessMicros());
+        }
+
+        return new MetricsMessage(new Date(), TimeUnit.NANOSECONDS.toMillis(periodNanos), fired, counters.getPublished(),
+                failed, counters.getSkipped(), fireRate, recentFailed,
+                watchdog != null ? watchdog.getLagMillis() : 0, watchdog != null ? watchdog.getMaxLagMillis() : 0,
+                depth, priorities, lookups > 0 ? (double) hits / lookups : 1, clockJumps, lastClockJump, maxLateness,
+                channels.get());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Fired, published, failed and skipped fire counts of every trigger in a {@link TriggerRegistry}, kept in striped
+ * arrays indexed by trigger slot instead of objects per trigger. The counts of a slot are adjacent in one
+ * {@link AtomicLongArray} chunk of {@value #CHUNK_SLOTS} slots; growing adds chunks and never copies counts, so
+ * increments racing with growth are not lost. Totals over all triggers are kept in {@link LongAdder}s as the counts
+ * are updated, so reading them does not walk the triggers.
+ * <p>
+ * A fire is skipped when it is not published: excluded by a calendar, suspended, or dropped, expired or shed by the
+ * {@link Dispatcher}, or missed by a fixed rate timer that fell behind.
+ */
+public final class TriggerCounters {
+    static final int FIRED = 0;
+    static final int PUBLISHED = 1;
+    static final int FAILED = 2;
+    static final int SKIPPED = 3;
+    private static final int COUNTERS = 4;
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final AtomicLongArray[] NO_CHUNKS = new AtomicLongArray[0];
+
+    private final IntFunction<ScheduledTrigger> triggers;
+    private final LongAdder[] totals = new LongAdder[COUNTERS];
+    private volatile AtomicLongArray[] chunks = NO_CHUNKS;
+
+    /**
+     * Constructor
+     *
+     * @param triggers looks up the trigger registered in a slot, or null if the slot is empty
+     */
+    TriggerCounters(IntFunction<ScheduledTrigger> triggers) {
+        this.triggers = triggers;
+        for (int i = 0; i < COUNTERS; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Make room for the counts of slots below a capacity
+     */
+    synchronized void ensureCapacity(int slots) {
+        AtomicLongArray[] current = chunks;
+        int needed = (slots + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT;
+        if (needed > current.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(current, needed);
+            for (int i = current.length; i < needed; i++) {
+                grown[i] = new AtomicLongArray(CHUNK_SLOTS * COUNTERS);
+            }
+            chunks = grown;
+        }
+    }
+
+    /**
+     * Reset all counts, e.g. when the slots are handed out again
+     */
+    synchronized void clear() {
+        chunks = NO_CHUNKS;
+        for (LongAdder total : totals) {
+            total.reset();
+        }
+    }
+
+    void add(int slot, int counter, long count) {
+        AtomicLongArray[] current = chunks;
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (slot < 0 || chunk >= current.length) {
+            return;
+        }
+        current[chunk].getAndAdd(((slot & (CHUNK_SLOTS - 1)) * COUNTERS) + counter, count);
+        totals[counter].add(count);
+    }
+
+    private long get(int slot, int counter) {
+        AtomicLongArray[] current = chunks;
+        int chunk = slot >>> CHUNK_SHIFT;
+        return slot >= 0 && chunk < current.length ? current[chunk].get(((slot & (CHUNK_SLOTS - 1)) * COUNTERS) + counter) : 0;
+    }
+
+    /**
+     * @return number of fires of all triggers handed to the publisher
+     */
+    public long getFired() {
+        return totals[FIRED].sum();
+    }
+
+    /**
+     * @return number of fires of all triggers published on every channel
+     */
+    public long getPublished() {
+        return totals[PUBLISHED].sum();
+    }
+
+    /**
+     * @return number of fires of all triggers that failed to publish on a channel
+     */
+    public long getFailed() {
+        return totals[FAILED].sum();
+    }
+
+    /**
+     * @return number of fires of all triggers that were skipped
+     */
+    public long getSkipped() {
+        return totals[SKIPPED].sum();
+    }
+
+    /**
+     * @param trigger a registered trigger
+     * @return the counts of the trigger
+     */
+    public TriggerStats getStats(ScheduledTrigger trigger) {
+        int slot = trigger.getSlot();
+        return new TriggerStats(trigger.getGroup(), trigger.getId(), get(slot, FIRED), get(slot, PUBLISHED),
+                get(slot, FAILED), get(slot, SKIPPED));
+    }
+
+    /**
+     * Read the counts of every registered trigger. This walks all slots, so it is meant for on-demand reports, not
+     * for periodic metrics; use the totals for those.
+     *
+     * @return the counts of every registered trigger, in slot order
+     */
+    public List<TriggerStats> getStats() {
+        int slots = chunks.length * CHUNK_SLOTS;
+        List<TriggerStats> stats = new ArrayList<>();
+        for (int slot = 0; slot < slots; slot++) {
+            ScheduledTrigger trigger = triggers.apply(slot);
+            if (trigger != null) {
+                stats.add(getStats(trigger));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the totals and the counts of every registered trigger, as reported by the scheduler's stats attribute and
+     * command
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("fired", getFired());
+        map.put("published", getPublished());
+        map.put("failed", getFailed());
+        map.put("skipped", getSkipped());
+        map.put("triggers", getStats());
+        return map;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Triggers scheduled under one group (creator name). The group's suspended flag is shared by all its triggers, so
+ * suspending or resuming a group is a single write regardless of its size. Likewise its triggers reach the fire
+ * counters of their registry through the group.
+ */
+final class TriggerGroup {
+    final String name;
+    final TriggerCounters counters;
+    final Map<String, ScheduledTrigger> members = new ConcurrentHashMap<>();
+    volatile boolean suspended;
+
+    TriggerGroup(String name) {
+        this(name, null);
+    }
+
+    TriggerGroup(String name, TriggerCounters counters) {
+        this.name = name;
+        this.counters = counters;
+    }
+}
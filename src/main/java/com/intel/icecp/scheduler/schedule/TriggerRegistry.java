@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact store of the scheduled triggers of a schedule.
+ * <p>
+ * Every trigger gets a slot. Per-trigger state is a {@link ScheduledTrigger} flyweight plus its timing, which is kept
+ * in primitive arrays indexed by slot. Everything triggers tend to have in common is interned and shared: publish
+ * channels, params maps, commands and encoded payloads. A primary gets a request of its own, sharing the command's name
+ * and inputs but with its own response URI so that responses to one trigger's fires are not mixed with another's, the
+ * first time it publishes its request; aliases fire with their primary and share its request. With channels, commands
+ * and params shared, a registered trigger costs about {@value #BYTES_PER_TRIGGER_BUDGET} bytes of heap including its
+ * id.
+ * <p>
+ * Triggers in the same group that are equal except for their id (same type, publish channel, command, params, payload
+ * format, priority, deadline, calendar, delivery and {@link BaseTrigger#getScheduleKey() schedule}) are deduplicated if
+ * they are {@link BaseTrigger#isDeduplicable() deduplicable}: the first one registered is the primary
+ * and later ones become its aliases. Only primaries need a job in the schedule engine; firing a primary publishes once
+ * and fans the fire out to its aliases.
+ * <p>
+ * Groups and single triggers are suspended with a flag that the fire path checks, so suspending a group is O(1) no
+ * matter how many triggers it has.
+ * <p>
+ * Triggers are registered from the loading thread(s) and looked up from firing threads; lookups by group and id do
+ * not allocate.
+ */
+public final class TriggerRegistry {
+    /**
+     * Heap budget per registered trigger, in bytes, when channels, commands and params are shared. Includes the id,
+     * the deduplication index entry of a primary and its four {@link TriggerCounters} counters; an alias costs less.
+     * Not included is the request with its own response URI (about 250 bytes) that a primary allocates the first time
+     * it publishes a request.
+     */
+    public static final int BYTES_PER_TRIGGER_BUDGET = 352;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, TriggerGroup> groups = new ConcurrentHashMap<>();
+    private final Map<URI, URI> channels = new HashMap<>();
+    private final Map<List<URI>, URI[]> channelSets = new HashMap<>();
+    private final Map<Map<String, Object>, Map<String, Object>> params = new HashMap<>();
+    private final Map<List<Object>, CommandRequest> requests = new HashMap<>();
+    private final Map<List<Object>, BytesMessage> payloads = new HashMap<>();
+    private final Map<Equivalence, ScheduledTrigger> primaries = new HashMap<>();
+    private final Map<String, CompiledCalendar> calendars = new HashMap<>();
+    private final TriggerCounters counters = new TriggerCounters(this::get);
+
+    private volatile ScheduledTrigger[] triggers = new ScheduledTrigger[INITIAL_CAPACITY];
+    private long[] intervalMillis = new long[INITIAL_CAPACITY];
+    private long[] startMillis = new long[INITIAL_CAPACITY];
+    private int slots;
+    private int size;
+
+    /**
+     * Register a trigger
+     *
+     * @param config the configured trigger
+     * @param group the group (creator name) the trigger is scheduled under
+     * @param intervalMillis repeat interval of the trigger
+     * @param startMillis epoch time of the first fire
+     * @return the registered trigger, which is an {@link ScheduledTrigger#isAlias() alias} if an equivalent trigger is
+     * already registered, or null if a trigger with the same id is already registered in the group
+     * @throws IllegalArgumentException if the publish channel is not a valid URI or the payload cannot be encoded
+     */
+    public synchronized ScheduledTrigger register(BaseTrigger config, String group, long intervalMillis, long startMillis) {
+        TriggerGroup members = groups.get(group);
+        if (members != null && members.members.containsKey(config.getId())) {
+            return null;
+        }
+        if (members == null) {
+            members = new TriggerGroup(group, counters);
+        }
+
+        ScheduledTrigger trigger = newTrigger(slots, config, members);
+        if (trigger.isAlias()) {
+            trigger.getPrimary().addAlias(trigger);
+            intervalMillis = this.intervalMillis[trigger.getPrimary().getSlot()];
+            startMillis = this.startMillis[trigger.getPrimary().getSlot()];
+        }
+        groups.putIfAbsent(group, members);
+        members.members.put(trigger.getId(), trigger);
+
+        ensureCapacity(slots + 1);
+        counters.ensureCapacity(slots + 1);
+        triggers[slots] = trigger;
+        this.intervalMillis[slots] = intervalMillis;
+        this.startMillis[slots] = startMillis;
+        slots++;
+        size++;
+        return trigger;
+    }
+
+    private ScheduledTrigger newTrigger(int slot, BaseTrigger config, TriggerGroup group) {
+        Map<String, Object> internedParams = config.getParams() == null ? null : params.computeIfAbsent(config.getParams(), p -> p);
+        List<Object> command = Arrays.asList(config.getCmd(), internedParams);
+        URI[] resolved = ScheduledTrigger.resolveChannels(config);
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = channels.computeIfAbsent(resolved[i], c -> c);
+        }
+        URI[] channelSet = channelSets.computeIfAbsent(Arrays.asList(resolved), c -> resolved);
+        AdaptiveInterval adaptive = AdaptiveInterval.from(config);
+        CommandRequest shared = requests.computeIfAbsent(command, c -> ScheduledTrigger.newCommand(config));
+        BytesMessage payload = null;
+        if (config.getPayloadFormat() == PayloadFormat.CBOR) {
+            payload = payloads.computeIfAbsent(command, c -> ScheduledTrigger.encodePayload(config));
+        }
+
+        long deadlineMillis = config.getDeadlineMillis() != null ? config.getDeadlineMillis() : 0;
+        CompiledCalendar calendar = config.getCalendar() != null ? calendars.computeIfAbsent(config.getCalendar(), CompiledCalendar::new) : null;
+        ScheduledTrigger candidate = new ScheduledTrigger(slot, config.getId(), group, channelSet, shared, payload,
+                config.getPriority(), deadlineMillis, calendar, adaptive, config.getDelivery());
+        if (config.isDeduplicable()) {
+            ScheduledTrigger primary = primaries.get(new Equivalence(candidate, shared, config.getClass(), config.getScheduleKey()));
+            if (primary != null) {
+                return new ScheduledTrigger(slot, config.getId(), primary);
+            }
+        }
+        if (config.isDeduplicable()) {
+            primaries.put(new Equivalence(candidate, shared, config.getClass(), config.getScheduleKey()), candidate);
+        }
+        return candidate;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > triggers.length) {
+            int length = Math.max(capacity, triggers.length * 2);
+            intervalMillis = Arrays.copyOf(intervalMillis, length);
+            startMillis = Arrays.copyOf(startMillis, length);
+            triggers = Arrays.copyOf(triggers, length);
+        }
+    }
+
+    /**
+     * Remove a trigger. Its slot is not reused. Removing a primary also removes its aliases.
+     *
+     * @param group the group of the trigger
+     * @param id the trigger id
+     * @return the removed trigger, or null if it was not registered
+     */
+    public synchronized ScheduledTrigger remove(String group, String id) {
+        TriggerGroup members = groups.get(group);
+        ScheduledTrigger trigger = members != null ? members.members.remove(id) : null;
+        if (trigger == null) {
+            return null;
+        }
+        free(trigger);
+
+        if (trigger.isAlias()) {
+            trigger.getPrimary().removeAlias(trigger);
+        } else {
+            // linear, but only needed when a primary cannot be scheduled
+            primaries.values().remove(trigger);
+            for (ScheduledTrigger alias : trigger.getAliases()) {
+                members.members.remove(alias.getId());
+                free(alias);
+            }
+        }
+        return trigger;
+    }
+
+    private void free(ScheduledTrigger trigger) {
+        triggers[trigger.getSlot()] = null;
+        size--;
+    }
+
+    /**
+     * Remove all triggers
+     */
+    public synchronized void clear() {
+        groups.clear();
+        channels.clear();
+        channelSets.clear();
+        params.clear();
+        requests.clear();
+        payloads.clear();
+        primaries.clear();
+        calendars.clear();
+        counters.clear();
+        triggers = new ScheduledTrigger[INITIAL_CAPACITY];
+        intervalMillis = new long[INITIAL_CAPACITY];
+        startMillis = new long[INITIAL_CAPACITY];
+        slots = 0;
+        size = 0;
+    }
+
+    /**
+     * Look up a trigger by group and id
+     *
+     * @param group the group of the trigger
+     * @param id the trigger id
+     * @return the trigger, or null if it is not registered
+     */
+    public ScheduledTrigger get(String group, String id) {
+        TriggerGroup members = groups.get(group);
+        return members != null ? members.members.get(id) : null;
+    }
+
+    /**
+     * Define or redefine an exclusion calendar. Triggers referencing the calendar, including triggers registered before
+     * the definition, are excluded from then on.
+     *
+     * @param calendar the calendar definition
+     * @param zone time zone the calendar's dates and times are local to
+     */
+    public synchronized void defineCalendar(ExclusionCalendar calendar, ZoneId zone) {
+        calendars.computeIfAbsent(calendar.getName(), CompiledCalendar::new).define(calendar, zone);
+    }
+
+    /**
+     * @return number of calendars that are defined or referenced by a trigger
+     */
+    public synchronized int calendars() {
+        return calendars.size();
+    }
+
+    /**
+     * Suspend or resume all triggers of a group, including triggers registered in the group later
+     *
+     * @param group the group
+     * @param suspended true to suspend, false to resume
+     */
+    public synchronized void setGroupSuspended(String group, boolean suspended) {
+        groups.computeIfAbsent(group, name -> new TriggerGroup(name, counters)).suspended = suspended;
+    }
+
+    /**
+     * @param group the group
+     * @return true if the group is suspended
+     */
+    public boolean isGroupSuspended(String group) {
+        TriggerGroup members = groups.get(group);
+        return members != null && members.suspended;
+    }
+
+    /**
+     * Suspend or resume a single trigger
+     *
+     * @param group the group of the trigger
+     * @param id the trigger id
+     * @param suspended true to suspend, false to resume
+     * @return false if the trigger is not registered
+     */
+    public boolean setTriggerSuspended(String group, String id, boolean suspended) {
+        ScheduledTrigger trigger = get(group, id);
+        if (trigger == null) {
+            return false;
+        }
+        trigger.setSuspended(suspended);
+        return true;
+    }
+
+    /**
+     * @return the fire counters of the registered triggers
+     */
+    public TriggerCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Look up a trigger by slot
+     *
+     * @param slot the slot of the trigger
+     * @return the trigger, or null if the slot is empty
+     */
+    public ScheduledTrigger get(int slot) {
+        ScheduledTrigger[] current = triggers;
+        return slot >= 0 && slot < current.length ? current[slot] : null;
+    }
+
+    /**
+     * @param slot the slot of a trigger
+     * @return the repeat interval of the trigger in milliseconds
+     */
+    public synchronized long getIntervalMillis(int slot) {
+        return intervalMillis[slot];
+    }
+
+    /**
+     * @param slot the slot of a trigger
+     * @return the epoch time of the first fire of the trigger in milliseconds
+     */
+    public synchronized long getStartMillis(int slot) {
+        return startMillis[slot];
+    }
+
+    /**
+     * @return number of registered triggers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return number of slots handed out, including slots of removed triggers
+     */
+    public synchronized int slots() {
+        return slots;
+    }
+
+    /**
+     * @return number of registered triggers that have their own job, i.e. that are not aliases
+     */
+    public synchronized int primaries() {
+        return primaries.size();
+    }
+
+    /**
+     * @return number of distinct publish channels
+     */
+    public synchronized int distinctChannels() {
+        return channels.size();
+    }
+
+    /**
+     * @return number of distinct commands (command name and params), which every trigger with that command shares
+     */
+    public synchronized int distinctRequests() {
+        return requests.size();
+    }
+
+    /**
+     * Identity of what and when a trigger publishes. The key refers to the primary trigger instead of copying its
+     * fields; the channels, request, payload and calendar are interned, so they are compared by reference.
+     */
+    private static final class Equivalence {
+        private final ScheduledTrigger trigger;
+        private final CommandRequest command;
+        private final Class<?> type;
+        private final long scheduleKey;
+        private final int hash;
+
+        Equivalence(ScheduledTrigger trigger, CommandRequest command, Class<?> type, long scheduleKey) {
+            this.trigger = trigger;
+            this.command = command;
+            this.type = type;
+            this.scheduleKey = scheduleKey;
+            this.hash = Objects.hash(System.identityHashCode(trigger.getTriggerGroup()), type,
+                    System.identityHashCode(trigger.getChannels()), System.identityHashCode(command),
+                    System.identityHashCode(trigger.getPayload()), trigger.getPriority(), trigger.getDeadlineMillis(),
+                    System.identityHashCode(trigger.getCalendar()), trigger.getDelivery(), scheduleKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Equivalence)) return false;
+
+            Equivalence that = (Equivalence) o;
+            ScheduledTrigger other = that.trigger;
+            return scheduleKey == that.scheduleKey && type == that.type
+                    && trigger.getDeadlineMillis() == other.getDeadlineMillis()
+                    && trigger.getChannels() == other.getChannels()
+                    && command == that.command
+                    && trigger.getPayload() == other.getPayload()
+                    && trigger.getPriority() == other.getPriority()
+                    && trigger.getDelivery() == other.getDelivery()
+                    && trigger.getCalendar() == other.getCalendar()
+                    && trigger.getTriggerGroup() == other.getTriggerGroup();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
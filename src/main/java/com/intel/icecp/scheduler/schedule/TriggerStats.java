@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+/**
+ * Snapshot of the fire counts of one trigger, see {@link TriggerCounters}.
+ */
+public final class TriggerStats {
+    private final String group;
+    private final String id;
+    private final long fired;
+    private final long published;
+    private final long failed;
+    private final long skipped;
+
+    TriggerStats(String group, String id, long fired, long published, long failed, long skipped) {
+        this.group = group;
+        this.id = id;
+        this.fired = fired;
+        this.published = published;
+        this.failed = failed;
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the group of the trigger
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return the trigger id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return number of fires handed to the publisher
+     */
+    public long getFired() {
+        return fired;
+    }
+
+    /**
+     * @return number of fires published on every channel
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * @return number of fires that failed to publish on a channel
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return number of fires that were skipped instead of published
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "TriggerStats{" +
+                "group='" + group + '\'' +
+                ", id='" + id + '\'' +
+                ", fired=" + fired +
+                ", published=" + published +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                '}';
+    }
+}
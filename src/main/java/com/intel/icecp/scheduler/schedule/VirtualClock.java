@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Clock that only moves when it is advanced. Schedules and triggers take a {@link Clock}, so passing a virtual clock
+ * lets tests and simulations run days of schedule in milliseconds.
+ */
+public final class VirtualClock extends Clock {
+    private final ZoneId zone;
+    private volatile long millis;
+
+    /**
+     * Constructor
+     *
+     * @param start the initial time of the clock
+     * @param zone the time zone of the clock
+     */
+    public VirtualClock(Instant start, ZoneId zone) {
+        this.millis = start.toEpochMilli();
+        this.zone = zone;
+    }
+
+    private VirtualClock(long millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * The returned clock is a snapshot; advancing either clock does not move the other.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new VirtualClock(millis, zone);
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    /**
+     * Move the clock forward
+     *
+     * @param duration time to move forward by
+     * @throws IllegalArgumentException if the duration is negative
+     */
+    public void advance(Duration duration) {
+        setMillis(millis + duration.toMillis());
+    }
+
+    /**
+     * Set the clock to a given time
+     *
+     * @param millis the new epoch time of the clock
+     * @throws IllegalArgumentException if the time is before the current time of the clock
+     */
+    public synchronized void setMillis(long millis) {
+        if (millis < this.millis) {
+            throw new IllegalArgumentException("Virtual clock cannot go back from " + this.millis + " to " + millis);
+        }
+        this.millis = millis;
+    }
+}
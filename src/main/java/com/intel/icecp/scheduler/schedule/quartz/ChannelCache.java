@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.core.Channel;
+import com.intel.icecp.core.Message;
+import com.intel.icecp.core.Metadata;
+import com.intel.icecp.core.Node;
+import com.intel.icecp.core.metadata.Persistence;
+import com.intel.icecp.core.misc.ChannelLifetimeException;
+import com.intel.icecp.scheduler.schedule.FlightEvents;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps publish channels open between fires. Opening a channel is the most expensive part of a publish, and triggers
+ * keep publishing on the same handful of channels, so each channel is opened on first use and reused until it fails
+ * or the cache is closed.
+ */
+class ChannelCache<T extends Message> implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final Supplier<Node> nodeSupplier;
+    private final Class<T> type;
+    private final Metadata[] metadata;
+    private final ConcurrentMap<URI, Channel<T>> channels = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param nodeSupplier supplies the node used to open channels; resolved on first use since the node is not known
+     * until the module runs
+     * @param type type of the messages published on the channels
+     * @param metadata additional metadata (e.g. format) the channels are opened with
+     */
+    ChannelCache(Supplier<Node> nodeSupplier, Class<T> type, Metadata... metadata) {
+        this.nodeSupplier = nodeSupplier;
+        this.type = type;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Get the open channel for a URI, opening it if needed
+     *
+     * @param uri the channel URI
+     * @return the open channel
+     * @throws ChannelLifetimeException if the channel could not be opened
+     */
+    Channel<T> get(URI uri) throws ChannelLifetimeException {
+        Channel<T> channel = channels.get(uri);
+        if (channel != null) {
+            hits.increment();
+            return channel;
+        }
+        return open(uri);
+    }
+
+    private synchronized Channel<T> open(URI uri) throws ChannelLifetimeException {
+        Channel<T> channel = channels.get(uri);
+        if (channel == null) {
+            Node node = nodeSupplier.get();
+            if (node == null) {
+                throw new ChannelLifetimeException("No node available to open channel " + uri);
+            }
+            Object event = FlightEvents.beginChannelOpen();
+            try {
+                channel = node.openChannel(uri, type, Persistence.DEFAULT, metadata);
+            } catch (ChannelLifetimeException | RuntimeException e) {
+                FlightEvents.endChannelOpen(event, uri, type, false);
+                throw e;
+            }
+            FlightEvents.endChannelOpen(event, uri, type, true);
+            channels.put(uri, channel);
+            misses.increment();
+            LOGGER.debug("Opened publish channel {}", uri);
+        }
+        return channel;
+    }
+
+    /**
+     * Close and forget the channel for a URI, e.g. after a failed publish; the next fire reopens it
+     *
+     * @param uri the channel URI
+     */
+    void evict(URI uri) {
+        Channel<T> channel = channels.remove(uri);
+        if (channel != null) {
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * @return number of lookups that found the channel open
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that opened the channel
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of open channels
+     */
+    int size() {
+        return channels.size();
+    }
+
+    /**
+     * Close all cached channels
+     */
+    @Override
+    public void close() {
+        channels.values().forEach(this::closeQuietly);
+        channels.clear();
+    }
+
+    private void closeQuietly(Channel<T> channel) {
+        try {
+            channel.close();
+        } catch (ChannelLifetimeException e) {
+            LOGGER.error("Unable to close publish channel {}", channel.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.core.Channel;
+import com.intel.icecp.core.Node;
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.core.metadata.Persistence;
+import com.intel.icecp.core.metadata.formats.BytesFormat;
+import com.intel.icecp.core.misc.ChannelIOException;
+import com.intel.icecp.core.misc.ChannelLifetimeException;
+import com.intel.icecp.scheduler.schedule.EventGate;
+import com.intel.icecp.scheduler.schedule.FireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Subscriptions to the source channels of event triggers. Each source channel is subscribed to once, however many
+ * triggers it fires; its messages are passed through the {@link EventGate} of every such trigger and the fires let
+ * through are handed to the fire handler. Debounce windows are timed on a single daemon thread created when the first
+ * debounced message arrives.
+ * <p>
+ * Source channels are opened with {@link BytesFormat}, so messages of any format fire the triggers without being
+ * decoded. Messages are ignored until the sources are started and while they are paused.
+ */
+class EventSources implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final Supplier<Node> nodeSupplier;
+    private final FireHandler handler;
+    private final LongSupplier nanoTime;
+    private final ConcurrentMap<URI, Source> sources = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+    private volatile boolean running;
+    private volatile boolean paused;
+
+    /**
+     * Constructor
+     *
+     * @param nodeSupplier supplies the node source channels are opened on
+     * @param handler handler the fires are passed to
+     * @param nanoTime monotonic time source
+     */
+    EventSources(Supplier<Node> nodeSupplier, FireHandler handler, LongSupplier nanoTime) {
+        this.nodeSupplier = nodeSupplier;
+        this.handler = handler;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Fire a trigger on the messages of a source channel; the channel is subscribed to right away if the sources are
+     * started
+     *
+     * @param source the source channel
+     * @param gate the gate of the trigger
+     */
+    void add(URI source, EventGate gate) {
+        Source subscription = sources.computeIfAbsent(source, Source::new);
+        subscription.gates.add(gate);
+        if (running) {
+            subscription.open();
+        }
+    }
+
+    /**
+     * Subscribe to every source channel not subscribed to yet
+     */
+    void start() {
+        running = true;
+        sources.values().forEach(Source::open);
+    }
+
+    /**
+     * @param paused true to ignore messages and pending debounced fires, false to resume
+     */
+    void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * @return number of subscribed source channels
+     */
+    int size() {
+        return sources.size();
+    }
+
+    /**
+     * @param source a source channel
+     * @return the gates of the triggers fired by the channel
+     */
+    List<EventGate> getGates(URI source) {
+        Source subscription = sources.get(source);
+        return subscription != null ? subscription.gates : null;
+    }
+
+    private void onMessage(Source source) {
+        if (!running || paused) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        for (EventGate gate : source.gates) {
+            handle(gate, gate.onEvent(now));
+        }
+    }
+
+    private void handle(EventGate gate, long result) {
+        if (result == EventGate.FIRE) {
+            fire(gate.getTrigger());
+        } else if (result > 0) {
+            schedule(() -> handle(gate, gate.check(nanoTime.getAsLong())), result);
+        }
+    }
+
+    private void fire(ScheduledTrigger trigger) {
+        long nowMillis = System.currentTimeMillis();
+        if (!running) {
+            return;
+        }
+        if (paused || trigger.isExcluded(nowMillis)) {
+            trigger.countSkippedWithAliases(1);
+        } else {
+            handler.fire(trigger, nowMillis);
+        }
+    }
+
+    /**
+     * Schedule a debounce check on the timer thread, creating it on first use. A message still being handled, or a
+     * check still running, when the sources are closed must not create a new timer nobody shuts down, so the check is
+     * dropped once closed.
+     */
+    private synchronized void schedule(Runnable check, long delayNanos) {
+        if (!running) {
+            return;
+        }
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "scheduler-events");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        timer.schedule(check, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return true if the debounce timer thread has been created and not shut down
+     */
+    synchronized boolean hasTimer() {
+        return timer != null;
+    }
+
+    /**
+     * Unsubscribe from all source channels and drop pending debounced fires
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+            if (timer != null) {
+                timer.shutdownNow();
+                timer = null;
+            }
+        }
+        sources.values().forEach(Source::close);
+        sources.clear();
+    }
+
+    /**
+     * A source channel and the triggers it fires
+     */
+    private final class Source {
+        private final URI uri;
+        private final List<EventGate> gates = new CopyOnWriteArrayList<>();
+        private Channel<BytesMessage> channel;
+
+        Source(URI uri) {
+            this.uri = uri;
+        }
+
+        synchronized void open() {
+            if (channel != null) {
+                return;
+            }
+            Node node = nodeSupplier.get();
+            if (node == null) {
+                LOGGER.error("No node available to subscribe to event source {}", uri);
+                return;
+            }
+            try {
+                Channel<BytesMessage> opened = node.openChannel(uri, BytesMessage.class, Persistence.DEFAULT, new BytesFormat());
+                opened.subscribe(message -> onMessage(this));
+                channel = opened;
+                LOGGER.debug("Subscribed to event source {}", uri);
+            } catch (ChannelLifetimeException | ChannelIOException e) {
+                LOGGER.error("Unable to subscribe to event source {}", uri, e);
+            }
+        }
+
+        synchronized void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (ChannelLifetimeException e) {
+                LOGGER.error("Unable to close event source {}", uri, e);
+            }
+            channel = null;
+        }
+    }
+}
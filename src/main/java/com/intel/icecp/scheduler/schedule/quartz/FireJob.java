@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.scheduler.schedule.FireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.TriggerKey;
+
+/**
+ * The single job fired by all Quartz triggers of a {@link QuartzSchedule}. The fired Quartz trigger is resolved to its
+ * {@link ScheduledTrigger} through the schedule's {@link TriggerRegistry} by trigger key and handed to the fire
+ * handler together with the time the fire was due, so the Quartz thread never waits on a publish. Fires excluded by the
+ * trigger's exclusion calendar are dropped here.
+ */
+class FireJob implements Job {
+    private final TriggerRegistry registry;
+    private final FireHandler handler;
+
+    /**
+     * Constructor
+     *
+     * @param registry registry fired triggers are looked up in
+     * @param handler handler the resolved triggers are passed to
+     */
+    FireJob(TriggerRegistry registry, FireHandler handler) {
+        this.registry = registry;
+        this.handler = handler;
+    }
+
+    /**
+     * Operation to perform when a Quartz trigger is fired.
+     *
+     * @param ctx Context associated with the trigger that fired
+     * @throws JobExecutionException Thrown if the trigger is not registered
+     */
+    @Override
+    public void execute(JobExecutionContext ctx) throws JobExecutionException {
+        TriggerKey key = ctx.getTrigger().getKey();
+        ScheduledTrigger trigger = registry.get(key.getGroup(), key.getName());
+        if (trigger == null) {
+            throw new JobExecutionException("Trigger " + key + " is not registered");
+        }
+        long scheduledMillis = ctx.getScheduledFireTime().getTime();
+        if (trigger.isExcluded(scheduledMillis)) {
+            trigger.countSkippedWithAliases(1);
+        } else {
+            handler.fire(trigger, scheduledMillis);
+        }
+    }
+}
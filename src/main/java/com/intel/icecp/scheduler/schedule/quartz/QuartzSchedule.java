@@ -16,24 +16,39 @@
 
 package com.intel.icecp.scheduler.schedule.quartz;
 
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.SchedulerModule;
+import com.intel.icecp.scheduler.schedule.AdaptiveInterval;
+import com.intel.icecp.scheduler.schedule.Dispatcher;
+import com.intel.icecp.scheduler.schedule.EventGate;
+import com.intel.icecp.scheduler.schedule.FlightEvents;
+import com.intel.icecp.scheduler.schedule.LagWatchdog;
+import com.intel.icecp.scheduler.schedule.MonotonicTimer;
 import com.intel.icecp.scheduler.schedule.Schedule;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.SchedulerMetrics;
+import com.intel.icecp.scheduler.schedule.TriggerCounters;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.quartz.JobBuilder;
-import org.quartz.JobDataMap;
-import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
 import org.quartz.SimpleTrigger;
-import org.quartz.TriggerKey;
 import org.quartz.impl.StdSchedulerFactory;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Properties;
 import java.util.UUID;
@@ -49,12 +64,65 @@ import static org.quartz.TriggerBuilder.newTrigger;
  */
 public class QuartzSchedule implements Schedule {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final JobKey PUBLISH_JOB = new JobKey("publish");
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private final Clock clock;
+    private final TriggerRegistry registry = new TriggerRegistry();
+    private final TriggerPublisher publisher = new TriggerPublisher();
+    private final Dispatcher dispatcher = new Dispatcher(publisher, ConfigConstants.DISPATCH_WORKERS, ConfigConstants.DISPATCH_CAPACITY);
+    private final MonotonicTimer timer = new MonotonicTimer(dispatcher);
+    private final MonotonicTimer highResolutionTimer = MonotonicTimer.highResolution(dispatcher);
+    private final EventSources events = new EventSources(SchedulerModule::getNode, dispatcher, System::nanoTime);
+    private final LagWatchdog watchdog = new LagWatchdog(dispatcher);
+    private final SchedulerMetrics metrics = new SchedulerMetrics(registry.getCounters(), dispatcher, watchdog,
+            Arrays.asList(timer, highResolutionTimer), publisher::getChannelHits, publisher::getChannelMisses,
+            publisher::getChannelMetrics);
     private Scheduler scheduler;
+    private boolean started;
+    private boolean paused;
 
     /**
-     * Constructor to create a new instance of a Quartz scheduler
+     * Constructor to create a new instance of a Quartz scheduler. All triggers of the scheduler fire one durable job
+     * backed by a shared {@link TriggerPublisher}, instead of Quartz storing a job per trigger and instantiating a new
+     * job (and opening a new channel) on every fire. Per-trigger state lives in the {@link TriggerRegistry}.
+     * <p>
+     * The job only queues the fire on a {@link Dispatcher}; its workers publish the fires by trigger priority.
+     * Interval triggers with a monotonic {@link IntervalTiming} are fired by a {@link MonotonicTimer} instead of Quartz;
+     * the timer also detects wall clock jumps. Interval triggers firing more often than
+     * {@link ConfigConstants#HIGH_RESOLUTION_THRESHOLD_MICROS} are fired by a {@link MonotonicTimer#highResolution
+     * high resolution} timer. Event triggers are fired by the messages of their source channels through
+     * {@link EventSources}. A {@link LagWatchdog} measures how far behind the dispatcher is while the schedule runs.
+     * <p>
+     * The Quartz scheduler (thread pool, job store and scheduler thread) is only created when the first trigger that
+     * Quartz fires is scheduled, so constructing the schedule is cheap and schedules without wall clock triggers never
+     * start Quartz. Likewise the high resolution timer thread only runs once it has triggers.
      */
     public QuartzSchedule() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clock clock the start times of new triggers are computed with. Quartz itself fires on the system clock,
+     * so a clock other than the system clock only shifts when triggers start; use
+     * {@link com.intel.icecp.scheduler.schedule.simulation.SimulatedSchedule} to run a schedule on virtual time
+     */
+    public QuartzSchedule(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Get the Quartz scheduler, creating it on first use. A scheduler created after the schedule was started is
+     * started (and paused, if the schedule is suspended) right away.
+     *
+     * @return the Quartz scheduler
+     * @throws SchedulerException if the scheduler cannot be created
+     */
+    private synchronized Scheduler quartz() throws SchedulerException {
+        if (scheduler != null) {
+            return scheduler;
+        }
         //Set Quartz specific configuration that we don't want accessible to the outside world.
         Properties props = new Properties();
         props.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
@@ -62,24 +130,41 @@ public class QuartzSchedule implements Schedule {
 
         //each creation of a Quartz scheduler will have a unique name, so that each schedule created
         //by a constructor is unique. Using the default value, or same name, would mean every time this constuctor is
-        //called, the SAME Quartz scheduler would be returned
+        //called, the SAME Quartz scheduler would be returned. A new RAM job store is empty, so it needs no clearing.
         props.setProperty("org.quartz.scheduler.instanceName", UUID.randomUUID().toString());
-        try {
-            SchedulerFactory factory = new StdSchedulerFactory(props);
-            scheduler = factory.getScheduler();
-            scheduler.clear();
-        } catch (SchedulerException e) {
-            LOGGER.error("Unable to create schedule", e);
+        SchedulerFactory factory = new StdSchedulerFactory(props);
+        Scheduler created = factory.getScheduler();
+        FireJob job = new FireJob(registry, dispatcher);
+        created.setJobFactory((bundle, sched) -> job);
+        created.addJob(JobBuilder.newJob(FireJob.class).withIdentity(PUBLISH_JOB).storeDurably().build(), true);
+        if (started) {
+            created.start();
+        }
+        if (paused) {
+            created.pauseAll();
         }
+        scheduler = created;
+        LOGGER.debug("Created Quartz scheduler");
+        return scheduler;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public boolean start() {
+    public synchronized boolean start() {
         try {
-            scheduler.start();
+            dispatcher.start();
+            timer.start();
+            if (highResolutionTimer.size() > 0) {
+                highResolutionTimer.start();
+            }
+            events.start();
+            watchdog.start();
+            started = true;
+            if (scheduler != null) {
+                scheduler.start();
+            }
             return true;
         } catch (SchedulerException e) {
             LOGGER.error("Unable to start schedule", e);
@@ -91,9 +176,15 @@ public class QuartzSchedule implements Schedule {
      * {@inheritDoc}
      */
     @Override
-    public boolean suspend() {
+    public synchronized boolean suspend() {
         try {
-            scheduler.pauseAll();
+            paused = true;
+            if (scheduler != null) {
+                scheduler.pauseAll();
+            }
+            timer.setPaused(true);
+            highResolutionTimer.setPaused(true);
+            events.setPaused(true);
             return true;
         } catch (SchedulerException e) {
             LOGGER.error("Unable to suspend schedule", e);
@@ -105,9 +196,15 @@ public class QuartzSchedule implements Schedule {
      * {@inheritDoc}
      */
     @Override
-    public boolean resume() {
+    public synchronized boolean resume() {
         try {
-            scheduler.resumeAll();
+            paused = false;
+            if (scheduler != null) {
+                scheduler.resumeAll();
+            }
+            timer.setPaused(false);
+            highResolutionTimer.setPaused(false);
+            events.setPaused(false);
             return true;
         } catch (SchedulerException e) {
             LOGGER.error("Unable to resume schedule", e);
@@ -115,13 +212,71 @@ public class QuartzSchedule implements Schedule {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Quartz triggers of the group keep running; fires are dropped by the publisher while the group is suspended.
+     */
+    @Override
+    public boolean suspendGroup(String triggerGroup) {
+        if (triggerGroup == null) {
+            return false;
+        }
+        registry.setGroupSuspended(triggerGroup, true);
+        LOGGER.info("Suspended trigger group {}", triggerGroup);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resumeGroup(String triggerGroup) {
+        if (triggerGroup == null) {
+            return false;
+        }
+        registry.setGroupSuspended(triggerGroup, false);
+        LOGGER.info("Resumed trigger group {}", triggerGroup);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean suspendTrigger(String triggerId, String triggerGroup) {
+        return registry.setTriggerSuspended(triggerGroup, triggerId, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resumeTrigger(String triggerId, String triggerGroup) {
+        return registry.setTriggerSuspended(triggerGroup, triggerId, false);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean stop() {
         try {
-            scheduler.shutdown(true);
+            Scheduler quartz;
+            synchronized (this) {
+                quartz = scheduler;
+                started = false;
+            }
+            if (quartz != null) {
+                quartz.shutdown(true);
+            }
+            timer.close();
+            highResolutionTimer.close();
+            events.close();
+            watchdog.close();
+            dispatcher.close();
+            publisher.close();
+            registry.clear();
             return true;
         } catch (SchedulerException e) {
             LOGGER.error("Unable to stop schedule", e);
@@ -134,17 +289,30 @@ public class QuartzSchedule implements Schedule {
      */
     @Override
     public boolean checkJobExists(String triggerId, String triggerGroup) {
-        try {
-            return scheduler.checkExists(new TriggerKey(triggerId, triggerGroup));
-        }
-        catch (SchedulerException e) {
-            LOGGER.error("Unable to create trigger key with {}:{}", triggerId, triggerGroup, e);
-            return false;
+        // aliases of equivalent triggers have no Quartz trigger of their own, so look in the registry
+        return triggerId != null && triggerGroup != null && registry.get(triggerGroup, triggerId) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addCalendar(ExclusionCalendar calendar) {
+        if (calendar == null || !calendar.isValid()) {
+            LOGGER.error("Received invalid calendar {}", calendar);
+            return;
         }
+        registry.defineCalendar(calendar, clock.getZone());
+        LOGGER.debug("Defined calendar {}", calendar);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Quartz fires wall clock triggers with a whole number of milliseconds. Triggers with a monotonic timing or an
+     * interval Quartz cannot represent are fired by a {@link MonotonicTimer}, at a fixed rate unless configured
+     * otherwise. Adaptive triggers are always fired by a {@link MonotonicTimer} with a fixed delay, which it reads from
+     * the trigger's {@link AdaptiveInterval} after every fire.
      */
     @Override
     public void scheduleIntervalTrigger(IntervalTrigger config, String creatorName) {
@@ -155,41 +323,55 @@ public class QuartzSchedule implements Schedule {
         LOGGER.debug("Adding Trigger = {}", config);
 
         try {
-            long intervalInMillis = TimeUnit.MILLISECONDS.convert(config.getInterval(), config.getUnit());
-
-            JobDataMap jobMap = new JobDataMap();
-            jobMap.put("params", config.getParams());
-
-            JobDetail job = JobBuilder
-                    .newJob(TriggerPublisher.class)
-                    .withIdentity(config.getId(), creatorName)
-                    .usingJobData("publishChannel", config.getPublishChannel())
-                    .usingJobData(jobMap)
-                    .usingJobData("cmd", config.getCmd())
-                    .build();
+            long intervalNanos = config.getIntervalNanos();
+            if (intervalNanos < 1) {
+                throw new IllegalArgumentException("Invalid interval " + config.getInterval() + " " + config.getUnit());
+            }
+            if (intervalNanos < TimeUnit.MICROSECONDS.toNanos(ConfigConstants.HIGH_RESOLUTION_THRESHOLD_MICROS)) {
+                scheduleMonotonic(config, creatorName, intervalNanos, highResolutionTimer);
+                return;
+            }
+            if (config.getAdaptive() != null || config.getTiming() != IntervalTiming.WALL_CLOCK
+                    || intervalNanos % TimeUnit.MILLISECONDS.toNanos(1) != 0) {
+                scheduleMonotonic(config, creatorName, intervalNanos, timer);
+                return;
+            }
+            schedule(config, creatorName, TimeUnit.NANOSECONDS.toMillis(intervalNanos), clock.millis());
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Unable to create trigger = {}, creatorName = {}", config, creatorName, e);
+        }
+    }
 
-            SimpleTrigger trigger = newTrigger()
-                    .withIdentity(config.getId(), creatorName)
-                    .startNow()
-                    .withSchedule(simpleSchedule().withIntervalInMilliseconds(intervalInMillis).repeatForever())
-                    .build();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void scheduleRangeTrigger(RangeTrigger config, String creatorName) {
+        if (config == null) {
+            LOGGER.error("Received null config object");
+            return;
+        }
+        LOGGER.debug("Adding Trigger = {}", config);
 
-            Date nextFireTime = scheduler.scheduleJob(job, trigger);
-            LOGGER.debug("{}", scheduler.checkExists(job.getKey()));
+        try {
+            //The start date must be AFTER the current time. Setting a trigger with a date in the past will cause the
+            //trigger to fire immediately when the scheduler starts.
+            long startMillis = config.getNextFireMillis(clock);
+            LOGGER.debug("Setting daily trigger for {} starting at {}", config.getId(), Instant.ofEpochMilli(startMillis));
 
-            LOGGER.info("Date from schedule job = {}", nextFireTime);
+            schedule(config, creatorName, DAY_MILLIS, startMillis);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Unable to create trigger = {}, creatorName = {}", config, creatorName, e);
-        } catch (SchedulerException e) {
-            LOGGER.error("Unable to schedule trigger = {}", config, e);
         }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The source channel is subscribed to when the schedule starts, or right away if it already started.
      */
     @Override
-    public void scheduleRangeTrigger(RangeTrigger config, String creatorName) {
+    public void scheduleEventTrigger(EventTrigger config, String creatorName) {
         if (config == null) {
             LOGGER.error("Received null config object");
             return;
@@ -197,39 +379,156 @@ public class QuartzSchedule implements Schedule {
         LOGGER.debug("Adding Trigger = {}", config);
 
         try {
-            //Build a date object for the Quartz Scheduler from the trigger time for the range trigger. Need to make
-            //sure the date that comes out is AFTER the current time. Setting a trigger with a date in the past will
-            //cause the trigger to fire immediately when the scheduler starts.
-            LocalDateTime localDate = LocalDateTime.of(LocalDate.now(), config.getTriggerTime());
-            if (localDate.isBefore(LocalDateTime.now())) {
-                localDate = localDate.plusDays(1);
+            if (config.getSourceChannel() == null) {
+                throw new IllegalArgumentException("No source channel");
+            }
+            URI source = URI.create(config.getSourceChannel());
+            long startMillis = clock.millis();
+            ScheduledTrigger scheduled = registry.register(config, creatorName, 0, startMillis);
+            if (scheduled == null) {
+                LOGGER.error("Trigger {} is already scheduled in group {}", config.getId(), creatorName);
+                return;
             }
-            Date date = Date.from(localDate.atZone(ZoneId.systemDefault()).toInstant());
-            LOGGER.info("Setting daily trigger for {} starting at {}", config.getId(), date);
-
-            JobDataMap jobMap = new JobDataMap();
-            jobMap.put("params", config.getParams());
-
-            JobDetail job = JobBuilder
-                    .newJob(TriggerPublisher.class)
-                    .withIdentity(config.getId(), creatorName)
-                    .usingJobData("publishChannel", config.getPublishChannel())
-                    .usingJobData(jobMap)
-                    .usingJobData("cmd", config.getCmd())
-                    .build();
-
-            SimpleTrigger trigger = newTrigger()
-                    .withIdentity(config.getId(), creatorName)
-                    .startAt(date)
-                    .withSchedule(simpleSchedule().withIntervalInHours(24).repeatForever())
-                    .build();
-
-            Date nextFireTime = scheduler.scheduleJob(job, trigger);
-            LOGGER.info("Date from schedule job = {}", nextFireTime);
+            events.add(source, new EventGate(scheduled, config, System.nanoTime()));
+            FlightEvents.scheduled(scheduled, "event", 0, startMillis);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Unable to create trigger = {}, creatorName = {}", config, creatorName, e);
+        }
+    }
+
+    /**
+     * Register a trigger and, unless it is equivalent to an already scheduled trigger, add a Quartz trigger for it that
+     * fires the shared publish job. The trigger is resolved
+     * into a {@link ScheduledTrigger} once here instead of on every fire.
+     *
+     * @param config the trigger configuration
+     * @param creatorName the group of the trigger
+     * @param intervalMillis repeat interval of the trigger
+     * @param startMillis epoch time of the first fire
+     * @throws IllegalArgumentException if the trigger cannot be resolved, e.g. its publish channel is not a valid URI
+     */
+    private void schedule(BaseTrigger config, String creatorName, long intervalMillis, long startMillis) {
+        SimpleTrigger trigger = newTrigger()
+                .withIdentity(config.getId(), creatorName)
+                .forJob(PUBLISH_JOB)
+                .startAt(new Date(startMillis))
+                .withSchedule(simpleSchedule().withIntervalInMilliseconds(intervalMillis).repeatForever())
+                .build();
+
+        ScheduledTrigger scheduled = registry.register(config, creatorName, intervalMillis, startMillis);
+        if (scheduled == null) {
+            LOGGER.error("Trigger {} is already scheduled in group {}", config.getId(), creatorName);
+            return;
+        }
+        if (scheduled.isAlias()) {
+            LOGGER.debug("Trigger {} is equivalent to {} and shares its job", config.getId(), scheduled.getPrimary().getId());
+            FlightEvents.scheduled(scheduled, "quartz", intervalMillis, startMillis);
+            return;
+        }
+
+        try {
+            Date nextFireTime = quartz().scheduleJob(trigger);
+            LOGGER.debug("Date from schedule job = {}", nextFireTime);
+            FlightEvents.scheduled(scheduled, "quartz", intervalMillis, startMillis);
         } catch (SchedulerException e) {
+            registry.remove(creatorName, config.getId());
             LOGGER.error("Unable to schedule trigger = {}", config, e);
         }
     }
+
+    /**
+     * Register an interval trigger and, unless it is equivalent to an already scheduled trigger, add it to a
+     * monotonic timer
+     *
+     * @param config the trigger configuration
+     * @param creatorName the group of the trigger
+     * @param intervalNanos repeat interval of the trigger, in nanoseconds
+     * @param timer the timer firing the trigger
+     * @throws IllegalArgumentException if the trigger cannot be resolved, e.g. its publish channel is not a valid URI
+     */
+    private void scheduleMonotonic(IntervalTrigger config, String creatorName, long intervalNanos, MonotonicTimer timer) {
+        long startMillis = clock.millis();
+        ScheduledTrigger scheduled = registry.register(config, creatorName, TimeUnit.NANOSECONDS.toMillis(intervalNanos),
+                startMillis);
+        if (scheduled == null) {
+            LOGGER.error("Trigger {} is already scheduled in group {}", config.getId(), creatorName);
+            return;
+        }
+        FlightEvents.scheduled(scheduled, timer == highResolutionTimer ? "high-resolution" : "monotonic",
+                TimeUnit.NANOSECONDS.toMillis(intervalNanos), startMillis);
+        if (scheduled.isAlias()) {
+            LOGGER.debug("Trigger {} is equivalent to {} and shares its timer", config.getId(), scheduled.getPrimary().getId());
+            return;
+        }
+        IntervalTiming timing = config.getTiming() != IntervalTiming.WALL_CLOCK ? config.getTiming() : IntervalTiming.FIXED_RATE;
+        if (scheduled.getAdaptive() != null) {
+            timing = IntervalTiming.FIXED_DELAY;
+            intervalNanos = scheduled.getAdaptive().getIntervalNanos();
+        }
+        timer.add(scheduled, intervalNanos, timing);
+        synchronized (this) {
+            if (started) {
+                timer.start();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LagWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TriggerCounters getCounters() {
+        return registry.getCounters();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the dispatcher queueing the fires of the schedule
+     */
+    Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return the timer firing the monotonic interval triggers of the schedule
+     */
+    MonotonicTimer getTimer() {
+        return timer;
+    }
+
+    /**
+     * @return the timer firing the high resolution interval triggers of the schedule
+     */
+    MonotonicTimer getHighResolutionTimer() {
+        return highResolutionTimer;
+    }
+
+    /**
+     * @return the subscriptions firing the event triggers of the schedule
+     */
+    EventSources getEvents() {
+        return events;
+    }
+
+    /**
+     * @return the registry holding the scheduled triggers
+     */
+    TriggerRegistry getRegistry() {
+        return registry;
+    }
 }
@@ -17,38 +17,75 @@
 package com.intel.icecp.scheduler.schedule.quartz;
 
 import com.intel.icecp.core.Channel;
+import com.intel.icecp.core.Message;
 import com.intel.icecp.core.Node;
+import com.intel.icecp.core.messages.BytesMessage;
 import com.intel.icecp.core.metadata.Persistence;
+import com.intel.icecp.core.metadata.formats.BytesFormat;
 import com.intel.icecp.core.misc.ChannelIOException;
 import com.intel.icecp.core.misc.ChannelLifetimeException;
-import com.intel.icecp.node.utils.ChannelUtils;
 import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.rpc.CommandResponse;
 import com.intel.icecp.scheduler.SchedulerModule;
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.schedule.AdaptiveInterval;
+import com.intel.icecp.scheduler.schedule.FireEventLog;
+import com.intel.icecp.scheduler.schedule.FireHandler;
+import com.intel.icecp.scheduler.schedule.FlightEvents;
+import com.intel.icecp.scheduler.schedule.LocalFirePublisher;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.trigger.AdaptiveFeedback;
+import com.intel.icecp.scheduler.trigger.FireDelivery;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.quartz.Job;
-import org.quartz.JobDataMap;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobExecutionException;
 
 import java.net.URI;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
- * Class used to publish messages from events triggered by
- * 
+ * Class used to publish messages from events triggered by Quartz.
+ * <p>
+ * A single instance is shared by all triggers of a {@link QuartzSchedule}, so the publish channels it opens are reused
+ * across fires. In steady state a fire only looks up the cached channel and publishes the request prepared when the
+ * trigger was scheduled.
+ * <p>
+ * A trigger with several publish channels fires once; the same request or payload is published on its extra channels
+ * in parallel on a small fan-out pool while the firing thread publishes on the first one. The outcome of every publish
+ * is counted per channel, see {@link #getChannelStats()}.
+ * <p>
+ * Fires are also handed to a {@link LocalFirePublisher} for subscribers in the same JVM before they are published on
+ * the channels, unless the trigger's {@link FireDelivery} is {@link FireDelivery#CHANNELS}. Fires of triggers
+ * delivered {@link FireDelivery#LOCAL} only are not published at all.
+ * <p>
+ * The outcome of publishing a fire of an adaptive trigger is fed back to its {@link AdaptiveInterval}. Triggers
+ * adapting to command responses have their response channel subscribed to on their first fire.
  */
-//***NOTE*** This needs to be a public class so Quartz can instantiate it.
-public class TriggerPublisher implements Job {
-    private static final Logger LOGGER = LogManager.getLogger(TriggerPublisher.class);
-    protected static final String URI_SUFFIX = "$cmd";
-    private final Node pubNode;
+public class TriggerPublisher implements FireHandler, AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final Supplier<Node> nodeSupplier;
+    private final ChannelCache<CommandRequest> requestChannels;
+    private final ChannelCache<BytesMessage> payloadChannels;
+    private final FireEventLog fireLog;
+    private final LocalFirePublisher local;
+    private final ConcurrentMap<URI, ChannelStats> channelStats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<URI, Channel<CommandResponse>> responseChannels = new ConcurrentHashMap<>();
+    private final ExecutorService fanout;
 
     /**
-     * Constructor. ***NOTE*** Instances implementing Job interface must have a public no-argument constructor
+     * Constructor; channels are opened on the node of the running module
      */
     public TriggerPublisher() {
-        this.pubNode = SchedulerModule.getNode();
+        this(SchedulerModule::getNode, FireEventLog.getDefault(), LocalFirePublisher.getDefault());
     }
 
     /**
@@ -57,45 +94,311 @@ public class TriggerPublisher implements Job {
      * @param node Node used to open publish channel and send message
      */
     TriggerPublisher(Node node) {
-        this.pubNode = node;
+        this(node, FireEventLog.getDefault());
     }
 
     /**
-     * Operation to perform when a Quartz trigger is fired.
+     * Constructor
+     *
+     * @param node Node used to open publish channel and send message
+     * @param fireLog log fire events are recorded in
+     */
+    TriggerPublisher(Node node, FireEventLog fireLog) {
+        this(node, fireLog, new LocalFirePublisher(Runnable::run, 1));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param node Node used to open publish channel and send message
+     * @param fireLog log fire events are recorded in
+     * @param local publisher delivering fires to subscribers in the same JVM
+     */
+    TriggerPublisher(Node node, FireEventLog fireLog, LocalFirePublisher local) {
+        this(() -> node, fireLog, local);
+    }
+
+    private TriggerPublisher(Supplier<Node> nodeSupplier, FireEventLog fireLog, LocalFirePublisher local) {
+        this.nodeSupplier = nodeSupplier;
+        this.requestChannels = new ChannelCache<>(nodeSupplier, CommandRequest.class);
+        this.payloadChannels = new ChannelCache<>(nodeSupplier, BytesMessage.class, new BytesFormat());
+        this.fireLog = fireLog;
+        this.local = local;
+        // the pool starts its threads on the first multi-channel fire
+        AtomicInteger threads = new AtomicInteger();
+        this.fanout = Executors.newFixedThreadPool(Math.max(1, ConfigConstants.FANOUT_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-fanout-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publish the command request, or the pre-encoded payload, of a fired trigger on each of its channels. The fire is
+     * counted and logged for the trigger and each of its aliases, but published only once per channel; it is logged as
+     * failed if publishing on any channel failed. Nothing is published while the group is suspended, or while the
+     * trigger and all its aliases are suspended. A fire delivered only locally is counted as skipped if no local
+     * subscriber accepted it.
      *
-     * @param ctx Context associated with the trigger that fired
-     * @throws JobExecutionException Thrown if unable process trigger event
+     * @param trigger the trigger that fired
      */
     @Override
-    public void execute(JobExecutionContext ctx) throws JobExecutionException {
-        //Get the publish channel out of the details, and then remove that property. The publishChannel info does not
-        //need to be sent across the wire as a part of the message.
-        JobDataMap jobDetailMap = ctx.getJobDetail().getJobDataMap();
-        String pubChannelName = jobDetailMap.getString("publishChannel");
-        jobDetailMap.remove("publishChannel");
-        String cmd = jobDetailMap.getString("cmd");
-        // TODO: This cannot take non string parameters. Passing a non string parameter will cause RPC to throw a casting error.
-        Map<String, Object> params = (Map<String, Object>) jobDetailMap.get("params");
-        CommandRequest request;
-        if (params != null) {
-            request = CommandRequest.from(cmd, params);
+    public void fire(ScheduledTrigger trigger) {
+        if (trigger.isGroupSuspended() || (trigger.isSuspended() && allSuspended(trigger.getAliases()))) {
+            trigger.countSkippedWithAliases(1);
+            return;
+        }
+
+        FireDelivery delivery = trigger.getDelivery();
+        boolean delivered = delivery != FireDelivery.CHANNELS && local.offer(trigger);
+        if (delivery == FireDelivery.LOCAL) {
+            // in-process only: no channel is opened or published on, so the fire cannot fail, but it is skipped if no
+            // local subscriber took it
+            if (!delivered) {
+                trigger.countSkippedWithAliases(1);
+                return;
+            }
+            record(trigger, null);
+            for (ScheduledTrigger alias : trigger.getAliases()) {
+                record(alias, null);
+            }
+            return;
+        }
+
+        AdaptiveInterval adaptive = trigger.getAdaptive();
+        long startNanos = 0;
+        if (adaptive != null) {
+            if (adaptive.getFeedback() == AdaptiveFeedback.RESPONSE) {
+                subscribeResponses(trigger.getRequest().responseUri, adaptive);
+            }
+            startNanos = System.nanoTime();
+            adaptive.onPublishing(startNanos);
+        }
+
+        Exception failure;
+        if (trigger.getPayload() != null) {
+            failure = publish(payloadChannels, trigger.getChannels(), trigger, trigger.getPayload());
+        } else {
+            failure = publish(requestChannels, trigger.getChannels(), trigger, trigger.getRequest());
+        }
+        if (adaptive != null) {
+            adaptive.onPublished(failure == null, startNanos, System.nanoTime());
+        }
+
+        record(trigger, failure);
+        for (ScheduledTrigger alias : trigger.getAliases()) {
+            record(alias, failure);
+        }
+    }
+
+    /**
+     * Subscribe to the response channel of an adaptive trigger's requests, unless already subscribed. If subscribing
+     * fails, the unanswered fires back the trigger off and the next fire tries again.
+     */
+    private void subscribeResponses(URI uri, AdaptiveInterval adaptive) {
+        if (uri == null || responseChannels.containsKey(uri)) {
+            return;
+        }
+        synchronized (responseChannels) {
+            if (responseChannels.containsKey(uri)) {
+                return;
+            }
+            Node node = nodeSupplier.get();
+            if (node == null) {
+                LOGGER.error("No node available to subscribe to responses on {}", uri);
+                return;
+            }
+            Object event = FlightEvents.beginChannelOpen();
+            try {
+                Channel<CommandResponse> channel = node.openChannel(uri, CommandResponse.class, Persistence.DEFAULT);
+                FlightEvents.endChannelOpen(event, uri, CommandResponse.class, true);
+                channel.subscribe(response -> adaptive.onResponse(response.err, System.nanoTime()));
+                responseChannels.put(uri, channel);
+                LOGGER.debug("Subscribed to responses on {}", uri);
+            } catch (ChannelLifetimeException | ChannelIOException e) {
+                FlightEvents.endChannelOpen(event, uri, CommandResponse.class, false);
+                LOGGER.error("Unable to subscribe to responses on {}", uri, e);
+            }
+        }
+    }
+
+    private static boolean allSuspended(ScheduledTrigger[] triggers) {
+        for (ScheduledTrigger trigger : triggers) {
+            if (!trigger.isSuspended()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void record(ScheduledTrigger trigger, Exception failure) {
+        if (trigger.isSuspended()) {
+            trigger.countSkipped(1);
+            return;
+        }
+        long fireCount = trigger.countFire();
+        trigger.countOutcome(failure == null);
+        if (failure == null) {
+            fireLog.fired(trigger, fireCount);
         } else {
-            request = CommandRequest.from(cmd);
+            fireLog.failed(trigger, fireCount, failure);
+        }
+    }
+
+    /**
+     * Publish on the first channel in the calling thread and on the others in parallel on the fan-out pool
+     *
+     * @return null if the message was published on every channel, else the cause of the first failure
+     */
+    private <T extends Message> Exception publish(ChannelCache<T> channels, URI[] uris, ScheduledTrigger trigger, T message) {
+        if (uris.length == 1) {
+            return count(uris[0], publish(channels, uris[0], trigger, message));
         }
-        publishMessage(request, URI.create(pubChannelName));
 
-        LOGGER.info("Next fire date for trigger {} is {}", ctx.getJobDetail().getKey().getName(), ctx.getNextFireTime());
+        List<CompletableFuture<Exception>> others = new ArrayList<>(uris.length - 1);
+        for (int i = 1; i < uris.length; i++) {
+            URI uri = uris[i];
+            others.add(CompletableFuture.supplyAsync(() -> count(uri, publish(channels, uri, trigger, message)), fanout));
+        }
+
+        Exception failure = count(uris[0], publish(channels, uris[0], trigger, message));
+        for (CompletableFuture<Exception> other : others) {
+            Exception otherFailure = other.exceptionally(e -> e instanceof Exception ? (Exception) e : new Exception(e)).join();
+            if (failure == null) {
+                failure = otherFailure;
+            }
+        }
+        return failure;
     }
 
-    private void publishMessage(CommandRequest request, URI pubChannelName) {
-        URI publishChannel = pubChannelName;
-        if (request.name != null && !request.name.isEmpty()) {
-            publishChannel = ChannelUtils.join(pubChannelName, URI_SUFFIX);
+    private Exception count(URI uri, Exception failure) {
+        ChannelStats stats = channelStats.get(uri);
+        if (stats == null) {
+            stats = channelStats.computeIfAbsent(uri, ChannelStats::new);
         }
-        try (Channel<CommandRequest> requestChannel = pubNode.openChannel(publishChannel, CommandRequest.class, Persistence.DEFAULT)) {
-            requestChannel.publish(request);
-        } catch (ChannelLifetimeException | ChannelIOException e) {
-            LOGGER.error("Command request failed, no channel available for request: {}", request, e);
+        (failure == null ? stats.published : stats.failed).increment();
+        return failure;
+    }
+
+    /**
+     * @return the publish outcomes of every channel published on so far
+     */
+    public List<ChannelStats> getChannelStats() {
+        return new ArrayList<>(channelStats.values());
+    }
+
+    /**
+     * @return the publish outcomes of every channel published on so far, as reported in the scheduler metrics
+     */
+    public List<MetricsMessage.ChannelMetrics> getChannelMetrics() {
+        List<MetricsMessage.ChannelMetrics> metrics = new ArrayList<>(channelStats.size());
+        for (ChannelStats stats : channelStats.values()) {
+            metrics.add(new MetricsMessage.ChannelMetrics(stats.getChannel(), stats.getPublished(), stats.getFailed()));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return number of publishes that found their channel already open
+     */
+    public long getChannelHits() {
+        return requestChannels.getHits() + payloadChannels.getHits();
+    }
+
+    /**
+     * @return number of publishes that had to open their channel
+     */
+    public long getChannelMisses() {
+        return requestChannels.getMisses() + payloadChannels.getMisses();
+    }
+
+    /**
+     * @param channel a publish channel
+     * @return the publish outcomes of the channel, or null if nothing was published on it
+     */
+    public ChannelStats getChannelStats(URI channel) {
+        return channelStats.get(channel);
+    }
+
+    /**
+     * @return null if the message was published, else the cause of the failure
+     */
+    private static <T extends Message> Exception publish(ChannelCache<T> channels, URI uri, ScheduledTrigger trigger, T message) {
+        Channel<T> channel;
+        try {
+            channel = channels.get(uri);
+        } catch (ChannelLifetimeException e) {
+            return e;
+        }
+
+        Object event = FlightEvents.beginPublish();
+        try {
+            channel.publish(message);
+            FlightEvents.endPublish(event, trigger, uri, true);
+            return null;
+        } catch (ChannelIOException e) {
+            FlightEvents.endPublish(event, trigger, uri, false);
+            channels.evict(uri);
+            return e;
+        }
+    }
+
+    /**
+     * Close all publish and response channels opened by this publisher
+     */
+    @Override
+    public void close() {
+        fanout.shutdown();
+        requestChannels.close();
+        payloadChannels.close();
+        synchronized (responseChannels) {
+            for (Channel<CommandResponse> channel : responseChannels.values()) {
+                try {
+                    channel.close();
+                } catch (ChannelLifetimeException e) {
+                    LOGGER.error("Unable to close response channel {}", channel.getName(), e);
+                }
+            }
+            responseChannels.clear();
+        }
+    }
+
+    /**
+     * Outcomes of the publishes on one channel
+     */
+    public static final class ChannelStats {
+        private final URI channel;
+        private final LongAdder published = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private ChannelStats(URI channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return the publish channel
+         */
+        public URI getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return number of messages published on the channel
+         */
+        public long getPublished() {
+            return published.sum();
+        }
+
+        /**
+         * @return number of publishes on the channel that failed
+         */
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelStats{channel=" + channel + ", published=" + getPublished() + ", failed=" + getFailed() + '}';
         }
     }
-}
\ No newline at end of file
+}
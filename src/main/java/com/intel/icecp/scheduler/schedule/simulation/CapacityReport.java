@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.simulation;
+
+import com.intel.icecp.scheduler.schedule.ScheduledFireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fire density of a simulated schedule, collected by {@link CapacitySimulator}. Load is measured in published
+ * messages: equivalent triggers fire together but publish once, so they count once per fire towards the density,
+ * bursts and channel load, while {@link #getFires()} counts every trigger.
+ */
+public final class CapacityReport implements ScheduledFireHandler {
+    /**
+     * Window lengths, in seconds, of the reported worst-case bursts
+     */
+    public static final int[] BURST_WINDOWS = {1, 10, 60};
+    private static final int TOP_CHANNELS = 10;
+
+    private final long startMillis;
+    private final Duration duration;
+    private final int[] perSecond;
+    private final Map<URI, ChannelLoad> channels = new HashMap<>();
+    private long fires;
+    private long publishes;
+
+    CapacityReport(long startMillis, Duration duration) {
+        this.startMillis = startMillis;
+        this.duration = duration;
+        this.perSecond = new int[Math.toIntExact(duration.getSeconds()) + 1];
+    }
+
+    @Override
+    public void fire(ScheduledTrigger trigger, long scheduledMillis) {
+        int second = (int) ((scheduledMillis - startMillis) / 1000);
+        URI[] published = trigger.getChannels();
+        perSecond[second] += published.length;
+        publishes += published.length;
+        fires += 1 + trigger.getAliases().length;
+        for (URI channel : published) {
+            channels.computeIfAbsent(channel, ChannelLoad::new).record(second);
+        }
+    }
+
+    /**
+     * @return the simulated period
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return number of trigger fires, counting every equivalent trigger
+     */
+    public long getFires() {
+        return fires;
+    }
+
+    /**
+     * @return number of published messages
+     */
+    public long getPublishes() {
+        return publishes;
+    }
+
+    /**
+     * @return the highest number of messages published within one second
+     */
+    public int getPeakPerSecond() {
+        return perSecond[peakSecond()];
+    }
+
+    /**
+     * @return epoch time of the first second with the highest number of published messages
+     */
+    public long getPeakSecondMillis() {
+        return startMillis + peakSecond() * 1000L;
+    }
+
+    private int peakSecond() {
+        int peak = 0;
+        for (int i = 1; i < perSecond.length; i++) {
+            if (perSecond[i] > perSecond[peak]) {
+                peak = i;
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * @param windowSeconds length of the window in seconds
+     * @return the highest number of messages published within any window of that length
+     */
+    public long getWorstBurst(int windowSeconds) {
+        long sum = 0;
+        long worst = 0;
+        for (int i = 0; i < perSecond.length; i++) {
+            sum += perSecond[i];
+            if (i >= windowSeconds) {
+                sum -= perSecond[i - windowSeconds];
+            }
+            worst = Math.max(worst, sum);
+        }
+        return worst;
+    }
+
+    /**
+     * Histogram of the number of messages published per second. Bucket 0 counts the seconds without any publish,
+     * bucket k &gt; 0 counts the seconds with 2^(k-1) to 2^k - 1 publishes.
+     *
+     * @return number of seconds per bucket, up to the highest non-empty bucket
+     */
+    public long[] getDensityHistogram() {
+        long[] buckets = new long[33];
+        int highest = 0;
+        for (int count : perSecond) {
+            int bucket = 32 - Integer.numberOfLeadingZeros(count);
+            buckets[bucket]++;
+            highest = Math.max(highest, bucket);
+        }
+        long[] histogram = new long[highest + 1];
+        System.arraycopy(buckets, 0, histogram, 0, histogram.length);
+        return histogram;
+    }
+
+    /**
+     * @return load of every channel published on, highest peak per second first
+     */
+    public List<ChannelLoad> getChannels() {
+        List<ChannelLoad> loads = new ArrayList<>(channels.values());
+        loads.sort(Comparator.comparingInt(ChannelLoad::getPeakPerSecond).reversed()
+                .thenComparing(Comparator.comparingLong(ChannelLoad::getPublishes).reversed()));
+        return loads;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append("Simulated ").append(duration).append(" from ").append(Instant.ofEpochMilli(startMillis)).append('\n');
+        report.append("Trigger fires: ").append(fires).append(", published messages: ").append(publishes).append('\n');
+        report.append("Peak publishes per second: ").append(getPeakPerSecond())
+                .append(" at ").append(Instant.ofEpochMilli(getPeakSecondMillis())).append('\n');
+        report.append("Worst bursts:");
+        for (int window : BURST_WINDOWS) {
+            report.append(' ').append(window).append("s=").append(getWorstBurst(window));
+        }
+        report.append('\n');
+
+        report.append("Seconds by publishes per second:\n");
+        long[] histogram = getDensityHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            String range = i == 0 ? "0" : i == 1 ? "1" : (1L << (i - 1)) + "-" + ((1L << i) - 1);
+            report.append(String.format("  %-12s %d%n", range, histogram[i]));
+        }
+
+        report.append("Channel hot spots:\n");
+        List<ChannelLoad> loads = getChannels();
+        for (ChannelLoad load : loads.subList(0, Math.min(TOP_CHANNELS, loads.size()))) {
+            report.append("  ").append(load).append('\n');
+        }
+        if (loads.size() > TOP_CHANNELS) {
+            report.append("  ... ").append(loads.size() - TOP_CHANNELS).append(" more channels\n");
+        }
+        return report.toString();
+    }
+
+    /**
+     * Publish load of one channel
+     */
+    public final class ChannelLoad {
+        private final URI channel;
+        private long publishes;
+        private int currentSecond = -1;
+        private int currentCount;
+        private int peakPerSecond;
+        private int peakSecond;
+
+        private ChannelLoad(URI channel) {
+            this.channel = channel;
+        }
+
+        // fires are delivered in time order, so counting the current second is enough to find the peak
+        private void record(int second) {
+            if (second != currentSecond) {
+                currentSecond = second;
+                currentCount = 0;
+            }
+            publishes++;
+            if (++currentCount > peakPerSecond) {
+                peakPerSecond = currentCount;
+                peakSecond = second;
+            }
+        }
+
+        /**
+         * @return the channel
+         */
+        public URI getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return number of messages published on the channel
+         */
+        public long getPublishes() {
+            return publishes;
+        }
+
+        /**
+         * @return the highest number of messages published on the channel within one second
+         */
+        public int getPeakPerSecond() {
+            return peakPerSecond;
+        }
+
+        /**
+         * @return epoch time of the first second with the highest number of messages published on the channel
+         */
+        public long getPeakSecondMillis() {
+            return startMillis + peakSecond * 1000L;
+        }
+
+        @Override
+        public String toString() {
+            return channel + " publishes=" + publishes + " peakPerSecond=" + peakPerSecond
+                    + " at " + Instant.ofEpochMilli(getPeakSecondMillis());
+        }
+    }
+}
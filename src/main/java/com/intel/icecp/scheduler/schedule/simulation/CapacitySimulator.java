@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.simulation;
+
+import com.intel.icecp.scheduler.attributes.TriggersLoader;
+import com.intel.icecp.scheduler.schedule.VirtualClock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+/**
+ * Offline capacity planning for a triggers configuration. The configuration is loaded with the same
+ * {@link TriggersLoader} the module uses, scheduled on a {@link SimulatedSchedule}, and run for a simulated period;
+ * the resulting {@link CapacityReport} shows the fire density, worst-case bursts and channel hot spots the
+ * configuration will produce. No node is needed.
+ * <p>
+ * Range triggers pick a random time in their window when they are loaded, so their contribution varies between runs.
+ * <p>
+ * Run from the build with {@code mvn -Psimulate compile exec:java -Dsimulate.config=triggers.json
+ * -Dsimulate.duration=7d}.
+ */
+public final class CapacitySimulator {
+    private static final String GROUP = "simulation";
+    private static final Pattern SHORT_DURATION = Pattern.compile("\\d+[hHdD]");
+
+    private CapacitySimulator() {
+    }
+
+    /**
+     * Simulate a triggers configuration starting at midnight today, local time
+     *
+     * @param config the triggers configuration, as in the {@code scheduler-triggers} attribute
+     * @param duration the simulated period
+     * @return the fire density of the configuration
+     * @throws IOException if the configuration cannot be parsed
+     */
+    public static CapacityReport simulate(String config, Duration duration) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        return simulate(config, duration, LocalDate.now(zone).atStartOfDay(zone).toInstant(), zone);
+    }
+
+    /**
+     * Simulate a triggers configuration
+     *
+     * @param config the triggers configuration, as in the {@code scheduler-triggers} attribute
+     * @param duration the simulated period
+     * @param start the simulated start time
+     * @param zone time zone range triggers are scheduled in
+     * @return the fire density of the configuration
+     * @throws IOException if the configuration cannot be parsed
+     */
+    public static CapacityReport simulate(String config, Duration duration, Instant start, ZoneId zone) throws IOException {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        VirtualClock clock = new VirtualClock(start, zone);
+        CapacityReport report = new CapacityReport(start.toEpochMilli(), duration);
+        SimulatedSchedule schedule = new SimulatedSchedule(clock, report);
+
+        new TriggersLoader().load(config,
+                schedule::addCalendar,
+                chunk -> chunk.forEach(trigger -> schedule.scheduleRangeTrigger(trigger, GROUP)),
+                chunk -> chunk.forEach(trigger -> schedule.scheduleIntervalTrigger(trigger, GROUP)));
+        schedule.start();
+        schedule.advance(duration);
+        schedule.stop();
+        return report;
+    }
+
+    /**
+     * Parse a simulated period, either as a number of hours or days ({@code 24h}, {@code 7d}) or as an ISO-8601
+     * duration ({@code PT36H})
+     *
+     * @param value the period
+     * @return the duration
+     * @throws IllegalArgumentException if the value is not a valid period
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+        try {
+            if (SHORT_DURATION.matcher(trimmed).matches()) {
+                long amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+                return Character.toLowerCase(trimmed.charAt(trimmed.length() - 1)) == 'h' ? Duration.ofHours(amount) : Duration.ofDays(amount);
+            }
+            return Duration.parse(trimmed);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid duration: " + value, e);
+        }
+    }
+
+    /**
+     * Print the capacity report of a triggers configuration file
+     *
+     * @param args path of the configuration file and, optionally, the simulated period (default 24h)
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CapacitySimulator <triggers.json> [24h|7d|ISO-8601 duration]");
+            System.exit(1);
+        }
+        String config = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        Duration duration = parseDuration(args.length > 1 ? args[1] : "24h");
+        System.out.print(simulate(config, duration));
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.simulation;
+
+import com.intel.icecp.scheduler.schedule.Schedule;
+import com.intel.icecp.scheduler.schedule.ScheduledFireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import com.intel.icecp.scheduler.schedule.VirtualClock;
+import com.intel.icecp.scheduler.trigger.BaseTrigger;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule running on a {@link VirtualClock}. Nothing fires on its own; {@link #advance(Duration)} moves the clock
+ * forward and delivers every fire due in between, in time order, to the fire handler on the calling thread. A week of
+ * schedule runs in milliseconds.
+ * <p>
+ * Triggers are registered in a {@link TriggerRegistry} exactly as in
+ * {@link com.intel.icecp.scheduler.schedule.quartz.QuartzSchedule}, so equivalent triggers share a fire, and interval
+ * and range triggers start at the same times relative to the clock. Like the Quartz schedule, fires are delivered
+ * even while a group or trigger is suspended; the handler (e.g. the publisher) skips them. Fires falling due before
+ * {@link #start()}, while the schedule is suspended, after {@link #stop()} or on a day or time excluded by the
+ * trigger's exclusion calendar are skipped.
+ */
+public class SimulatedSchedule implements Schedule {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private final VirtualClock clock;
+    private final ScheduledFireHandler handler;
+    private final TriggerRegistry registry = new TriggerRegistry();
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long sequence;
+    private boolean running;
+    private boolean suspended;
+
+    /**
+     * Constructor
+     *
+     * @param clock the virtual clock the schedule runs on
+     * @param handler handler the fires are delivered to
+     */
+    public SimulatedSchedule(VirtualClock clock, ScheduledFireHandler handler) {
+        this.clock = clock;
+        this.handler = handler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean start() {
+        running = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean suspend() {
+        suspended = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean resume() {
+        suspended = false;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean suspendGroup(String triggerGroup) {
+        if (triggerGroup == null) {
+            return false;
+        }
+        registry.setGroupSuspended(triggerGroup, true);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resumeGroup(String triggerGroup) {
+        if (triggerGroup == null) {
+            return false;
+        }
+        registry.setGroupSuspended(triggerGroup, false);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean suspendTrigger(String triggerId, String triggerGroup) {
+        return registry.setTriggerSuspended(triggerGroup, triggerId, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resumeTrigger(String triggerId, String triggerGroup) {
+        return registry.setTriggerSuspended(triggerGroup, triggerId, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean stop() {
+        running = false;
+        events.clear();
+        registry.clear();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean checkJobExists(String triggerId, String triggerGroup) {
+        return triggerId != null && triggerGroup != null && registry.get(triggerGroup, triggerId) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addCalendar(ExclusionCalendar calendar) {
+        if (calendar == null || !calendar.isValid()) {
+            LOGGER.error("Received invalid calendar {}", calendar);
+            return;
+        }
+        registry.defineCalendar(calendar, clock.getZone());
+        LOGGER.debug("Defined calendar {}", calendar);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void scheduleRangeTrigger(RangeTrigger config, String creatorName) {
+        if (config == null) {
+            LOGGER.error("Received null config object");
+            return;
+        }
+
+        try {
+            schedule(config, creatorName, DAY_MILLIS, config.getNextFireMillis(clock));
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Unable to create trigger = {}, creatorName = {}", config, creatorName, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A simulation has no consumer to give feedback, so adaptive triggers are simulated at their configured interval.
+     */
+    @Override
+    public void scheduleIntervalTrigger(IntervalTrigger config, String creatorName) {
+        if (config == null) {
+            LOGGER.error("Received null config object");
+            return;
+        }
+
+        try {
+            if (config.getUnit() == null || config.getInterval() <= 0) {
+                throw new IllegalArgumentException("Invalid interval " + config.getInterval() + " " + config.getUnit());
+            }
+            long intervalMillis = config.getUnit().toMillis(config.getInterval());
+            if (TimeUnit.MILLISECONDS.toNanos(intervalMillis) != config.getIntervalNanos()) {
+                throw new IllegalArgumentException("Interval " + config.getInterval() + " " + config.getUnit()
+                        + " cannot be simulated at millisecond resolution");
+            }
+            if (config.getAdaptive() != null) {
+                LOGGER.warn("Adaptive trigger {} is simulated at its configured interval", config.getId());
+            }
+            schedule(config, creatorName, intervalMillis, clock.millis());
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Unable to create trigger = {}, creatorName = {}", config, creatorName, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Event triggers fire on messages that are not part of a simulation, so they are ignored.
+     */
+    @Override
+    public void scheduleEventTrigger(EventTrigger config, String creatorName) {
+        LOGGER.warn("Event trigger {} cannot be simulated and is ignored", config != null ? config.getId() : null);
+    }
+
+    private synchronized void schedule(BaseTrigger config, String creatorName, long intervalMillis, long startMillis) {
+        ScheduledTrigger scheduled = registry.register(config, creatorName, intervalMillis, startMillis);
+        if (scheduled == null) {
+            LOGGER.error("Trigger {} is already scheduled in group {}", config.getId(), creatorName);
+            return;
+        }
+        if (!scheduled.isAlias()) {
+            events.add(new Event(startMillis, sequence++, scheduled));
+        }
+    }
+
+    /**
+     * Move the clock forward, delivering the fires due in between
+     *
+     * @param duration time to move forward by
+     * @return number of fires delivered to the handler
+     */
+    public long advance(Duration duration) {
+        return advanceTo(clock.millis() + duration.toMillis());
+    }
+
+    /**
+     * Move the clock forward to a given time, delivering the fires due up to and including that time. The clock is set
+     * to the due time of each fire before it is delivered.
+     *
+     * @param targetMillis epoch time to move the clock to
+     * @return number of fires delivered to the handler
+     * @throws IllegalArgumentException if the time is before the current time of the clock
+     */
+    public synchronized long advanceTo(long targetMillis) {
+        if (targetMillis < clock.millis()) {
+            throw new IllegalArgumentException("Cannot advance back to " + targetMillis);
+        }
+
+        long fires = 0;
+        Event event;
+        while ((event = events.peek()) != null && event.dueMillis <= targetMillis) {
+            events.poll();
+            ScheduledTrigger trigger = event.trigger;
+            if (registry.get(trigger.getSlot()) != trigger) {
+                continue;
+            }
+
+            clock.setMillis(Math.max(clock.millis(), event.dueMillis));
+            if (running && !suspended && !trigger.isExcluded(event.dueMillis)) {
+                handler.fire(trigger, event.dueMillis);
+                fires++;
+            }
+            event.dueMillis += registry.getIntervalMillis(trigger.getSlot());
+            events.add(event);
+        }
+        clock.setMillis(targetMillis);
+        return fires;
+    }
+
+    /**
+     * @return the virtual clock the schedule runs on
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the registry holding the scheduled triggers
+     */
+    public TriggerRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Next fire of a primary trigger; fires due at the same time are delivered in the order they were scheduled
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long sequence;
+        private final ScheduledTrigger trigger;
+        private long dueMillis;
+
+        Event(long dueMillis, long sequence, ScheduledTrigger trigger) {
+            this.dueMillis = dueMillis;
+            this.sequence = sequence;
+            this.trigger = trigger;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            int byTime = Long.compare(dueMillis, o.dueMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, o.sequence);
+        }
+    }
+}
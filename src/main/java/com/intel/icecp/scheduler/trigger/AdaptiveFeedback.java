@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+/**
+ * Signal an adaptive interval trigger backs off on, see {@link AdaptivePolicy}
+ */
+public enum AdaptiveFeedback {
+    /**
+     * Back off when publishing a fire fails
+     */
+    FAILURES,
+
+    /**
+     * Back off when publishing a fire fails or takes longer than the latency target
+     */
+    LATENCY,
+
+    /**
+     * Back off when the RPC command responds with an error or later than the latency target, if one is set; requires
+     * {@link PayloadFormat#RPC}
+     */
+    RESPONSE
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Bounds and feedback of an interval trigger whose interval adapts to its consumer (AIMD): every fire the feedback
+ * reports as congested multiplies the interval by the backoff factor, every other fire shortens it by a fixed step. The
+ * interval stays between the minimum and maximum interval. Intervals and the step are in the trigger's time unit.
+ */
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+public class AdaptivePolicy {
+    private final int minInterval;
+    private final int maxInterval;
+    private final AdaptiveFeedback feedback;
+    private final Integer step;
+    private final Double backoffFactor;
+    private final Long latencyTargetMillis;
+
+    /**
+     * Constructor
+     *
+     * @param minInterval shortest interval, used while the consumer keeps up
+     * @param maxInterval longest interval the trigger backs off to
+     * @param feedback the signal backed off on; null selects {@link AdaptiveFeedback#FAILURES}
+     * @param step amount the interval shrinks by after a fire without congestion; null selects the minimum interval
+     * @param backoffFactor factor the interval grows by after a congested fire; null selects 2
+     * @param latencyTargetMillis publish or response time above which a fire counts as congested, or null for none
+     */
+    @JsonCreator
+    public AdaptivePolicy(@JsonProperty("minInterval") int minInterval,
+                          @JsonProperty("maxInterval") int maxInterval,
+                          @JsonProperty("feedback") AdaptiveFeedback feedback,
+                          @JsonProperty("step") Integer step,
+                          @JsonProperty("backoffFactor") Double backoffFactor,
+                          @JsonProperty("latencyTargetMillis") Long latencyTargetMillis) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.feedback = feedback != null ? feedback : AdaptiveFeedback.FAILURES;
+        this.step = step;
+        this.backoffFactor = backoffFactor;
+        this.latencyTargetMillis = latencyTargetMillis;
+    }
+
+    /**
+     * @return the shortest interval
+     */
+    @JsonProperty("minInterval")
+    public int getMinInterval() {
+        return minInterval;
+    }
+
+    /**
+     * @return the longest interval
+     */
+    @JsonProperty("maxInterval")
+    public int getMaxInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * @return the signal backed off on
+     */
+    @JsonProperty("feedback")
+    public AdaptiveFeedback getFeedback() {
+        return feedback;
+    }
+
+    /**
+     * @return the amount the interval shrinks by after a fire without congestion, or null for the minimum interval
+     */
+    @JsonProperty("step")
+    public Integer getStep() {
+        return step;
+    }
+
+    /**
+     * @return the factor the interval grows by after a congested fire, or null for 2
+     */
+    @JsonProperty("backoffFactor")
+    public Double getBackoffFactor() {
+        return backoffFactor;
+    }
+
+    /**
+     * @return the publish or response time above which a fire counts as congested, or null for none
+     */
+    @JsonProperty("latencyTargetMillis")
+    public Long getLatencyTargetMillis() {
+        return latencyTargetMillis;
+    }
+
+    /**
+     * @return true if the bounds are ordered and positive and the step, factor and target are valid
+     */
+    public boolean isValid() {
+        return minInterval > 0 && maxInterval >= minInterval
+                && (step == null || step > 0)
+                && (backoffFactor == null || backoffFactor > 1)
+                && (latencyTargetMillis == null || latencyTargetMillis > 0)
+                && (feedback != AdaptiveFeedback.LATENCY || latencyTargetMillis != null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AdaptivePolicy that = (AdaptivePolicy) o;
+
+        if (minInterval != that.minInterval) return false;
+        if (maxInterval != that.maxInterval) return false;
+        if (feedback != that.feedback) return false;
+        if (step != null ? !step.equals(that.step) : that.step != null) return false;
+        if (backoffFactor != null ? !backoffFactor.equals(that.backoffFactor) : that.backoffFactor != null) return false;
+        return latencyTargetMillis != null ? latencyTargetMillis.equals(that.latencyTargetMillis) : that.latencyTargetMillis == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = minInterval;
+        result = 31 * result + maxInterval;
+        result = 31 * result + feedback.hashCode();
+        result = 31 * result + (step != null ? step.hashCode() : 0);
+        result = 31 * result + (backoffFactor != null ? backoffFactor.hashCode() : 0);
+        result = 31 * result + (latencyTargetMillis != null ? latencyTargetMillis.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePolicy{" +
+                "minInterval=" + minInterval +
+                ", maxInterval=" + maxInterval +
+                ", feedback=" + feedback +
+                ", step=" + step +
+                ", backoffFactor=" + backoffFactor +
+                ", latencyTargetMillis=" + latencyTargetMillis +
+                '}';
+    }
+}
@@ -16,8 +16,12 @@
 
 package com.intel.icecp.scheduler.trigger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -29,17 +33,35 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public abstract class BaseTrigger {
     private final String id;
     private String publishChannel;
+    private List<String> publishChannels;
     private final String cmd;
-    private final Map<String, String> params;
+    private final Map<String, Object> params;
+    private final String paramsError;
+    private PayloadFormat payloadFormat = PayloadFormat.RPC;
+    private TriggerPriority priority = TriggerPriority.NORMAL;
+    private Long deadlineMillis;
+    private String calendar;
+    private FireDelivery delivery = FireDelivery.BOTH;
 
     BaseTrigger(@JsonProperty(value = "id") String id,
                 @JsonProperty(value = "publishChannel") String publishChannel,
                 @JsonProperty(value = "cmd") String cmd,
-                @JsonProperty(value = "params") Map<String, String> params) {
+                @JsonProperty(value = "params") Map<String, Object> params) {
         this.id = id;
         this.publishChannel = publishChannel;
         this.cmd = cmd;
-        this.params = params;
+        // invalid params make the trigger invalid instead of failing to parse the whole configuration
+        Map<String, Object> frozen = null;
+        String error = null;
+        if (params != null) {
+            try {
+                frozen = TriggerParams.freeze(params);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+        }
+        this.params = frozen;
+        this.paramsError = error;
     }
 
     /**
@@ -62,6 +84,47 @@ public abstract class BaseTrigger {
         return publishChannel;
     }
 
+    /**
+     * get the additional channels the same message is published on every fire
+     *
+     * @return the additional publish channels, or null if the trigger only publishes on its publish channel
+     */
+    @JsonProperty("publishChannels")
+    public List<String> getPublishChannels() {
+        return publishChannels;
+    }
+
+    /**
+     * set the additional channels the same message is published on every fire
+     *
+     * @param publishChannels the additional publish channels, or null to only publish on the publish channel
+     */
+    @JsonProperty("publishChannels")
+    public void setPublishChannels(List<String> publishChannels) {
+        this.publishChannels = publishChannels != null ? Collections.unmodifiableList(new ArrayList<>(publishChannels)) : null;
+    }
+
+    /**
+     * get every channel the trigger publishes on: the publish channel followed by the additional channels, without
+     * duplicates
+     *
+     * @return the publish channels
+     */
+    @JsonIgnore
+    public List<String> getAllPublishChannels() {
+        if (publishChannels == null || publishChannels.isEmpty()) {
+            return Collections.singletonList(publishChannel);
+        }
+        List<String> all = new ArrayList<>(publishChannels.size() + 1);
+        all.add(publishChannel);
+        for (String channel : publishChannels) {
+            if (!all.contains(channel)) {
+                all.add(channel);
+            }
+        }
+        return all;
+    }
+
     /**
      * get the command that will be triggered
      *
@@ -73,22 +136,156 @@ public abstract class BaseTrigger {
     }
 
     /**
-     * get the parameter Map for rpc command that will be triggered
+     * get the parameter Map for rpc command that will be triggered. Values keep their JSON types (string, number,
+     * boolean, list or nested object) and the map is immutable.
      *
      * @return the parameter map
      */
     @JsonProperty("params")
-    public Map<String, String> getParams() {
+    public Map<String, Object> getParams() {
         return params;
     }
 
+    /**
+     * get the reason the configured parameters were rejected
+     *
+     * @return the reason, or null if the parameters are valid
+     */
+    @JsonIgnore
+    public String getParamsError() {
+        return paramsError;
+    }
+
+    /**
+     * get the wire format of the message published when the trigger fires
+     *
+     * @return the payload format, {@link PayloadFormat#RPC} unless configured
+     */
+    @JsonProperty("payloadFormat")
+    public PayloadFormat getPayloadFormat() {
+        return payloadFormat;
+    }
+
+    /**
+     * set the wire format of the message published when the trigger fires
+     *
+     * @param payloadFormat the payload format; null selects {@link PayloadFormat#RPC}
+     */
+    @JsonProperty("payloadFormat")
+    public void setPayloadFormat(PayloadFormat payloadFormat) {
+        this.payloadFormat = payloadFormat != null ? payloadFormat : PayloadFormat.RPC;
+    }
+
+    /**
+     * get the dispatch priority of the trigger's fires
+     *
+     * @return the priority, {@link TriggerPriority#NORMAL} unless configured
+     */
+    @JsonProperty("priority")
+    public TriggerPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * set the dispatch priority of the trigger's fires
+     *
+     * @param priority the priority; null selects {@link TriggerPriority#NORMAL}
+     */
+    @JsonProperty("priority")
+    public void setPriority(TriggerPriority priority) {
+        this.priority = priority != null ? priority : TriggerPriority.NORMAL;
+    }
+
+    /**
+     * get how long after its scheduled time a fire may still be published; a fire still queued when its deadline
+     * passes is dropped
+     *
+     * @return the deadline in milliseconds, or null if fires never expire
+     */
+    @JsonProperty("deadlineMillis")
+    public Long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * set how long after its scheduled time a fire may still be published
+     *
+     * @param deadlineMillis the deadline in milliseconds, or null if fires never expire
+     */
+    @JsonProperty("deadlineMillis")
+    public void setDeadlineMillis(Long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * get the name of the {@link ExclusionCalendar} whose excluded days and times the trigger does not fire on
+     *
+     * @return the calendar name, or null if the trigger always fires
+     */
+    @JsonProperty("calendar")
+    public String getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * set the name of the {@link ExclusionCalendar} whose excluded days and times the trigger does not fire on
+     *
+     * @param calendar the calendar name, or null if the trigger always fires
+     */
+    @JsonProperty("calendar")
+    public void setCalendar(String calendar) {
+        this.calendar = calendar;
+    }
+
+    /**
+     * get where the fires of the trigger are delivered
+     *
+     * @return the delivery, {@link FireDelivery#BOTH} by default
+     */
+    @JsonProperty("delivery")
+    public FireDelivery getDelivery() {
+        return delivery;
+    }
+
+    /**
+     * set where the fires of the trigger are delivered
+     *
+     * @param delivery the delivery, or null for the default
+     */
+    @JsonProperty("delivery")
+    public void setDelivery(FireDelivery delivery) {
+        this.delivery = delivery != null ? delivery : FireDelivery.BOTH;
+    }
+
     /**
      *  method to check if a {@link BaseTrigger} trigger is valid and contains all the required fields
      *
      * @return true if valid, else false
      */
     public boolean isValid() {
-        return getId() != null && getPublishChannel() != null;
+        return getId() != null && getPublishChannel() != null && paramsError == null
+                && (getPublishChannels() == null || !getPublishChannels().contains(null))
+                && (getDeadlineMillis() == null || getDeadlineMillis() > 0);
+    }
+
+    /**
+     * Value identifying when the trigger fires. Two triggers of the same type with the same schedule key fire at the
+     * same times, so triggers that are equal except for their id can share one scheduled job.
+     *
+     * @return the schedule key
+     */
+    @JsonIgnore
+    public abstract long getScheduleKey();
+
+    /**
+     * Whether the trigger may share a scheduled job with equivalent triggers. Triggers keeping state of their own
+     * between fires, e.g. a subscription or an adapted interval, must not be deduplicated.
+     *
+     * @return true if the trigger may become an alias of an equivalent trigger
+     */
+    @JsonIgnore
+    public boolean isDeduplicable() {
+        return true;
     }
 
     @Override
@@ -101,6 +298,12 @@ public abstract class BaseTrigger {
         if (getId() != null ? !getId().equals(that.getId()) : that.getId() != null) return false;
         else if (getCmd() != null ? !getCmd().equals(that.getCmd()) : that.getCmd() != null) return false;
         else if (getParams() != null ? !getParams().equals(that.getParams()) : that.getParams() != null) return false;
+        else if (getPayloadFormat() != that.getPayloadFormat()) return false;
+        else if (getPriority() != that.getPriority()) return false;
+        else if (getDelivery() != that.getDelivery()) return false;
+        else if (getDeadlineMillis() != null ? !getDeadlineMillis().equals(that.getDeadlineMillis()) : that.getDeadlineMillis() != null) return false;
+        else if (getCalendar() != null ? !getCalendar().equals(that.getCalendar()) : that.getCalendar() != null) return false;
+        else if (getPublishChannels() != null ? !getPublishChannels().equals(that.getPublishChannels()) : that.getPublishChannels() != null) return false;
         return getPublishChannel() != null ? getPublishChannel().equals(that.getPublishChannel()) : that.getPublishChannel() == null;
 
     }
@@ -111,6 +314,12 @@ public abstract class BaseTrigger {
         result = 31 * result + (getPublishChannel() != null ? getPublishChannel().hashCode() : 0);
         result = 31 * result + (getCmd() != null ? getCmd().hashCode() : 0);
         result = 31 * result + (getParams() != null ? getParams().hashCode() : 0);
+        result = 31 * result + getPayloadFormat().hashCode();
+        result = 31 * result + getPriority().hashCode();
+        result = 31 * result + getDelivery().hashCode();
+        result = 31 * result + (getDeadlineMillis() != null ? getDeadlineMillis().hashCode() : 0);
+        result = 31 * result + (getCalendar() != null ? getCalendar().hashCode() : 0);
+        result = 31 * result + (getPublishChannels() != null ? getPublishChannels().hashCode() : 0);
         return result;
     }
 
@@ -119,8 +328,14 @@ public abstract class BaseTrigger {
         return "Trigger{" +
                 "id='" + id + '\'' +
                 ", publishChannel='" + publishChannel + '\'' +
+                (publishChannels != null ? ", publishChannels=" + publishChannels : "") +
                 ", cmd='" + cmd + '\'' +
                 ", params='" + params + '\'' +
+                ", payloadFormat=" + payloadFormat +
+                ", priority=" + priority +
+                ", delivery=" + delivery +
+                ", deadlineMillis=" + deadlineMillis +
+                ", calendar='" + calendar + '\'' +
                 "}";
     }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Used to schedule a trigger with a {@link com.intel.icecp.scheduler.schedule.Schedule} instance.
+ * <p>
+ * Event triggers subscribe to a source channel and fire on the messages published on it instead of on a clock, so
+ * conditions can be reacted to without polling them with a short interval trigger. The content of the source messages
+ * is ignored. Fires can be limited with a debounce window (fire once the source has been quiet for the window), a
+ * throttle window (fire at most once per window, dropping the messages in between) and a maximum rate.
+ * <p>
+ * When a trigger fires, its command is published on the publishChannel specified by the trigger, as for the other
+ * trigger types.
+ */
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+public class EventTrigger extends BaseTrigger {
+    private final String sourceChannel;
+    private Long debounceMillis;
+    private Long throttleMillis;
+    private Double maxPerSecond;
+
+    /**
+     * Constructor
+     *
+     * @param id Unique identifier for the trigger. This unique identifier is used for published trigger event messages
+     * to determine the trigger that was fired.
+     * @param sourceChannel Channel whose messages fire the trigger.
+     * @param publishChannel Channel the trigger event should be published on.
+     * @param cmd the rpc command
+     * @param params the parameters of the rpc command
+     */
+    @JsonCreator
+    public EventTrigger(
+            @JsonProperty(value = "id") String id,
+            @JsonProperty(value = "sourceChannel") String sourceChannel,
+            @JsonProperty(value = "publishChannel") String publishChannel,
+            @JsonProperty(value = "cmd") String cmd,
+            @JsonProperty(value = "params") Map<String, Object> params) {
+        super(id, publishChannel, cmd, params);
+        this.sourceChannel = sourceChannel;
+    }
+
+    /**
+     * @return the channel whose messages fire the trigger
+     */
+    @JsonProperty("sourceChannel")
+    public String getSourceChannel() {
+        return sourceChannel;
+    }
+
+    /**
+     * get how long the source channel must be quiet before the trigger fires; every message restarts the window
+     *
+     * @return the debounce window in milliseconds, or null to fire on every message
+     */
+    @JsonProperty("debounceMillis")
+    public Long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    /**
+     * @param debounceMillis the debounce window in milliseconds, or null to fire on every message
+     */
+    @JsonProperty("debounceMillis")
+    public void setDebounceMillis(Long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * get the minimum time between two fires; fires within the window of the previous fire are dropped
+     *
+     * @return the throttle window in milliseconds, or null if fires are not throttled
+     */
+    @JsonProperty("throttleMillis")
+    public Long getThrottleMillis() {
+        return throttleMillis;
+    }
+
+    /**
+     * @param throttleMillis the throttle window in milliseconds, or null if fires are not throttled
+     */
+    @JsonProperty("throttleMillis")
+    public void setThrottleMillis(Long throttleMillis) {
+        this.throttleMillis = throttleMillis;
+    }
+
+    /**
+     * get the maximum sustained rate of fires; bursts of up to one second's worth of fires are allowed and further
+     * fires are dropped
+     *
+     * @return the maximum number of fires per second, or null if the rate is not limited
+     */
+    @JsonProperty("maxPerSecond")
+    public Double getMaxPerSecond() {
+        return maxPerSecond;
+    }
+
+    /**
+     * @param maxPerSecond the maximum number of fires per second, or null if the rate is not limited
+     */
+    @JsonProperty("maxPerSecond")
+    public void setMaxPerSecond(Double maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * @return 0, since event triggers fire on messages rather than on a schedule
+     */
+    @Override
+    @JsonIgnore
+    public long getScheduleKey() {
+        return 0;
+    }
+
+    /**
+     * @return false, since event triggers each keep their own subscription and limits
+     */
+    @Override
+    @JsonIgnore
+    public boolean isDeduplicable() {
+        return false;
+    }
+
+    /**
+     *  method to check if an {@link EventTrigger} trigger is valid and contains all the required fields
+     *
+     * @return true if valid, else false
+     */
+    @Override
+    public boolean isValid() {
+        return getSourceChannel() != null
+                && (getDebounceMillis() == null || getDebounceMillis() > 0)
+                && (getThrottleMillis() == null || getThrottleMillis() > 0)
+                && (getMaxPerSecond() == null || getMaxPerSecond() > 0)
+                && super.isValid();
+    }
+
+    @Override
+    public String toString() {
+        return "EventTrigger{" +
+                "sourceChannel='" + sourceChannel + '\'' +
+                ", debounceMillis=" + debounceMillis +
+                ", throttleMillis=" + throttleMillis +
+                ", maxPerSecond=" + maxPerSecond +
+                "} " + super.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+
+        EventTrigger that = (EventTrigger) o;
+
+        if (getSourceChannel() != null ? !getSourceChannel().equals(that.getSourceChannel()) : that.getSourceChannel() != null) return false;
+        if (getDebounceMillis() != null ? !getDebounceMillis().equals(that.getDebounceMillis()) : that.getDebounceMillis() != null) return false;
+        if (getThrottleMillis() != null ? !getThrottleMillis().equals(that.getThrottleMillis()) : that.getThrottleMillis() != null) return false;
+        return getMaxPerSecond() != null ? getMaxPerSecond().equals(that.getMaxPerSecond()) : that.getMaxPerSecond() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (getSourceChannel() != null ? getSourceChannel().hashCode() : 0);
+        result = 31 * result + (getDebounceMillis() != null ? getDebounceMillis().hashCode() : 0);
+        result = 31 * result + (getThrottleMillis() != null ? getThrottleMillis().hashCode() : 0);
+        result = 31 * result + (getMaxPerSecond() != null ? getMaxPerSecond().hashCode() : 0);
+        return result;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.trigger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.intel.icecp.scheduler.configuration.ConfigConstants;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Named set of days and times during which triggers referencing the calendar (see {@link BaseTrigger#getCalendar()})
+ * do not fire, e.g. maintenance days or nightly blackout windows. A time is excluded if its date is one of the
+ * excluded dates, its day is one of the excluded days of the week, or its time of day falls in one of the excluded
+ * windows. Dates and times are local to the schedule's time zone.
+ * <p>
+ * A date, day of the week or window time that cannot be parsed makes the calendar invalid rather than failing to
+ * parse the configuration it is part of.
+ */
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+public class ExclusionCalendar {
+    private final String name;
+    private final List<LocalDate> dates;
+    private final List<DayOfWeek> daysOfWeek;
+    private final List<Window> windows;
+    private final String parseError;
+
+    /**
+     * Constructor
+     *
+     * @param name unique name triggers reference the calendar by
+     * @param dates excluded dates in ISO format (e.g. 2017-12-25)
+     * @param daysOfWeek excluded days of the week (e.g. SUNDAY)
+     * @param windows excluded times of day
+     */
+    @JsonCreator
+    public ExclusionCalendar(@JsonProperty("name") String name,
+                             @JsonProperty("dates") List<String> dates,
+                             @JsonProperty("daysOfWeek") List<String> daysOfWeek,
+                             @JsonProperty("windows") List<Window> windows) {
+        this.name = name;
+        List<LocalDate> parsedDates = Collections.emptyList();
+        List<DayOfWeek> parsedDays = Collections.emptyList();
+        String error = null;
+        try {
+            parsedDates = parseDates(dates);
+            parsedDays = parseDaysOfWeek(daysOfWeek);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        this.dates = parsedDates;
+        this.daysOfWeek = parsedDays;
+        this.parseError = error;
+        this.windows = windows != null ? Collections.unmodifiableList(windows) : Collections.emptyList();
+    }
+
+    private static List<LocalDate> parseDates(List<String> dates) {
+        if (dates == null) {
+            return Collections.emptyList();
+        }
+        List<LocalDate> parsed = new ArrayList<>(dates.size());
+        for (String date : dates) {
+            if (date == null) {
+                throw new IllegalArgumentException("Excluded dates must not be null");
+            }
+            parsed.add(LocalDate.parse(date));
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+
+    private static List<DayOfWeek> parseDaysOfWeek(List<String> daysOfWeek) {
+        if (daysOfWeek == null) {
+            return Collections.emptyList();
+        }
+        List<DayOfWeek> parsed = new ArrayList<>(daysOfWeek.size());
+        for (String day : daysOfWeek) {
+            if (day == null) {
+                throw new IllegalArgumentException("Excluded days of the week must not be null");
+            }
+            parsed.add(DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT)));
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+
+    /**
+     * @return the unique name of the calendar
+     */
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the excluded dates
+     */
+    @JsonIgnore
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+
+    /**
+     * @return the excluded days of the week
+     */
+    @JsonIgnore
+    public List<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    /**
+     * @return the excluded times of day
+     */
+    @JsonIgnore
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    /**
+     * @return the reason the excluded dates or days of the week were rejected, or null if they are valid
+     */
+    @JsonIgnore
+    public String getParseError() {
+        return parseError;
+    }
+
+    /**
+     * method to check if the calendar is valid and contains all the required fields
+     *
+     * @return true if valid, else false
+     */
+    public boolean isValid() {
+        return name != null && !name.isEmpty() && parseError == null
+                && windows.stream().allMatch(w -> w != null && w.isValid());
+    }
+
+    @Override
+    public String toString() {
+        return "ExclusionCalendar{" +
+                "name='" + name + '\'' +
+                ", dates=" + dates +
+                ", daysOfWeek=" + daysOfWeek +
+                ", windows=" + windows +
+                '}';
+    }
+
+    /**
+     * Excluded time of day, from the start time (inclusive) to the end time (exclusive). A window whose end time is
+     * not after its start time runs past midnight (e.g. 11:00 PM - 1:00 AM).
+     */
+    @JsonInclude(value = JsonInclude.Include.NON_NULL)
+    public static class Window {
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+
+        /**
+         * Constructor. A time that cannot be parsed is left unset, which makes the window invalid.
+         *
+         * @param startTime start of the window in local time. The supported TIME_FORMAT is h:mm a.
+         * @param endTime end of the window in local time. The supported TIME_FORMAT is h:mm a.
+         */
+        @JsonCreator
+        public Window(@JsonProperty("startTime") String startTime, @JsonProperty("endTime") String endTime) {
+            this.startTime = parseTime(startTime);
+            this.endTime = parseTime(endTime);
+        }
+
+        private static LocalTime parseTime(String time) {
+            if (time == null) {
+                return null;
+            }
+            try {
+                return LocalTime.parse(time, ConfigConstants.TIME_FORMAT);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return the start of the window
+         */
+        @JsonIgnore
+        public LocalTime getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return the end of the window
+         */
+        @JsonIgnore
+        public LocalTime getEndTime() {
+            return endTime;
+        }
+
+        /**
+         * @return true if both times are set
+         */
+        @JsonIgnore
+        public boolean isValid() {
+            return startTime != null && endTime != null;
+        }
+
+        @Override
+        public String toString() {
+            return startTime + "-" + endTime;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+/**
+ * Where the fires of a trigger are delivered.
+ */
+public enum FireDelivery {
+    /**
+     * Published on the trigger's channels and handed to in-process subscribers of
+     * {@link com.intel.icecp.scheduler.schedule.LocalFirePublisher}. This is the default.
+     */
+    BOTH,
+
+    /**
+     * Published on the trigger's channels only; in-process subscribers that listen on the channel receive each fire
+     * once, through the channel.
+     */
+    CHANNELS,
+
+    /**
+     * Handed to in-process subscribers only. Nothing is published, so no channel is opened and nothing is serialized;
+     * remote subscribers do not receive the fires.
+     */
+    LOCAL
+}
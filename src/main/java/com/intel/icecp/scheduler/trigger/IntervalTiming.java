@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+/**
+ * Clock an {@link IntervalTrigger} is fired on, and how its next fire is computed
+ */
+public enum IntervalTiming {
+    /**
+     * Fires at wall clock times computed by Quartz; the default. A wall clock step (e.g. by NTP) delays fires or
+     * makes missed fires burst.
+     */
+    WALL_CLOCK,
+
+    /**
+     * Fires on the monotonic clock every interval after the first fire. Fire times are computed from the first fire,
+     * so late wakeups do not accumulate drift, and fires missed by more than an interval are skipped rather than
+     * fired in a burst.
+     */
+    FIXED_RATE,
+
+    /**
+     * Fires on the monotonic clock an interval after the previous fire was handed off, so the time between fires is
+     * never shorter than the interval.
+     */
+    FIXED_DELAY
+}
@@ -17,6 +17,7 @@
 package com.intel.icecp.scheduler.trigger;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.logging.log4j.LogManager;
@@ -41,6 +42,8 @@ public class IntervalTrigger extends BaseTrigger {
 
     private final int interval;
     private final String unit;
+    private IntervalTiming timing = IntervalTiming.WALL_CLOCK;
+    private AdaptivePolicy adaptive;
 
     /**
      * Constructor
@@ -48,7 +51,8 @@ public class IntervalTrigger extends BaseTrigger {
      * @param id Unique identifier for the trigger. This unique identifier is used for published trigger event messages
      * to determine the trigger that was fired.* @param interval the number of minutes at which the trigger should repeat.
      * @param interval the interval at which the trigger is repeated
-     * @param unit the time unit for this triggers - enum value of {@link TimeUnit} MINUTES, HOURS, SECONDS, MILLISECONDS
+     * @param unit the time unit for this triggers - enum value of {@link TimeUnit} DAYS, HOURS, MINUTES, SECONDS,
+     * MILLISECONDS, MICROSECONDS or NANOSECONDS
      * @param publishChannel Channel the trigger event should be published on.
      */
     @JsonCreator
@@ -58,7 +62,7 @@ public class IntervalTrigger extends BaseTrigger {
             @JsonProperty(value = "unit") String unit,
             @JsonProperty(value = "publishChannel") String publishChannel,
             @JsonProperty(value = "cmd") String cmd,
-            @JsonProperty(value = "params") Map<String, String> params) {
+            @JsonProperty(value = "params") Map<String, Object> params) {
         super(id, publishChannel, cmd, params);
         this.interval = interval;
         this.unit = unit;
@@ -89,6 +93,78 @@ public class IntervalTrigger extends BaseTrigger {
         return interval;
     }
 
+    /**
+     * @return the interval in nanoseconds, or -1 if the time unit is invalid
+     */
+    @JsonIgnore
+    public long getIntervalNanos() {
+        TimeUnit timeUnit = getUnit();
+        return timeUnit != null ? timeUnit.toNanos(interval) : -1;
+    }
+
+    /**
+     * get the clock the trigger fires on
+     *
+     * @return the timing, {@link IntervalTiming#WALL_CLOCK} unless configured
+     */
+    @JsonProperty("timing")
+    public IntervalTiming getTiming() {
+        return timing;
+    }
+
+    /**
+     * set the clock the trigger fires on
+     *
+     * @param timing the timing; null selects {@link IntervalTiming#WALL_CLOCK}
+     */
+    @JsonProperty("timing")
+    public void setTiming(IntervalTiming timing) {
+        this.timing = timing != null ? timing : IntervalTiming.WALL_CLOCK;
+    }
+
+    /**
+     * get the policy adapting the interval to feedback from the consumer
+     *
+     * @return the policy, or null if the interval is fixed
+     */
+    @JsonProperty("adaptive")
+    public AdaptivePolicy getAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * set the policy adapting the interval to feedback from the consumer. An adaptive trigger fires an adapted
+     * interval after its previous fire, on the monotonic clock; the configured interval is the initial interval.
+     *
+     * @param adaptive the policy, or null if the interval is fixed
+     */
+    @JsonProperty("adaptive")
+    public void setAdaptive(AdaptivePolicy adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return the interval in nanoseconds for wall clock triggers, a negative value combining the interval and the
+     * timing for monotonic triggers, or -1 if the time unit is invalid
+     */
+    @Override
+    public long getScheduleKey() {
+        long nanos = getIntervalNanos();
+        if (nanos < 0 || timing == IntervalTiming.WALL_CLOCK) {
+            return nanos;
+        }
+        return -(nanos << 2 | timing.ordinal());
+    }
+
+    /**
+     * @return false for adaptive triggers, which each back off on their own
+     */
+    @Override
+    @JsonIgnore
+    public boolean isDeduplicable() {
+        return adaptive == null;
+    }
+
     /**
      *  method to check if a {@link IntervalTrigger} trigger is valid and contains all the required fields
      *
@@ -96,7 +172,11 @@ public class IntervalTrigger extends BaseTrigger {
      */
     @Override
     public boolean isValid() {
-        return getInterval() > 0 && getUnit() != null && super.isValid();
+        return getInterval() > 0 && getUnit() != null
+                && (adaptive == null || (adaptive.isValid()
+                && (adaptive.getFeedback() != AdaptiveFeedback.RESPONSE || getPayloadFormat() == PayloadFormat.RPC)
+                && getDelivery() != FireDelivery.LOCAL))
+                && super.isValid();
     }
 
     @Override
@@ -108,6 +188,8 @@ public class IntervalTrigger extends BaseTrigger {
         IntervalTrigger that = (IntervalTrigger) o;
 
         if (getInterval() != that.getInterval()) return false;
+        if (getTiming() != that.getTiming()) return false;
+        if (getAdaptive() != null ? !getAdaptive().equals(that.getAdaptive()) : that.getAdaptive() != null) return false;
         return getUnit() != null ? getUnit().equals(that.getUnit()) : that.getUnit() == null;
 
     }
@@ -117,6 +199,8 @@ public class IntervalTrigger extends BaseTrigger {
         int result = super.hashCode();
         result = 31 * result + getInterval();
         result = 31 * result + (getUnit() != null ? getUnit().hashCode() : 0);
+        result = 31 * result + getTiming().hashCode();
+        result = 31 * result + (getAdaptive() != null ? getAdaptive().hashCode() : 0);
         return result;
     }
 
@@ -124,6 +208,8 @@ public class IntervalTrigger extends BaseTrigger {
     public String toString() {
         return "IntervalTrigger{" +
                 "interval=" + interval +
+                ", timing=" + timing +
+                (adaptive != null ? ", adaptive=" + adaptive : "") +
                 "} " + super.toString();
     }
 }
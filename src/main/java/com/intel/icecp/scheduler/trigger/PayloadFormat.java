@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+/**
+ * Wire format of the message published when a trigger fires.
+ */
+public enum PayloadFormat {
+    /**
+     * RPC {@link com.intel.icecp.rpc.CommandRequest} published on {@code publishChannel/$cmd}, serialized to JSON by
+     * the channel on every publish. This is the default and what RPC servers expect.
+     */
+    RPC,
+
+    /**
+     * Command and params encoded once as CBOR when the trigger is scheduled and published as raw bytes on
+     * {@code publishChannel}. Subscribers decode it with {@link com.intel.icecp.scheduler.message.CompactCommand}.
+     */
+    CBOR
+}
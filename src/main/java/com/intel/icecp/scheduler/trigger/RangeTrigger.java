@@ -25,7 +25,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.security.SecureRandom;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Map;
 
@@ -70,7 +72,7 @@ public class RangeTrigger extends BaseTrigger {
             @JsonProperty(value = "endTime") String endTime,
             @JsonProperty(value = "publishChannel") String publishChannel,
             @JsonProperty(value = "cmd") String cmd,
-            @JsonProperty(value = "params") Map<String, String> params) {
+            @JsonProperty(value = "params") Map<String, Object> params) {
         super(id, publishChannel, cmd, params);
         this.time = (startTime != null) ? LocalTime.parse(createTriggerTime(startTime, endTime), ConfigConstants.TIME_FORMAT) : null;
         this.startTime = (startTime != null) ? LocalTime.parse(startTime, ConfigConstants.TIME_FORMAT) : null;
@@ -143,6 +145,35 @@ public class RangeTrigger extends BaseTrigger {
         return time;
     }
 
+    /**
+     * Get the next time the trigger fires. The trigger time of today is used if it is still ahead of the clock, else
+     * the trigger time of tomorrow, so a new trigger never fires immediately for a time that has already passed.
+     *
+     * @param clock clock providing the current time and time zone
+     * @return epoch time of the next fire
+     */
+    public long getNextFireMillis(Clock clock) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime next = LocalDateTime.of(now.toLocalDate(), time);
+        if (next.isBefore(now)) {
+            next = next.plusDays(1);
+        }
+        return next.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * The key is derived from the configured window, not the randomly picked trigger time, so triggers with the same
+     * window are equivalent.
+     *
+     * @return the start and end second of day of the window
+     */
+    @Override
+    public long getScheduleKey() {
+        long start = startTime != null ? startTime.toSecondOfDay() : -1;
+        long end = endTime != null ? endTime.toSecondOfDay() : -1;
+        return (start << 32) | (end & 0xFFFFFFFFL);
+    }
+
     /**
      *  method to check if a {@link RangeTrigger} trigger is valid and contains all the required fields
      *
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation of typed trigger parameters. Parameters are JSON values: strings, numbers, booleans, null, lists and
+ * nested objects. They are validated and copied into immutable collections once when the trigger is created, so the
+ * same instance can be shared by every fire without copying or converting.
+ */
+final class TriggerParams {
+    /**
+     * Maximum nesting depth of lists and objects in parameter values
+     */
+    static final int MAX_DEPTH = 8;
+
+    private TriggerParams() {
+    }
+
+    /**
+     * Validate parameters and make an immutable copy
+     *
+     * @param params the parameters
+     * @return an immutable copy of the parameters
+     * @throws IllegalArgumentException if a key is empty, a value is not a JSON value or values are nested too deep
+     */
+    static Map<String, Object> freeze(Map<String, ?> params) {
+        return freezeMap(params, 0);
+    }
+
+    private static Map<String, Object> freezeMap(Map<?, ?> params, int depth) {
+        Map<String, Object> copy = new LinkedHashMap<>(params.size() * 2);
+        for (Map.Entry<?, ?> entry : params.entrySet()) {
+            if (!(entry.getKey() instanceof String) || ((String) entry.getKey()).isEmpty()) {
+                throw new IllegalArgumentException("Parameter names must be non-empty strings: " + entry.getKey());
+            }
+            copy.put((String) entry.getKey(), freezeValue(entry.getValue(), depth));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freezeValue(Object value, int depth) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalArgumentException("Parameters are nested deeper than " + MAX_DEPTH + " levels");
+        }
+        if (value instanceof Map) {
+            return freezeMap((Map<?, ?>) value, depth + 1);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(freezeValue(item, depth + 1));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        throw new IllegalArgumentException("Unsupported parameter type: " + value.getClass().getName());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.trigger;
+
+/**
+ * Dispatch priority of a trigger. When fires queue up faster than they can be published, fires of a higher priority
+ * are always published before fires of a lower priority.
+ */
+public enum TriggerPriority {
+    /**
+     * Critical triggers, e.g. health acknowledgements
+     */
+    HIGH,
+
+    /**
+     * The default priority
+     */
+    NORMAL,
+
+    /**
+     * Bulk triggers that can wait
+     */
+    LOW
+}
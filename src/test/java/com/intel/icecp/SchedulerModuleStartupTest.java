@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp;
+
+import com.intel.icecp.core.Module;
+import com.intel.icecp.core.Node;
+import com.intel.icecp.core.attributes.Attributes;
+import com.intel.icecp.core.attributes.ModuleStateAttribute;
+import com.intel.icecp.scheduler.SchedulerModule;
+import com.intel.icecp.scheduler.attributes.SchedulerTriggersAttribute;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Startup benchmark: time from constructing the module to publishing {@link Module.State#RUNNING} with a typical
+ * configuration. The budget is the cold start target for low-power nodes; a development machine is expected to be
+ * well within it. Only meaningful as the first test of a fresh JVM, so it runs in the {@code benchmark} profile only,
+ * which forks a new JVM for every test class.
+ */
+public class SchedulerModuleStartupTest {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long COLD_START_BUDGET_MILLIS = 2000;
+    private static final String TRIGGERS = "{\"rangeTriggers\": [{\"id\": \"dex-trigger\",\"startTime\": \"11:00 PM\", " +
+            "\"endTime\": \"5:00 AM\", \"publishChannel\":\"/DEX-SCHEDULER\"}], \"intervalTriggers\":[{\"id\":\"ack-trigger\"," +
+            "\"interval\": 15, \"unit\": \"MINUTES\",\"publishChannel\": \"/ACK-SCHEDULER\"}]}";
+
+    @Test
+    public void moduleReachesRunningWithinBudget() throws Exception {
+        Attributes attributes = mock(Attributes.class);
+        when(attributes.get(SchedulerTriggersAttribute.class)).thenReturn(TRIGGERS);
+        AtomicLong runningAt = new AtomicLong();
+        doAnswer(invocation -> {
+            runningAt.set(System.nanoTime());
+            return null;
+        }).when(attributes).set(eq(ModuleStateAttribute.class), eq(Module.State.RUNNING));
+
+        Node node = mock(Node.class);
+
+        long start = System.nanoTime();
+        SchedulerModule module = new SchedulerModule();
+        long constructed = System.nanoTime();
+        module.run(node, attributes);
+        module.stop(Module.StopReason.USER_DIRECTED);
+
+        assertTrue("module did not reach RUNNING", runningAt.get() != 0);
+        long total = TimeUnit.NANOSECONDS.toMillis(runningAt.get() - start);
+        LOGGER.info("Module startup: constructor={} us, constructor to RUNNING={} ms",
+                TimeUnit.NANOSECONDS.toMicros(constructed - start), total);
+        assertTrue("startup took " + total + " ms", total <= COLD_START_BUDGET_MILLIS);
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.intel.icecp;
 
+import com.intel.icecp.core.Channel;
 import com.intel.icecp.core.Module;
 import com.intel.icecp.core.Node;
 import com.intel.icecp.core.attributes.AttributeNotFoundException;
@@ -24,23 +25,34 @@ import com.intel.icecp.core.attributes.Attributes;
 import com.intel.icecp.core.attributes.IdAttribute;
 import com.intel.icecp.core.attributes.ModuleStateAttribute;
 import com.intel.icecp.scheduler.SchedulerModule;
+import com.intel.icecp.scheduler.attributes.SchedulerLagAttribute;
+import com.intel.icecp.scheduler.attributes.SchedulerStatsAttribute;
 import com.intel.icecp.scheduler.attributes.SchedulerTriggersAttribute;
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.schedule.Dispatcher;
+import com.intel.icecp.scheduler.schedule.LagWatchdog;
 import com.intel.icecp.scheduler.schedule.Schedule;
+import com.intel.icecp.scheduler.schedule.SchedulerMetrics;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.net.URI;
 import java.util.ArrayList;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,6 +68,8 @@ public class SchedulerModuleTest {
     private Attributes mockAttributes;
     @Mock
     private RangeTrigger mockTrigger;
+    @Mock
+    private Channel<MetricsMessage> mockMetricsChannel;
 
     @Before
     public void before() {
@@ -124,6 +138,82 @@ public class SchedulerModuleTest {
         verify(mockAttributes, times(1)).set(eq(ModuleStateAttribute.class), eq(Module.State.RUNNING));
     }
 
+    @Test
+    public void whenRunAndScheduleHasWatchdogAddLagAttribute() throws Exception {
+        when(mockSchedule.start()).thenReturn(true);
+        when(mockSchedule.getWatchdog()).thenReturn(new LagWatchdog(new Dispatcher(trigger -> { }, 1, 1)));
+
+        setupMockTriggers();
+
+        SchedulerModule module = getSchedulerModule();
+
+        module.run(mockNode, mockAttributes);
+
+        verify(mockAttributes, times(1)).add(any(SchedulerLagAttribute.class));
+        verify(mockAttributes, times(1)).set(eq(ModuleStateAttribute.class), eq(Module.State.RUNNING));
+    }
+
+    @Test
+    public void whenWatchdogReportsAfterStopStateStaysStopped() throws Exception {
+        LagWatchdog watchdog = new LagWatchdog(new Dispatcher(trigger -> { }, 1, 1));
+        when(mockSchedule.start()).thenReturn(true);
+        when(mockSchedule.stop()).thenReturn(true);
+        when(mockSchedule.getWatchdog()).thenReturn(watchdog);
+
+        setupMockTriggers();
+
+        SchedulerModule module = getSchedulerModule();
+
+        module.run(mockNode, mockAttributes);
+        // the watchdog thread read the listener just before stop removed it
+        LagWatchdog.Listener listener = watchdog.getListener();
+        module.stop(Module.StopReason.USER_DIRECTED);
+        listener.onDegraded(true, 10000);
+        listener.onDegraded(false, 0);
+
+        verify(mockAttributes, never()).set(eq(ModuleStateAttribute.class), eq(Module.State.ERROR));
+        verify(mockAttributes, times(1)).set(eq(ModuleStateAttribute.class), eq(Module.State.RUNNING));
+        verify(mockAttributes, times(1)).set(eq(ModuleStateAttribute.class), eq(Module.State.STOPPED));
+    }
+
+    @Test
+    public void whenRunAndScheduleCountsFiresAddStatsAttribute() throws Exception {
+        when(mockSchedule.start()).thenReturn(true);
+        when(mockSchedule.getCounters()).thenReturn(new TriggerRegistry().getCounters());
+
+        setupMockTriggers();
+
+        SchedulerModule module = getSchedulerModule();
+
+        module.run(mockNode, mockAttributes);
+
+        ArgumentCaptor<SchedulerStatsAttribute> attribute = ArgumentCaptor.forClass(SchedulerStatsAttribute.class);
+        verify(mockAttributes, times(1)).add(attribute.capture());
+        assertEquals("{\"fired\":0,\"published\":0,\"failed\":0,\"skipped\":0,\"triggers\":[]}", attribute.getValue().value());
+    }
+
+    @Test
+    public void whenRunAndScheduleReportsMetricsPublishSnapshots() throws Exception {
+        TriggerRegistry registry = new TriggerRegistry();
+        when(mockSchedule.start()).thenReturn(true);
+        when(mockSchedule.stop()).thenReturn(true);
+        when(mockSchedule.getMetrics()).thenReturn(new SchedulerMetrics(registry.getCounters(),
+                new Dispatcher(trigger -> { }, 1, 16), null, () -> 0, () -> 0));
+        when(mockNode.getDefaultUri()).thenReturn(URI.create("ndn:/test/node"));
+        when(mockNode.openChannel(eq(URI.create("ndn:/test/node/scheduler/metrics")), eq(MetricsMessage.class), any()))
+                .thenReturn(mockMetricsChannel);
+
+        setupMockTriggers();
+
+        SchedulerModule module = getSchedulerModule();
+
+        module.run(mockNode, mockAttributes);
+        verify(mockMetricsChannel, timeout(1000)).publish(any(MetricsMessage.class));
+
+        module.stop(Module.StopReason.USER_DIRECTED);
+        verify(mockMetricsChannel, times(1)).close();
+    }
+
     @Test
     public void whenRunAndConfigTriggersEmptyListPublishRunning() throws Exception {
         when(mockSchedule.start()).thenReturn(true);
@@ -254,6 +344,23 @@ public class SchedulerModuleTest {
         verify(mockSchedule, never()).scheduleIntervalTrigger(any(IntervalTrigger.class), anyString());
     }
 
+    @Test
+    public void testGarbageAfterValidTriggersStopsSchedule() throws Exception {
+        when(mockSchedule.start()).thenReturn(true);
+
+        setupMockTriggersWithTrailingGarbageKeys();
+
+        SchedulerModule module = getSchedulerModule();
+
+        module.run(mockNode, mockAttributes);
+
+        verify(mockAttributes, times(1)).set(eq(ModuleStateAttribute.class), eq(Module.State.ERROR));
+
+        // the triggers read before the garbage are dropped and the schedule never starts
+        verify(mockSchedule, times(1)).stop();
+        verify(mockSchedule, never()).start();
+    }
+
     @Test
     public void testIfInValidTimeUnitDoesNotAddTrigger() throws Exception {
         when(mockSchedule.start()).thenReturn(true);
@@ -334,6 +441,14 @@ public class SchedulerModuleTest {
         when(mockAttributes.get(SchedulerTriggersAttribute.class)).thenReturn(triggers);
     }
 
+    // intervalTriggers has a garbage key "foo" after a valid range trigger
+    private void setupMockTriggersWithTrailingGarbageKeys() throws Exception {
+        String triggers = "{\"rangeTriggers\": [{\"id\": \"dex-trigger\",\"startTime\": \"11:00 PM\", \"endTime\": \"5:00 AM\", " +
+                "\"publishChannel\":\"/DEX-SCHEDULER\"}], \"intervalTriggers\":[{\"foo\":\"bar\",\"interval\": 15, " +
+                "\"unit\": \"MINUTES\",\"publishChannel\": \"/ACK-SCHEDULER\"}]}";
+        when(mockAttributes.get(SchedulerTriggersAttribute.class)).thenReturn(triggers);
+    }
+
     // all valid triggers
     private void setupMockTriggers() throws Exception {
         String triggers = "{\"rangeTriggers\": [{\"id\": \"dex-trigger\",\"startTime\": \"11:00 PM\", \"endTime\": \"5:00 AM\", " +
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ScheduleImageTest {
+    private static final String CONFIG = "{\"calendars\":[{\"name\":\"holidays\",\"dates\":[\"2017-12-25\"]," +
+            "\"daysOfWeek\":[\"SUNDAY\"],\"windows\":[{\"startTime\":\"11:30 PM\",\"endTime\":\"12:30 AM\"}]}]," +
+            "\"rangeTriggers\":[{\"id\":\"dex\",\"startTime\":\"11:00 PM\",\"endTime\":\"5:00 AM\",\"cmd\":\"upload\"," +
+            "\"publishChannel\":\"/DEX\",\"params\":{\"tags\":[\"a\",1,true],\"limit\":{\"mb\":5}},\"calendar\":\"holidays\"}]," +
+            "\"intervalTriggers\":[{\"id\":\"ack\",\"interval\":10,\"unit\":\"MINUTES\",\"publishChannel\":\"/ACK\"," +
+            "\"priority\":\"HIGH\",\"delivery\":\"LOCAL\",\"deadlineMillis\":2500,\"payloadFormat\":\"CBOR\",\"cmd\":\"ack\"}," +
+            "{\"id\":\"fast\",\"interval\":250,\"unit\":\"MICROSECONDS\",\"publishChannel\":\"/ACK\",\"timing\":\"FIXED_DELAY\"," +
+            "\"adaptive\":{\"minInterval\":100,\"maxInterval\":5000,\"feedback\":\"LATENCY\",\"latencyTargetMillis\":2}}]," +
+            "\"eventTriggers\":[{\"id\":\"door\",\"sourceChannel\":\"/door\",\"publishChannel\":\"/ACK\",\"cmd\":\"check\"," +
+            "\"debounceMillis\":500,\"maxPerSecond\":0.5,\"publishChannels\":[\"/DEX\"]}]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path image;
+    private final List<ExclusionCalendar> calendars = new ArrayList<>();
+    private final List<RangeTrigger> ranges = new ArrayList<>();
+    private final List<IntervalTrigger> intervals = new ArrayList<>();
+    private final List<EventTrigger> events = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        image = folder.getRoot().toPath().resolve("schedule.bin");
+    }
+
+    @Test
+    public void testImageLoadsTheCompiledTriggers() throws Exception {
+        ScheduleImage.compile(CONFIG, image);
+        TriggersLoader.Counts counts = load(CONFIG);
+
+        List<ExclusionCalendar> jsonCalendars = new ArrayList<>();
+        List<RangeTrigger> jsonRanges = new ArrayList<>();
+        List<IntervalTrigger> jsonIntervals = new ArrayList<>();
+        List<EventTrigger> jsonEvents = new ArrayList<>();
+        new TriggersLoader().load(CONFIG, jsonCalendars::add, jsonRanges::addAll, jsonIntervals::addAll, jsonEvents::addAll);
+
+        assertEquals(1, counts.getCalendars());
+        assertEquals(1, counts.getRange());
+        assertEquals(2, counts.getInterval());
+        assertEquals(Collections.emptySet(), counts.getUndefinedCalendars());
+        assertEquals(jsonRanges, ranges);
+        assertEquals(jsonIntervals, intervals);
+        assertEquals(1, counts.getEvent());
+        assertEquals(jsonEvents, events);
+        assertNull(events.get(0).getThrottleMillis());
+        assertEquals(Double.valueOf(0.5), events.get(0).getMaxPerSecond());
+        assertEquals(jsonCalendars.get(0).toString(), calendars.get(0).toString());
+        assertEquals(Collections.singletonList(DayOfWeek.SUNDAY), calendars.get(0).getDaysOfWeek());
+
+        IntervalTrigger ack = intervals.get(0);
+        assertEquals(TriggerPriority.HIGH, ack.getPriority());
+        assertEquals(FireDelivery.LOCAL, ack.getDelivery());
+        assertEquals(PayloadFormat.CBOR, ack.getPayloadFormat());
+        assertEquals(Long.valueOf(2500), ack.getDeadlineMillis());
+        assertEquals(IntervalTiming.FIXED_DELAY, intervals.get(1).getTiming());
+        assertEquals(Arrays.asList("a", 1, true), ranges.get(0).getParams().get("tags"));
+    }
+
+    @Test
+    public void testImageOfOtherConfigurationIsNotUsed() throws Exception {
+        ScheduleImage.compile(CONFIG, image);
+
+        assertNull(load(CONFIG.replace("/DEX", "/DEX2")));
+        assertEquals(0, ranges.size() + intervals.size() + calendars.size());
+    }
+
+    @Test
+    public void testMissingOrCorruptImageIsNotUsed() throws Exception {
+        assertNull(load(CONFIG));
+
+        ScheduleImage.compile(CONFIG, image);
+        byte[] bytes = Files.readAllBytes(image);
+        Files.write(image, Arrays.copyOf(bytes, bytes.length - 3));
+        assertNull(load(CONFIG));
+        assertEquals(0, ranges.size() + intervals.size() + calendars.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidTriggersFailCompilation() throws Exception {
+        ScheduleImage.compile("{\"rangeTriggers\":[{\"id\":\"no-start\",\"publishChannel\":\"/DEX\"}]}", image);
+    }
+
+    private TriggersLoader.Counts load(String config) {
+        return ScheduleImage.load(image, config, calendars::add, ranges::addAll, intervals::addAll, events::addAll);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.attributes;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TriggersLoaderTest {
+
+    private final List<Integer> rangeChunks = new ArrayList<>();
+    private final List<Integer> intervalChunks = new ArrayList<>();
+
+    @Test
+    public void testTriggersAreHandedOverInChunks() throws Exception {
+        TriggersLoader.Counts counts = load(new TriggersLoader(2), config(3, 5));
+
+        assertEquals(Arrays.asList(2, 1), rangeChunks);
+        assertEquals(Arrays.asList(2, 2, 1), intervalChunks);
+        assertEquals(3, counts.getRange());
+        assertEquals(5, counts.getInterval());
+        assertEquals(0, counts.getInvalid());
+    }
+
+    @Test
+    public void testInvalidTriggersAreCountedAndSkipped() throws Exception {
+        String config = "{\"intervalTriggers\":[" + intervalTrigger(0) + ",{\"id\":\"bad\",\"interval\":15,\"unit\":\"MIN\"," +
+                "\"publishChannel\":\"/ACK\"}],\"rangeTriggers\":[{\"id\":\"no-start\",\"publishChannel\":\"/DEX\"}]}";
+
+        TriggersLoader.Counts counts = load(new TriggersLoader(), config);
+
+        assertEquals(1, counts.getValid());
+        assertEquals(2, counts.getInvalid());
+        assertEquals(Arrays.asList(1), intervalChunks);
+    }
+
+    @Test
+    public void testTriggerWithInvalidParamsIsSkippedNextToValidOnes() throws Exception {
+        String config = "{\"intervalTriggers\":[{\"id\":\"bad\",\"interval\":15,\"unit\":\"MINUTES\"," +
+                "\"publishChannel\":\"/ACK\",\"params\":{\"\":1}}," + intervalTrigger(0) + "]}";
+
+        TriggersLoader.Counts counts = load(new TriggersLoader(), config);
+
+        assertEquals(1, counts.getValid());
+        assertEquals(1, counts.getInvalid());
+        assertEquals(Arrays.asList(1), intervalChunks);
+    }
+
+    @Test
+    public void testMissingAndNullArraysAreEmpty() throws Exception {
+        TriggersLoader.Counts counts = load(new TriggersLoader(), "{\"rangeTriggers\":null}");
+
+        assertEquals(0, counts.getValid());
+        assertEquals(0, rangeChunks.size() + intervalChunks.size());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testUnknownFieldFailsLoad() throws Exception {
+        load(new TriggersLoader(), "{\"intervalTriggers\":[],\"foo\":\"bar\"}");
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testNonObjectConfigFailsLoad() throws Exception {
+        load(new TriggersLoader(), "[]");
+    }
+
+    @Test
+    public void testLoadsVeryLargeConfig() throws Exception {
+        TriggersLoader.Counts counts = load(new TriggersLoader(), config(0, 100_000));
+
+        assertEquals(100_000, counts.getInterval());
+        assertEquals(98, intervalChunks.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeMustBePositive() {
+        new TriggersLoader(0);
+    }
+
+    @Test
+    public void testCalendarsAreLoadedAndUndefinedReferencesReported() throws Exception {
+        String config = "{\"intervalTriggers\":[" +
+                "{\"id\":\"a\",\"interval\":15,\"unit\":\"MINUTES\",\"publishChannel\":\"/ACK\",\"calendar\":\"maintenance\"}," +
+                "{\"id\":\"b\",\"interval\":15,\"unit\":\"MINUTES\",\"publishChannel\":\"/ACK\",\"calendar\":\"missing\"}]," +
+                "\"calendars\":[{\"name\":\"maintenance\",\"dates\":[\"2017-12-25\"],\"daysOfWeek\":[\"sunday\"]," +
+                "\"windows\":[{\"startTime\":\"1:00 AM\",\"endTime\":\"3:00 AM\"}]},{\"dates\":[]}]}";
+        List<ExclusionCalendar> calendars = new ArrayList<>();
+
+        TriggersLoader.Counts counts = new TriggersLoader().load(config, calendars::add,
+                chunk -> rangeChunks.add(chunk.size()), chunk -> intervalChunks.add(chunk.size()));
+
+        assertEquals(1, counts.getCalendars());
+        assertEquals(1, counts.getInvalid());
+        assertEquals(Collections.singleton("missing"), counts.getUndefinedCalendars());
+        assertEquals(LocalDate.of(2017, 12, 25), calendars.get(0).getDates().get(0));
+        assertEquals(DayOfWeek.SUNDAY, calendars.get(0).getDaysOfWeek().get(0));
+        assertEquals(1, calendars.get(0).getWindows().size());
+    }
+
+    @Test
+    public void testCalendarsThatCannotBeParsedAreSkipped() throws Exception {
+        String config = "{\"intervalTriggers\":[" + intervalTrigger(0) + "],\"calendars\":[" +
+                "{\"name\":\"bad-date\",\"dates\":[\"2017-02-30\"]}," +
+                "{\"name\":\"bad-day\",\"daysOfWeek\":[\"funday\"]}," +
+                "{\"name\":\"bad-window\",\"windows\":[{\"startTime\":\"25:00 PM\",\"endTime\":\"3:00 AM\"}]}," +
+                "{\"name\":\"ok\",\"dates\":[\"1969-07-20\"]}]}";
+        List<ExclusionCalendar> calendars = new ArrayList<>();
+
+        TriggersLoader.Counts counts = new TriggersLoader().load(config, calendars::add,
+                chunk -> rangeChunks.add(chunk.size()), chunk -> intervalChunks.add(chunk.size()));
+
+        assertEquals(1, counts.getCalendars());
+        assertEquals(3, counts.getInvalid());
+        assertEquals("ok", calendars.get(0).getName());
+        assertEquals(Arrays.asList(1), intervalChunks);
+    }
+
+    @Test
+    public void testEventTriggersAreLoaded() throws Exception {
+        String config = "{\"eventTriggers\":[{\"id\":\"door\",\"sourceChannel\":\"/door\",\"publishChannel\":\"/ACK\"," +
+                "\"throttleMillis\":1000},{\"id\":\"no-source\",\"publishChannel\":\"/ACK\"}]}";
+        List<EventTrigger> events = new ArrayList<>();
+
+        TriggersLoader.Counts counts = new TriggersLoader().load(config, calendar -> { },
+                chunk -> rangeChunks.add(chunk.size()), chunk -> intervalChunks.add(chunk.size()), events::addAll);
+
+        assertEquals(1, counts.getEvent());
+        assertEquals(1, counts.getValid());
+        assertEquals(1, counts.getInvalid());
+        assertEquals("/door", events.get(0).getSourceChannel());
+        assertEquals(Long.valueOf(1000), events.get(0).getThrottleMillis());
+    }
+
+    private TriggersLoader.Counts load(TriggersLoader loader, String config) throws Exception {
+        return loader.load(config, (List<RangeTrigger> chunk) -> rangeChunks.add(chunk.size()),
+                (List<IntervalTrigger> chunk) -> intervalChunks.add(chunk.size()));
+    }
+
+    private static String config(int rangeCount, int intervalCount) {
+        StringBuilder config = new StringBuilder("{\"rangeTriggers\":[");
+        for (int i = 0; i < rangeCount; i++) {
+            config.append(i > 0 ? "," : "").append("{\"id\":\"range-").append(i)
+                    .append("\",\"startTime\":\"11:00 PM\",\"endTime\":\"5:00 AM\",\"publishChannel\":\"/DEX\"}");
+        }
+        config.append("],\"intervalTriggers\":[");
+        for (int i = 0; i < intervalCount; i++) {
+            config.append(i > 0 ? "," : "").append(intervalTrigger(i));
+        }
+        return config.append("]}").toString();
+    }
+
+    private static String intervalTrigger(int i) {
+        return "{\"id\":\"interval-" + i + "\",\"interval\":15,\"unit\":\"MINUTES\",\"publishChannel\":\"/ACK\"}";
+    }
+}
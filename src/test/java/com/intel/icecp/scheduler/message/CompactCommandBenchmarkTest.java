@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.message;
+
+import com.intel.icecp.core.metadata.formats.JsonFormat;
+import com.intel.icecp.rpc.CommandRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the per-fire cost of today's RPC path (JSON encoding of the {@link CommandRequest} by the channel on every
+ * publish) with the compact payload (CBOR encoded once when the trigger is scheduled).
+ */
+public class CompactCommandBenchmarkTest {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    public void compareJsonAndCompactPayloads() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/var/log/telemetry");
+        params.put("retries", "3");
+        params.put("compress", "true");
+        CommandRequest request = CommandRequest.from("upload", params);
+        JsonFormat<CommandRequest> json = new JsonFormat<>(CommandRequest.class);
+
+        int jsonSize = encodeJson(json, request);
+        int compactSize = CompactCommand.encode("upload", params).length;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            encodeJson(json, request);
+            CompactCommand.encode("upload", params);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encodeJson(json, request);
+        }
+        long jsonNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            CompactCommand.encode("upload", params);
+        }
+        long compactNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        LOGGER.info("JSON request: {} bytes, {} ns per fire (encoded on every publish)", jsonSize, jsonNanos);
+        LOGGER.info("CBOR payload: {} bytes, {} ns once per trigger, 0 ns per fire", compactSize, compactNanos);
+
+        assertTrue("compact payload is " + compactSize + " bytes, JSON is " + jsonSize, compactSize < jsonSize);
+    }
+
+    private static int encodeJson(JsonFormat<CommandRequest> json, CommandRequest request) throws Exception {
+        int size = 0;
+        try (InputStream stream = json.encode(request)) {
+            while (stream.read() != -1) {
+                size++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.message;
+
+import com.intel.icecp.core.messages.BytesMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompactCommandTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test", "Value1");
+
+        CompactCommand command = CompactCommand.decode(new BytesMessage(CompactCommand.encode("start", params)));
+
+        assertEquals("start", command.getCmd());
+        assertEquals("Value1", command.getParams().get("test"));
+    }
+
+    @Test
+    public void testEncodeDecodeWithoutCmdAndParams() throws Exception {
+        CompactCommand command = CompactCommand.decode(CompactCommand.encode(null, null));
+
+        assertNull(command.getCmd());
+        assertTrue(command.getParams().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeRejectsOtherPayloads() throws Exception {
+        CompactCommand.decode(new byte[]{(byte) 0x83, 0x01, 0x02, 0x03});
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class MetricsMessageTest {
+    private final ObjectMapper o = new ObjectMapper();
+
+    @Test
+    public void testPriorityAndChannelMetricsSurviveJson() throws Exception {
+        MetricsMessage message = new MetricsMessage(new Date(1000), 10000, 20, 18, 2, 1, 2.0, 1, 5, 7, 3,
+                Collections.singletonList(new MetricsMessage.PriorityMetrics(TriggerPriority.LOW, 3, 10, 6, 1, 0, 2, 40, 90)),
+                0.5, 1, -2000, 120,
+                Collections.singletonList(new MetricsMessage.ChannelMetrics(URI.create("ndn:/a"), 18, 2)));
+
+        MetricsMessage read = o.readValue(o.writeValueAsString(message), MetricsMessage.class);
+
+        assertEquals(3, read.getQueueDepth());
+        MetricsMessage.PriorityMetrics low = read.getPriorities().get(0);
+        assertEquals(TriggerPriority.LOW, low.getPriority());
+        assertEquals(3, low.getDepth());
+        assertEquals(10, low.getEnqueued());
+        assertEquals(6, low.getDispatched());
+        assertEquals(2, low.getShed());
+        assertEquals(40, low.getMeanWaitMicros());
+        assertEquals(90, low.getMaxWaitMicros());
+        assertEquals(-2000, read.getLastClockJumpMillis());
+        assertEquals(120, read.getMaxTimerLatenessMicros());
+        assertEquals(URI.create("ndn:/a"), read.getChannels().get(0).getChannel());
+        assertEquals(2, read.getChannels().get(0).getFailed());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.AdaptiveFeedback;
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AdaptiveIntervalTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testFailuresBackOffMultiplicativelyAndRecoverAdditively() {
+        AdaptiveInterval adaptive = new AdaptiveInterval(new AdaptivePolicy(100, 1000, null, 50, null, null),
+                TimeUnit.MILLISECONDS, 100 * MILLI);
+
+        adaptive.onPublished(false, 0, 0);
+        assertEquals(200 * MILLI, adaptive.getIntervalNanos());
+        adaptive.onPublished(false, 0, 0);
+        adaptive.onPublished(false, 0, 0);
+        adaptive.onPublished(false, 0, 0);
+        assertEquals(1000 * MILLI, adaptive.getIntervalNanos());
+
+        adaptive.onPublished(true, 0, 0);
+        assertEquals(950 * MILLI, adaptive.getIntervalNanos());
+        for (int i = 0; i < 20; i++) {
+            adaptive.onPublished(true, 0, 0);
+        }
+        assertEquals(100 * MILLI, adaptive.getIntervalNanos());
+        assertEquals(4, adaptive.getBackoffs());
+        assertEquals(21, adaptive.getRecoveries());
+    }
+
+    @Test
+    public void testLatencyAboveTargetBacksOff() {
+        AdaptiveInterval adaptive = new AdaptiveInterval(new AdaptivePolicy(1, 60, AdaptiveFeedback.LATENCY, null, 3.0, 20L),
+                TimeUnit.SECONDS, TimeUnit.SECONDS.toNanos(10));
+
+        adaptive.onPublished(true, 0, 25 * MILLI);
+        assertEquals(TimeUnit.SECONDS.toNanos(30), adaptive.getIntervalNanos());
+        adaptive.onPublished(true, 0, 5 * MILLI);
+        assertEquals(TimeUnit.SECONDS.toNanos(29), adaptive.getIntervalNanos());
+    }
+
+    @Test
+    public void testResponsesDriveTheInterval() {
+        AdaptiveInterval adaptive = new AdaptiveInterval(new AdaptivePolicy(10, 1000, AdaptiveFeedback.RESPONSE, 10, null, 50L),
+                TimeUnit.MILLISECONDS, 100 * MILLI);
+
+        // publishing alone does not change the interval
+        adaptive.onPublishing(0);
+        adaptive.onPublished(true, 0, MILLI);
+        assertEquals(100 * MILLI, adaptive.getIntervalNanos());
+        adaptive.onResponse(false, 20 * MILLI);
+        assertEquals(90 * MILLI, adaptive.getIntervalNanos());
+
+        // error and slow responses back off
+        adaptive.onPublishing(100 * MILLI);
+        adaptive.onResponse(true, 110 * MILLI);
+        assertEquals(180 * MILLI, adaptive.getIntervalNanos());
+        adaptive.onPublishing(300 * MILLI);
+        adaptive.onResponse(false, 400 * MILLI);
+        assertEquals(360 * MILLI, adaptive.getIntervalNanos());
+
+        // a fire still unanswered at the next fire backs off, and its late response is ignored
+        adaptive.onPublishing(800 * MILLI);
+        adaptive.onPublishing(1200 * MILLI);
+        assertEquals(720 * MILLI, adaptive.getIntervalNanos());
+        adaptive.onResponse(false, 1210 * MILLI);
+        adaptive.onResponse(false, 1220 * MILLI);
+        assertEquals(710 * MILLI, adaptive.getIntervalNanos());
+        assertEquals(3, adaptive.getBackoffs());
+        assertEquals(2, adaptive.getRecoveries());
+    }
+
+    @Test
+    public void testInitialIntervalIsClampedAndOnlyAdaptiveTriggersAdapt() {
+        IntervalTrigger trigger = new IntervalTrigger("t", 5, "SECONDS", "/t", "start", null);
+        assertNull(AdaptiveInterval.from(trigger));
+
+        trigger.setAdaptive(new AdaptivePolicy(10, 20, null, null, null, null));
+        assertEquals(TimeUnit.SECONDS.toNanos(10), AdaptiveInterval.from(trigger).getIntervalNanos());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledCalendarTest {
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    public void testUndefinedCalendarExcludesNothing() {
+        assertFalse(new CompiledCalendar("none").isExcluded(0));
+    }
+
+    @Test
+    public void testDatesAndDaysOfWeek() {
+        CompiledCalendar calendar = compile(new ExclusionCalendar("c", Collections.singletonList("2017-12-25"),
+                Collections.singletonList("SATURDAY"), null), ZoneOffset.UTC);
+
+        assertTrue(calendar.isExcluded(utc(2017, 12, 25, 0, 0)));
+        assertTrue(calendar.isExcluded(utc(2017, 12, 25, 23, 59)));
+        assertFalse(calendar.isExcluded(utc(2017, 12, 26, 0, 0)));
+        // 2017-12-23 is a Saturday
+        assertTrue(calendar.isExcluded(utc(2017, 12, 23, 12, 0)));
+        assertFalse(calendar.isExcluded(utc(2017, 12, 22, 12, 0)));
+        assertTrue(calendar.isExcluded(utc(1969, 12, 27, 12, 0)));
+    }
+
+    @Test
+    public void testDatesBeforeTheEpochAreIgnored() {
+        CompiledCalendar calendar = compile(new ExclusionCalendar("c", Arrays.asList("1969-07-20", "2017-12-25"), null,
+                null), ZoneOffset.UTC);
+
+        assertFalse(calendar.isExcluded(utc(1969, 7, 20, 12, 0)));
+        assertTrue(calendar.isExcluded(utc(2017, 12, 25, 12, 0)));
+    }
+
+    @Test
+    public void testWindowsIncludingPastMidnight() {
+        CompiledCalendar calendar = compile(new ExclusionCalendar("c", null, null, Arrays.asList(
+                new ExclusionCalendar.Window("1:00 AM", "3:00 AM"),
+                new ExclusionCalendar.Window("11:30 PM", "12:15 AM"))), ZoneOffset.UTC);
+
+        assertTrue(calendar.isExcluded(utc(2017, 3, 1, 1, 0)));
+        assertTrue(calendar.isExcluded(utc(2017, 3, 1, 2, 59)));
+        assertFalse(calendar.isExcluded(utc(2017, 3, 1, 3, 0)));
+        assertTrue(calendar.isExcluded(utc(2017, 3, 1, 23, 45)));
+        assertTrue(calendar.isExcluded(utc(2017, 3, 2, 0, 10)));
+        assertFalse(calendar.isExcluded(utc(2017, 3, 2, 0, 15)));
+    }
+
+    @Test
+    public void testLocalTimeFollowsDaylightSavingTime() {
+        CompiledCalendar calendar = compile(new ExclusionCalendar("c", null, null,
+                Collections.singletonList(new ExclusionCalendar.Window("9:00 AM", "10:00 AM"))), BERLIN);
+
+        // 9:30 local is 8:30 UTC in winter and 7:30 UTC in summer
+        assertTrue(calendar.isExcluded(utc(2017, 1, 15, 8, 30)));
+        assertFalse(calendar.isExcluded(utc(2017, 1, 15, 7, 30)));
+        assertTrue(calendar.isExcluded(utc(2017, 7, 15, 7, 30)));
+        assertFalse(calendar.isExcluded(utc(2017, 7, 15, 8, 30)));
+        assertTrue(calendar.isExcluded(utc(2017, 1, 16, 8, 30)));
+    }
+
+    @Test
+    public void testRedefinitionReplacesExclusions() {
+        CompiledCalendar calendar = compile(new ExclusionCalendar("c", null, Collections.singletonList("MONDAY"), null),
+                ZoneOffset.UTC);
+        calendar.define(new ExclusionCalendar("c", null, Collections.singletonList("TUESDAY"), null), ZoneOffset.UTC);
+
+        // 2017-03-06 is a Monday
+        assertFalse(calendar.isExcluded(utc(2017, 3, 6, 12, 0)));
+        assertTrue(calendar.isExcluded(utc(2017, 3, 7, 12, 0)));
+    }
+
+    private static CompiledCalendar compile(ExclusionCalendar config, ZoneId zone) {
+        CompiledCalendar calendar = new CompiledCalendar(config.getName());
+        calendar.define(config, zone);
+        return calendar;
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DispatcherTest {
+
+    @Test
+    public void testHigherPriorityFiresAreDispatchedFirst() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(4);
+        Dispatcher dispatcher = new Dispatcher(trigger -> {
+            fired.add(trigger.getId());
+            latch.countDown();
+        }, 1, 16);
+
+        // queued before the worker runs, so the order only depends on priority
+        dispatcher.fire(trigger("low", TriggerPriority.LOW));
+        dispatcher.fire(trigger("normal", TriggerPriority.NORMAL));
+        dispatcher.fire(trigger("high-1", TriggerPriority.HIGH));
+        dispatcher.fire(trigger("high-2", TriggerPriority.HIGH));
+        dispatcher.start();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        dispatcher.close();
+        assertEquals(Arrays.asList("high-1", "high-2", "normal", "low"), fired);
+    }
+
+    @Test
+    public void testEarlierDeadlineIsDispatchedFirstWithinPriority() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(4);
+        Dispatcher dispatcher = new Dispatcher(trigger -> {
+            fired.add(trigger.getId());
+            latch.countDown();
+        }, 1, 16, 60_000);
+
+        long now = System.currentTimeMillis();
+        dispatcher.fire(trigger("none", TriggerPriority.NORMAL, 0), now);
+        dispatcher.fire(trigger("late", TriggerPriority.NORMAL, 30_000), now);
+        dispatcher.fire(trigger("soon", TriggerPriority.NORMAL, 10_000), now);
+        // the deadline counts from the scheduled time, so a fire that was already late sorts first
+        dispatcher.fire(trigger("overdue", TriggerPriority.NORMAL, 30_000), now - 25_000);
+        dispatcher.start();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        dispatcher.close();
+        assertEquals(Arrays.asList("overdue", "soon", "late", "none"), fired);
+    }
+
+    @Test
+    public void testFiresPastTheirDeadlineAreExpired() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        Dispatcher dispatcher = new Dispatcher(trigger -> fired.add(trigger.getId()), 1, 16);
+
+        long now = System.currentTimeMillis();
+        dispatcher.fire(trigger("stale", TriggerPriority.NORMAL, 1000), now - 5000);
+        dispatcher.fire(trigger("short", TriggerPriority.NORMAL, 20), now);
+        dispatcher.fire(trigger("kept", TriggerPriority.NORMAL, 0), now - 5000);
+        Thread.sleep(50);
+        dispatcher.start();
+        dispatcher.close();
+
+        DispatchStats normal = dispatcher.getStats(TriggerPriority.NORMAL);
+        assertEquals(Collections.singletonList("kept"), fired);
+        assertEquals(2, normal.getExpired());
+        assertEquals(1, normal.getDispatched());
+        assertEquals(0, normal.getDropped());
+    }
+
+    @Test
+    public void testExpiredHigherPriorityDoesNotStallLowerPriorities() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        Dispatcher dispatcher = new Dispatcher(trigger -> {
+            fired.add(trigger.getId());
+            latch.countDown();
+        }, 1, 16);
+
+        dispatcher.fire(trigger("expired", TriggerPriority.HIGH, 20));
+        dispatcher.fire(trigger("low", TriggerPriority.LOW));
+        Thread.sleep(50);
+        dispatcher.start();
+
+        // nothing else is queued, so the low fire is only delivered if the worker moves on past the expired one
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        dispatcher.close();
+        assertEquals(Collections.singletonList("low"), fired);
+        assertEquals(1, dispatcher.getStats(TriggerPriority.HIGH).getExpired());
+    }
+
+    @Test
+    public void testFiresBeyondCapacityAreDroppedPerPriority() {
+        Dispatcher dispatcher = new Dispatcher(trigger -> { }, 1, 2);
+        for (int i = 0; i < 3; i++) {
+            dispatcher.fire(trigger("normal-" + i, TriggerPriority.NORMAL));
+        }
+        dispatcher.fire(trigger("high", TriggerPriority.HIGH));
+
+        DispatchStats normal = dispatcher.getStats(TriggerPriority.NORMAL);
+        assertEquals(2, normal.getDepth());
+        assertEquals(2, normal.getEnqueued());
+        assertEquals(1, normal.getDropped());
+        assertEquals(1, dispatcher.getStats(TriggerPriority.HIGH).getDepth());
+        assertEquals(0, dispatcher.getStats(TriggerPriority.HIGH).getDropped());
+    }
+
+    @Test
+    public void testCloseDispatchesQueuedFires() {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        Dispatcher dispatcher = new Dispatcher(trigger -> fired.add(trigger.getId()), 2, 16);
+        dispatcher.start();
+        for (int i = 0; i < 10; i++) {
+            dispatcher.fire(trigger("t" + i, TriggerPriority.LOW));
+        }
+        dispatcher.close();
+
+        DispatchStats low = dispatcher.getStats(TriggerPriority.LOW);
+        assertEquals(10, fired.size());
+        assertEquals(10, low.getDispatched());
+        assertEquals(0, low.getDepth());
+        assertEquals(0, low.getDropped());
+        assertTrue(low.getMaxWaitMicros() >= low.getMeanWaitMicros());
+    }
+
+    @Test
+    public void testFailingHandlerDoesNotStopWorker() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Dispatcher dispatcher = new Dispatcher(trigger -> {
+            if (trigger.getId().equals("bad")) {
+                throw new IllegalStateException("mock exception");
+            }
+            latch.countDown();
+        }, 1, 16);
+        dispatcher.start();
+        dispatcher.fire(trigger("bad", TriggerPriority.NORMAL));
+        dispatcher.fire(trigger("good", TriggerPriority.NORMAL));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        dispatcher.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacityThrows() {
+        new Dispatcher(trigger -> { }, 1, 0);
+    }
+
+    private static ScheduledTrigger trigger(String id, TriggerPriority priority) {
+        return trigger(id, priority, 0);
+    }
+
+    private static ScheduledTrigger trigger(String id, TriggerPriority priority, long deadlineMillis) {
+        return new ScheduledTrigger(-1, id, new TriggerGroup("test-group"), new URI[]{URI.create("/ch")}, null, null, priority,
+                deadlineMillis, null, null, FireDelivery.BOTH);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventGateTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private final ScheduledTrigger trigger = new ScheduledTrigger("t", "group", URI.create("/t"), CommandRequest.from("start"));
+    private final EventTrigger config = new EventTrigger("t", "/source", "/t", "start", null);
+
+    @Test
+    public void testEveryMessageFiresWithoutLimits() {
+        EventGate gate = new EventGate(trigger, config, 0);
+
+        assertEquals(EventGate.FIRE, gate.onEvent(1));
+        assertEquals(EventGate.FIRE, gate.onEvent(2));
+        assertEquals(2, gate.getFires());
+    }
+
+    @Test
+    public void testDebounceFiresOnceTheSourceIsQuiet() {
+        config.setDebounceMillis(100L);
+        EventGate gate = new EventGate(trigger, config, 0);
+
+        assertEquals(100 * MS, gate.onEvent(0));
+        assertEquals(EventGate.NONE, gate.onEvent(60 * MS));
+        // the second message restarted the window
+        assertEquals(60 * MS, gate.check(100 * MS));
+        assertEquals(EventGate.FIRE, gate.check(160 * MS));
+        assertEquals(EventGate.NONE, gate.check(170 * MS));
+        assertEquals(2, gate.getReceived());
+        assertEquals(1, gate.getFires());
+
+        assertEquals(100 * MS, gate.onEvent(200 * MS));
+    }
+
+    @Test
+    public void testThrottleDropsFiresWithinTheWindow() {
+        config.setThrottleMillis(100L);
+        EventGate gate = new EventGate(trigger, config, 0);
+
+        assertEquals(EventGate.FIRE, gate.onEvent(0));
+        assertEquals(EventGate.NONE, gate.onEvent(50 * MS));
+        assertEquals(EventGate.FIRE, gate.onEvent(100 * MS));
+        assertEquals(2, gate.getFires());
+        assertEquals(1, gate.getDropped());
+    }
+
+    @Test
+    public void testMaxRateAllowsOneSecondBurstThenRefills() {
+        config.setMaxPerSecond(2.0);
+        EventGate gate = new EventGate(trigger, config, 0);
+
+        assertEquals(EventGate.FIRE, gate.onEvent(0));
+        assertEquals(EventGate.FIRE, gate.onEvent(1));
+        assertEquals(EventGate.NONE, gate.onEvent(2));
+        assertEquals(EventGate.FIRE, gate.onEvent(500 * MS));
+        assertEquals(EventGate.NONE, gate.onEvent(600 * MS));
+        assertEquals(3, gate.getFires());
+        assertEquals(2, gate.getDropped());
+    }
+}
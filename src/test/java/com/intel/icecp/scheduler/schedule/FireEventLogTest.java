@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FireEventLogTest {
+
+    @Test
+    public void testFirstFiresAreSampled() {
+        FireEventLog log = new FireEventLog(3, 10);
+        assertTrue(log.isSampled(1));
+        assertTrue(log.isSampled(2));
+        assertTrue(log.isSampled(3));
+        assertFalse(log.isSampled(4));
+    }
+
+    @Test
+    public void testEveryNthFireIsSampledAfterFirst() {
+        FireEventLog log = new FireEventLog(3, 10);
+        assertFalse(log.isSampled(12));
+        assertTrue(log.isSampled(13));
+        assertFalse(log.isSampled(14));
+        assertTrue(log.isSampled(23));
+    }
+
+    @Test
+    public void testZeroEveryOnlySamplesFirst() {
+        FireEventLog log = new FireEventLog(1, 0);
+        assertTrue(log.isSampled(1));
+        assertFalse(log.isSampled(2));
+        assertFalse(log.isSampled(101));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightEventsTest {
+    private ScheduledTrigger trigger;
+
+    @Before
+    public void before() {
+        assumeTrue(FlightEvents.isAvailable());
+        trigger = ScheduledTrigger.from(new IntervalTrigger("recorded", 1, "SECONDS", "/recorded", "start", null), "group");
+    }
+
+    @Test
+    public void testNothingIsBegunWithoutRecording() {
+        assertNull(FlightEvents.beginPublish());
+        assertNull(FlightEvents.beginChannelOpen());
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.intel.icecp.scheduler.TriggerScheduled");
+            recording.enable("com.intel.icecp.scheduler.TriggerFired");
+            recording.enable("com.intel.icecp.scheduler.ChannelOpened");
+            recording.enable("com.intel.icecp.scheduler.FirePublished");
+            recording.start();
+
+            FlightEvents.scheduled(trigger, "quartz", 1000, 5000);
+            FlightEvents.fired(trigger, 6000, 15);
+            Object open = FlightEvents.beginChannelOpen();
+            FlightEvents.endChannelOpen(open, URI.create("/recorded"), String.class, true);
+            Object publish = FlightEvents.beginPublish();
+            FlightEvents.endPublish(publish, trigger, URI.create("/recorded"), false);
+
+            recording.stop();
+            Path file = Files.createTempFile("scheduler", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        assertEquals(4, events.size());
+        RecordedEvent scheduled = event(events, "com.intel.icecp.scheduler.TriggerScheduled");
+        assertEquals("recorded", scheduled.getString("id"));
+        assertEquals("quartz", scheduled.getString("timer"));
+        assertEquals(Duration.ofSeconds(1), scheduled.getDuration("interval"));
+        assertEquals(5000, scheduled.getInstant("start").toEpochMilli());
+
+        RecordedEvent fired = event(events, "com.intel.icecp.scheduler.TriggerFired");
+        assertEquals("group", fired.getString("group"));
+        assertEquals("NORMAL", fired.getString("priority"));
+        assertEquals(6000, fired.getInstant("scheduled").toEpochMilli());
+        assertEquals(Duration.ofMillis(15), fired.getDuration("late"));
+
+        RecordedEvent opened = event(events, "com.intel.icecp.scheduler.ChannelOpened");
+        assertEquals("/recorded", opened.getString("channel"));
+        assertTrue(opened.getBoolean("opened"));
+
+        RecordedEvent published = event(events, "com.intel.icecp.scheduler.FirePublished");
+        assertEquals("recorded", published.getString("id"));
+        assertFalse(published.getBoolean("compact"));
+        assertFalse(published.getBoolean("published"));
+    }
+
+    private static RecordedEvent event(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Jitter benchmark of the high resolution timer: fires a 500 microsecond trigger and measures how far the time between
+ * consecutive fires is from the interval. The median is asserted; the tail depends on the machine and is only logged.
+ * Too sensitive to machine load for the unit tests, so it runs in the {@code benchmark} profile only.
+ */
+public class HighResolutionJitterTest {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final int WARMUP_FIRES = 2_000;
+    private static final int MEASURED_FIRES = 4_000;
+    private static final long MAX_MEDIAN_JITTER_MICROS = 100;
+
+    @Test
+    public void highResolutionFiresStayOnTheGrid() throws Exception {
+        long[] times = new long[WARMUP_FIRES + MEASURED_FIRES];
+        CountDownLatch done = new CountDownLatch(1);
+        int[] count = new int[1];
+        MonotonicTimer timer = MonotonicTimer.highResolution(trigger -> {
+            if (count[0] < times.length) {
+                times[count[0]++] = System.nanoTime();
+                if (count[0] == times.length) {
+                    done.countDown();
+                }
+            }
+        });
+        timer.add(new ScheduledTrigger("hires", "group", URI.create("/hires"), CommandRequest.from("start")),
+                INTERVAL_NANOS, IntervalTiming.FIXED_RATE);
+        timer.start();
+        try {
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            timer.close();
+        }
+
+        long[] jitter = new long[MEASURED_FIRES];
+        for (int i = 0; i < MEASURED_FIRES; i++) {
+            long period = times[WARMUP_FIRES + i] - times[WARMUP_FIRES + i - 1];
+            // a skipped fire makes the period a multiple of the interval
+            long intervals = Math.max(1, (period + INTERVAL_NANOS / 2) / INTERVAL_NANOS);
+            jitter[i] = Math.abs(period - intervals * INTERVAL_NANOS);
+        }
+        Arrays.sort(jitter);
+        long median = TimeUnit.NANOSECONDS.toMicros(jitter[MEASURED_FIRES / 2]);
+        LOGGER.info("High resolution jitter: median={} us, p99={} us, max={} us, skipped={}", median,
+                TimeUnit.NANOSECONDS.toMicros(jitter[MEASURED_FIRES * 99 / 100]),
+                TimeUnit.NANOSECONDS.toMicros(jitter[MEASURED_FIRES - 1]), timer.getSkipped());
+
+        assertTrue("median jitter " + median + " us", median <= MAX_MEDIAN_JITTER_MICROS);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LagWatchdogTest {
+    private long offsetNanos;
+
+    @Test
+    public void testDegradesAndShedsUntilTheLagRecovers() throws Exception {
+        List<String> fired = new ArrayList<>();
+        Dispatcher dispatcher = new Dispatcher(trigger -> fired.add(trigger.getId()), 1, 16);
+        LagWatchdog watchdog = new LagWatchdog(dispatcher, 1000, 1000, true, () -> System.nanoTime() + offsetNanos);
+        List<String> changes = new ArrayList<>();
+        watchdog.setListener((degraded, lagMillis) -> changes.add(degraded + "@" + (lagMillis >= 1000)));
+
+        // a fire queued before the workers run falls 2 s behind
+        dispatcher.fire(trigger("normal", TriggerPriority.NORMAL));
+        offsetNanos = TimeUnit.SECONDS.toNanos(2);
+        watchdog.check();
+        assertTrue(watchdog.isDegraded());
+        assertTrue(dispatcher.isShedding());
+        assertTrue(watchdog.getLagMillis() >= 2000);
+
+        dispatcher.fire(trigger("low", TriggerPriority.LOW));
+        assertEquals(1, dispatcher.getStats(TriggerPriority.LOW).getShed());
+
+        // the queue drains, so the lag recovers
+        dispatcher.start();
+        dispatcher.close();
+        watchdog.check();
+        assertFalse(watchdog.isDegraded());
+        assertFalse(dispatcher.isShedding());
+        assertEquals(0, watchdog.getLagMillis());
+        assertTrue(watchdog.getMaxLagMillis() >= 2000);
+        assertEquals(1, watchdog.getDegradations());
+        assertEquals("[true@true, false@false]", changes.toString());
+        assertEquals("[normal]", fired.toString());
+    }
+
+    @Test
+    public void testLagBetweenTheLevelsKeepsTheState() {
+        Dispatcher dispatcher = new Dispatcher(trigger -> { }, 1, 16);
+        LagWatchdog watchdog = new LagWatchdog(dispatcher, 1000, 1000, false, () -> System.nanoTime() + offsetNanos);
+        dispatcher.fire(trigger("t", TriggerPriority.LOW), System.currentTimeMillis() - 700);
+
+        watchdog.check();
+        assertFalse(watchdog.isDegraded());
+        offsetNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        watchdog.check();
+        assertTrue(watchdog.isDegraded());
+        // shedding is off unless configured
+        assertFalse(dispatcher.isShedding());
+        offsetNanos = 0;
+        watchdog.check();
+        assertTrue(watchdog.isDegraded());
+    }
+
+    private static ScheduledTrigger trigger(String id, TriggerPriority priority) {
+        return new ScheduledTrigger(-1, id, new TriggerGroup("test-group"), new URI[]{URI.create("/ch")}, null, null,
+                priority, 0, null, null, FireDelivery.BOTH);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.rpc.CommandRequest;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LocalFirePublisherTest {
+    private final LocalFirePublisher publisher = new LocalFirePublisher(Runnable::run, 2);
+    private final ScheduledTrigger a = new ScheduledTrigger("a", "group", URI.create("/a"), CommandRequest.from("start"));
+    private final ScheduledTrigger b = new ScheduledTrigger("b", "group", URI.create("/b"), CommandRequest.from("stop"));
+
+    @Test
+    public void testNothingIsDeliveredUntilRequested() {
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        publisher.offer(a);
+        assertTrue(recorder.subscribed);
+        assertTrue(recorder.events.isEmpty());
+
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.events.size());
+        assertSame(a.getRequest(), recorder.events.get(0).getRequest());
+        assertEquals("a", recorder.events.get(0).getId());
+
+        publisher.offer(b);
+        assertEquals(1, recorder.events.size());
+        recorder.subscription.request(Long.MAX_VALUE);
+        recorder.subscription.request(Long.MAX_VALUE);
+        publisher.offer(a);
+        assertEquals(3, recorder.events.size());
+    }
+
+    @Test
+    public void testFullBufferDropsFires() {
+        Recorder recorder = new Recorder();
+        assertFalse(publisher.offer(a));
+        publisher.subscribe(recorder);
+        assertTrue(publisher.offer(a));
+        assertTrue(publisher.offer(a));
+        assertFalse(publisher.offer(a));
+
+        assertEquals(1, publisher.getDropped());
+        recorder.subscription.request(10);
+        assertEquals(2, recorder.events.size());
+    }
+
+    @Test
+    public void testChannelSubscribersOnlyReceiveTheirChannel() {
+        Recorder recorder = new Recorder();
+        publisher.subscribe(URI.create("/b"), recorder);
+        recorder.subscription.request(10);
+        assertFalse(publisher.offer(a));
+        assertTrue(publisher.offer(b));
+
+        assertEquals(1, recorder.events.size());
+        assertEquals("b", recorder.events.get(0).getId());
+    }
+
+    @Test
+    public void testCloseCompletesAfterBufferedFires() {
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        publisher.offer(a);
+        publisher.close();
+        assertFalse(recorder.completed);
+
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.events.size());
+        assertTrue(recorder.completed);
+        assertFalse(publisher.hasSubscribers());
+    }
+
+    @Test
+    public void testInvalidRequestFailsAndCancelsSubscription() {
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        recorder.subscription.request(0);
+
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        assertEquals(0, publisher.getSubscriberCount());
+        publisher.offer(a);
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    public void testCancelledSubscriberReceivesNothing() {
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        recorder.subscription.request(10);
+        recorder.subscription.cancel();
+        publisher.offer(a);
+
+        assertTrue(recorder.events.isEmpty());
+        assertNull(recorder.error);
+        assertFalse(recorder.completed);
+    }
+
+    private static class Recorder implements FireFlow.Subscriber<FireEvent> {
+        private final List<FireEvent> events = new ArrayList<>();
+        private FireFlow.Subscription subscription;
+        private boolean subscribed;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(FireFlow.Subscription subscription) {
+            this.subscription = subscription;
+            subscribed = true;
+        }
+
+        @Override
+        public void onNext(FireEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonotonicTimerTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private VirtualClock wall;
+    private long nanos;
+    private List<Long> fired;
+    private MonotonicTimer timer;
+    private ScheduledTrigger trigger;
+
+    @Before
+    public void setUp() {
+        wall = new VirtualClock(Instant.ofEpochSecond(1_500_000_000), ZoneOffset.UTC);
+        nanos = 0;
+        fired = new ArrayList<>();
+        FireHandler handler = new FireHandler() {
+            @Override
+            public void fire(ScheduledTrigger trigger) {
+                throw new AssertionError("scheduled time expected");
+            }
+
+            @Override
+            public void fire(ScheduledTrigger trigger, long scheduledMillis) {
+                fired.add(scheduledMillis);
+            }
+        };
+        timer = new MonotonicTimer(handler, wall, () -> nanos, 1000, 0, "test-timer");
+        trigger = new ScheduledTrigger("t", "group", URI.create("/t"), CommandRequest.from("start"));
+    }
+
+    @Test
+    public void testFixedRateDoesNotAccumulateDrift() {
+        timer.add(trigger, 100 * MILLI, IntervalTiming.FIXED_RATE);
+
+        // every wakeup is 7 ms late, but each fire time still counts from the first fire
+        for (int i = 0; i < 10; i++) {
+            advance(i == 0 ? 7 : 100);
+            assertEquals(93 * MILLI, timer.fireDue(nanos));
+        }
+        assertEquals(10, fired.size());
+        assertEquals(fired.get(0) + 900, (long) fired.get(9));
+        assertEquals(7000, timer.getMaxLatenessMicros());
+        assertEquals(0, timer.getSkipped());
+    }
+
+    @Test
+    public void testFixedRateSkipsFiresMissedByMoreThanAnInterval() {
+        timer.add(trigger, 100 * MILLI, IntervalTiming.FIXED_RATE);
+        timer.fireDue(nanos);
+
+        advance(350);
+        assertEquals(50 * MILLI, timer.fireDue(nanos));
+        assertEquals(2, fired.size());
+        assertEquals(2, timer.getSkipped());
+        // the next fire stays on the original grid
+        advance(50);
+        timer.fireDue(nanos);
+        assertEquals(fired.get(0) + 400, (long) fired.get(2));
+    }
+
+    @Test
+    public void testFixedDelayCountsFromThePreviousFire() {
+        timer.add(trigger, 100 * MILLI, IntervalTiming.FIXED_DELAY);
+        timer.fireDue(nanos);
+
+        // the second fire is handed off 30 ms late, so the third is due 100 ms after that
+        advance(130);
+        assertEquals(100 * MILLI, timer.fireDue(nanos));
+        advance(100);
+        timer.fireDue(nanos);
+        assertEquals(3, fired.size());
+        assertEquals(fired.get(0) + 230, (long) fired.get(2));
+        assertEquals(0, timer.getSkipped());
+    }
+
+    @Test
+    public void testAdaptiveDelayIsReadAfterEveryFire() {
+        IntervalTrigger config = new IntervalTrigger("a", 100, "MILLISECONDS", "/a", "start", null);
+        config.setAdaptive(new AdaptivePolicy(100, 400, null, null, null, null));
+        ScheduledTrigger adaptive = ScheduledTrigger.from(config, "group");
+        timer.add(adaptive, adaptive.getAdaptive().getIntervalNanos(), IntervalTiming.FIXED_DELAY);
+        timer.fireDue(nanos);
+
+        // each back off lengthens the delay computed at the following fire
+        advance(100);
+        adaptive.getAdaptive().onPublished(false, 0, 0);
+        assertEquals(200 * MILLI, timer.fireDue(nanos));
+        adaptive.getAdaptive().onPublished(false, 0, 0);
+        advance(200);
+        assertEquals(400 * MILLI, timer.fireDue(nanos));
+        assertEquals(3, fired.size());
+    }
+
+    @Test
+    public void testWallClockJumpIsDetectedAndDoesNotMoveFires() {
+        timer.add(trigger, 100 * MILLI, IntervalTiming.FIXED_RATE);
+        timer.fireDue(nanos);
+
+        nanos += 50 * MILLI;
+        wall.advance(Duration.ofMillis(50).plusHours(1));
+        timer.checkClock(nanos);
+        assertEquals(1, timer.getClockJumps());
+        assertEquals(TimeUnit.HOURS.toMillis(1), timer.getLastClockJumpMillis());
+        assertEquals(50 * MILLI, timer.fireDue(nanos));
+        assertEquals(1, fired.size());
+
+        // small differences are not jumps
+        nanos += 50 * MILLI;
+        wall.advance(Duration.ofMillis(50 + 400));
+        timer.checkClock(nanos);
+        assertEquals(1, timer.getClockJumps());
+    }
+
+    @Test
+    public void testTimerThreadFires() throws Exception {
+        CountDownLatch latch = new CountDownLatch(3);
+        MonotonicTimer running = new MonotonicTimer(t -> latch.countDown());
+        running.add(trigger, 10 * MILLI, IntervalTiming.FIXED_RATE);
+        running.start();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        running.close();
+        assertEquals(0, running.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWallClockTimingIsRejected() {
+        timer.add(trigger, 100 * MILLI, IntervalTiming.WALL_CLOCK);
+    }
+
+    private void advance(long millis) {
+        nanos += millis * MILLI;
+        wall.advance(Duration.ofMillis(millis));
+    }
+}
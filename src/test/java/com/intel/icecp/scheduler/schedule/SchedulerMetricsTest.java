@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class SchedulerMetricsTest {
+    private long nanos;
+    private long hits;
+    private long misses;
+    private List<MetricsMessage.ChannelMetrics> channels = Collections.emptyList();
+
+    @Test
+    public void testSnapshotsRatesSinceThePreviousSnapshot() {
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger trigger = registry.register(new IntervalTrigger("t", 1, "SECONDS", "/metrics", "start", null), "group", 1000, 0);
+        Dispatcher dispatcher = new Dispatcher(fired -> { }, 1, 16);
+        SchedulerMetrics metrics = new SchedulerMetrics(registry.getCounters(), dispatcher, null, Collections.emptyList(), () -> hits, () -> misses,
+                () -> channels, () -> nanos);
+
+        MetricsMessage first = metrics.snapshot();
+        assertEquals(0, first.getFired());
+        assertEquals(0, first.getFireRate(), 0);
+        assertEquals(1, first.getChannelHitRatio(), 0);
+        assertEquals(0, first.getChannels().size());
+
+        for (int i = 0; i < 20; i++) {
+            trigger.countFire();
+            trigger.countOutcome(i % 10 != 0);
+        }
+        dispatcher.fire(trigger);
+        dispatcher.fire(trigger);
+        misses = 1;
+        hits = 3;
+        channels = Collections.singletonList(new MetricsMessage.ChannelMetrics(URI.create("/metrics"), 18, 2));
+        nanos = TimeUnit.SECONDS.toNanos(2);
+
+        MetricsMessage second = metrics.snapshot();
+        assertEquals(2000, second.getPeriodMillis());
+        assertEquals(20, second.getFired());
+        assertEquals(18, second.getPublished());
+        assertEquals(2, second.getFailed());
+        assertEquals(10, second.getFireRate(), 0.001);
+        assertEquals(2, second.getRecentFailed());
+        assertEquals(2, second.getQueueDepth());
+        assertEquals(TriggerPriority.values().length, second.getPriorities().size());
+        MetricsMessage.PriorityMetrics normal = second.getPriorities().get(TriggerPriority.NORMAL.ordinal());
+        assertEquals(TriggerPriority.NORMAL, normal.getPriority());
+        assertEquals(2, normal.getDepth());
+        assertEquals(2, normal.getEnqueued());
+        assertEquals(0, normal.getDispatched());
+        assertEquals(0, second.getPriorities().get(TriggerPriority.HIGH.ordinal()).getDepth());
+        assertEquals(0.75, second.getChannelHitRatio(), 0.001);
+        assertEquals(1, second.getChannels().size());
+        assertEquals(URI.create("/metrics"), second.getChannels().get(0).getChannel());
+        assertEquals(18, second.getChannels().get(0).getPublished());
+        assertEquals(2, second.getChannels().get(0).getFailed());
+        assertEquals(0, second.getLagMillis());
+
+        trigger.countFire();
+        trigger.countOutcome(true);
+        nanos += TimeUnit.SECONDS.toNanos(1);
+
+        MetricsMessage third = metrics.snapshot();
+        assertEquals(21, third.getFired());
+        assertEquals(1, third.getFireRate(), 0.001);
+        assertEquals(0, third.getRecentFailed());
+        assertEquals(2, third.getFailed());
+    }
+
+    @Test
+    public void testSnapshotIncludesTheWatchdogLag() {
+        Dispatcher dispatcher = new Dispatcher(fired -> { }, 1, 16);
+        LagWatchdog watchdog = new LagWatchdog(dispatcher, 1000, 1000, false, () -> nanos);
+        TriggerRegistry registry = new TriggerRegistry();
+        SchedulerMetrics metrics = new SchedulerMetrics(registry.getCounters(), dispatcher, watchdog, Collections.emptyList(), () -> 0, () -> 0,
+                Collections::emptyList, () -> nanos);
+
+        dispatcher.fire(registry.register(new IntervalTrigger("t", 1, "SECONDS", "/metrics", "start", null), "group", 1000, 0),
+                System.currentTimeMillis() - 1500);
+        nanos = System.nanoTime();
+        watchdog.check();
+
+        MetricsMessage snapshot = metrics.snapshot();
+        assertEquals(watchdog.getLagMillis(), snapshot.getLagMillis());
+        assertEquals(watchdog.getMaxLagMillis(), snapshot.getMaxLagMillis());
+        assertEquals(1, snapshot.getQueueDepth());
+    }
+
+    @Test
+    public void testSnapshotIncludesTheMonotonicTimers() {
+        VirtualClock wall = new VirtualClock(Instant.ofEpochSecond(1_500_000_000), ZoneOffset.UTC);
+        Dispatcher dispatcher = new Dispatcher(fired -> { }, 1, 16);
+        MonotonicTimer timer = new MonotonicTimer(dispatcher, wall, () -> nanos, 1000, 0, "test-timer");
+        MonotonicTimer highResolution = new MonotonicTimer(dispatcher, wall, () -> nanos, Long.MAX_VALUE, 0, "test-hires");
+        TriggerRegistry registry = new TriggerRegistry();
+        SchedulerMetrics metrics = new SchedulerMetrics(registry.getCounters(), dispatcher, null,
+                Arrays.asList(timer, highResolution), () -> 0, () -> 0, Collections::emptyList, () -> nanos);
+
+        MetricsMessage first = metrics.snapshot();
+        assertEquals(0, first.getClockJumps());
+        assertEquals(0, first.getLastClockJumpMillis());
+        assertEquals(0, first.getMaxTimerLatenessMicros());
+
+        highResolution.add(registry.register(new IntervalTrigger("t", 1, "SECONDS", "/metrics", "start", null), "group", 1000, 0),
+                TimeUnit.MILLISECONDS.toNanos(1), IntervalTiming.FIXED_RATE);
+        nanos += TimeUnit.MICROSECONDS.toNanos(250);
+        highResolution.fireDue(nanos);
+        wall.advance(Duration.ofMinutes(5));
+        timer.checkClock(nanos);
+        highResolution.checkClock(nanos);
+
+        MetricsMessage second = metrics.snapshot();
+        assertEquals(1, second.getClockJumps());
+        assertEquals(TimeUnit.MINUTES.toMillis(5), second.getLastClockJumpMillis());
+        assertEquals(250, second.getMaxTimerLatenessMicros());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TriggerCountersTest {
+
+    @Test
+    public void testCountsArePerTriggerAndTotalled() {
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger first = registry.register(trigger("first", 1), "group", 1000, 0);
+        ScheduledTrigger second = registry.register(trigger("second", 2), "group", 2000, 0);
+        ScheduledTrigger alias = registry.register(trigger("alias", 2), "group", 2000, 0);
+
+        first.countFire();
+        first.countOutcome(true);
+        first.countFire();
+        first.countOutcome(false);
+        second.countSkippedWithAliases(3);
+        alias.countSkipped(1);
+
+        TriggerCounters counters = registry.getCounters();
+        assertEquals("TriggerStats{group='group', id='first', fired=2, published=1, failed=1, skipped=0}",
+                counters.getStats(first).toString());
+        assertEquals(3, counters.getStats(second).getSkipped());
+        assertEquals(4, counters.getStats(alias).getSkipped());
+        assertEquals(2, counters.getFired());
+        assertEquals(1, counters.getPublished());
+        assertEquals(1, counters.getFailed());
+        assertEquals(7, counters.getSkipped());
+
+        Map<String, Object> map = counters.toMap();
+        assertEquals(2L, map.get("fired"));
+        assertEquals(3, ((List<?>) map.get("triggers")).size());
+
+        registry.clear();
+        assertEquals(0, counters.getFired());
+        assertEquals(0, counters.getStats().size());
+    }
+
+    @Test
+    public void testCountsSurviveGrowth() {
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger first = registry.register(trigger("t0", 1), "group", 1000, 0);
+        first.countFire();
+        for (int i = 1; i < 3000; i++) {
+            registry.register(trigger("t" + i, i + 1), "group", 1000, 0).countFire();
+        }
+        first.countFire();
+
+        List<TriggerStats> stats = registry.getCounters().getStats();
+        assertEquals(3000, stats.size());
+        assertEquals(2, stats.get(0).getFired());
+        assertEquals(1, stats.get(2999).getFired());
+        assertEquals(3001, registry.getCounters().getFired());
+    }
+
+    private static IntervalTrigger trigger(String id, int interval) {
+        return new IntervalTrigger(id, interval, "SECONDS", "/counted", "start", null);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the retained heap of a registry holding many distinct triggers that share a few channels, commands and
+ * params, and checks it against {@link TriggerRegistry#BYTES_PER_TRIGGER_BUDGET}. The intervals differ so that no
+ * trigger is deduplicated into an alias.
+ */
+public class TriggerRegistryFootprintTest {
+    private static final int TRIGGERS = 20_000;
+
+    @Test
+    public void registeredTriggerStaysWithinBudget() {
+        TriggerRegistry registry = new TriggerRegistry();
+        for (int i = 0; i < TRIGGERS; i++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("mode", "mode-" + (i % 5));
+            IntervalTrigger config = new IntervalTrigger("trigger-" + i, 1 + i, "SECONDS", "/channel-" + (i % 10), "start", params);
+            registry.register(config, "test-group", config.getScheduleKey(), 0);
+        }
+
+        assertTrue(registry.primaries() == TRIGGERS);
+        long total = GraphLayout.parseInstance(registry).totalSize();
+        double perTrigger = (double) total / TRIGGERS;
+        assertTrue("registry retains " + perTrigger + " bytes per trigger", perTrigger <= TriggerRegistry.BYTES_PER_TRIGGER_BUDGET);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule;
+
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
+import com.intel.icecp.scheduler.trigger.TriggerPriority;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TriggerRegistryTest {
+    private static final String TEST_GROUP = "test-group";
+
+    private final TriggerRegistry registry = new TriggerRegistry();
+
+    @Test
+    public void testRegisterAndLookup() {
+        ScheduledTrigger trigger = registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 42);
+
+        assertSame(trigger, registry.get(TEST_GROUP, "a"));
+        assertSame(trigger, registry.get(trigger.getSlot()));
+        assertEquals(1000, registry.getIntervalMillis(trigger.getSlot()));
+        assertEquals(42, registry.getStartMillis(trigger.getSlot()));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testDuplicateIdInGroupIsRejected() {
+        assertNotNull(registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0));
+        assertNull(registry.register(trigger("a", "/other"), TEST_GROUP, 1000, 0));
+        assertNotNull(registry.register(trigger("a", "/ch"), "other-group", 1000, 0));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testChannelsRequestsAndParamsAreShared() {
+        for (int i = 0; i < 100; i++) {
+            registry.register(trigger("t" + i, "/ch" + (i % 3)), TEST_GROUP, 1000, 0);
+        }
+
+        ScheduledTrigger first = registry.get(TEST_GROUP, "t0");
+        ScheduledTrigger fourth = registry.get(TEST_GROUP, "t3");
+        assertSame(first.getChannel(), fourth.getChannel());
+        assertSame(first.getRequest(), fourth.getRequest());
+        assertEquals(3, registry.distinctChannels());
+        assertEquals(1, registry.distinctRequests());
+    }
+
+    @Test
+    public void testTriggersThatAreNotDeduplicableAreNeverAliases() {
+        ScheduledTrigger first = registry.register(new EventTrigger("a", "/door", "/ack", "check", null), TEST_GROUP, 0, 0);
+        ScheduledTrigger event = registry.register(new EventTrigger("b", "/door", "/ack", "check", null), TEST_GROUP, 0, 0);
+        IntervalTrigger adaptive = trigger("c", "/ch");
+        adaptive.setAdaptive(new AdaptivePolicy(1, 10, null, null, null, null));
+        IntervalTrigger sameAdaptive = trigger("d", "/ch");
+        sameAdaptive.setAdaptive(new AdaptivePolicy(1, 10, null, null, null, null));
+        ScheduledTrigger firstAdaptive = registry.register(adaptive, TEST_GROUP, 1000, 0);
+        ScheduledTrigger second = registry.register(sameAdaptive, TEST_GROUP, 1000, 0);
+
+        assertFalse(event.isAlias());
+        assertFalse(second.isAlias());
+        assertEquals(0, first.getAliases().length);
+        assertEquals(0, firstAdaptive.getAliases().length);
+    }
+
+    @Test
+    public void testPrimariesHaveTheirOwnResponseUri() {
+        ScheduledTrigger first = registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0);
+        ScheduledTrigger alias = registry.register(trigger("b", "/ch"), TEST_GROUP, 1000, 0);
+        IntervalTrigger slower = new IntervalTrigger("c", 2, "SECONDS", "/ch", "start",
+                new HashMap<>(Collections.singletonMap("test", "Value1")));
+        ScheduledTrigger other = registry.register(slower, TEST_GROUP, 2000, 0);
+
+        assertTrue(alias.isAlias());
+        assertSame(alias.getRequest(), first.getRequest());
+        assertSame(first.getRequest(), first.getRequest());
+        assertNotNull(first.getRequest().responseUri);
+        assertNotEquals(first.getRequest().responseUri, other.getRequest().responseUri);
+        assertSame(first.getRequest().name, other.getRequest().name);
+        assertSame(first.getRequest().inputs, other.getRequest().inputs);
+        assertEquals(1, registry.distinctRequests());
+    }
+
+    @Test
+    public void testChannelSetsAreShared() {
+        IntervalTrigger first = trigger("a", "/ch");
+        first.setPublishChannels(Collections.singletonList("/other"));
+        IntervalTrigger second = trigger("b", "/ch");
+        second.setPublishChannels(Collections.singletonList("/other"));
+        second.setPriority(TriggerPriority.HIGH);
+
+        ScheduledTrigger a = registry.register(first, TEST_GROUP, 1000, 0);
+        ScheduledTrigger b = registry.register(second, TEST_GROUP, 1000, 0);
+        ScheduledTrigger single = registry.register(trigger("c", "/ch"), TEST_GROUP, 1000, 0);
+
+        assertEquals(2, a.getChannels().length);
+        assertSame(a.getChannels(), b.getChannels());
+        assertSame(a.getChannel(), single.getChannel());
+        assertEquals(2, registry.distinctChannels());
+    }
+
+    @Test
+    public void testCompactPayloadsAreShared() {
+        IntervalTrigger a = trigger("a", "/ch");
+        a.setPayloadFormat(PayloadFormat.CBOR);
+        IntervalTrigger b = trigger("b", "/ch");
+        b.setPayloadFormat(PayloadFormat.CBOR);
+
+        assertSame(registry.register(a, TEST_GROUP, 1000, 0).getPayload(), registry.register(b, TEST_GROUP, 1000, 0).getPayload());
+    }
+
+    @Test
+    public void testRemoveFreesLookupButNotSlot() {
+        ScheduledTrigger trigger = registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0);
+
+        assertSame(trigger, registry.remove(TEST_GROUP, "a"));
+        assertNull(registry.get(TEST_GROUP, "a"));
+        assertNull(registry.get(trigger.getSlot()));
+        assertNull(registry.remove(TEST_GROUP, "a"));
+        assertEquals(0, registry.size());
+        assertEquals(1, registry.slots());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            registry.register(trigger("t" + i, "/ch" + i), TEST_GROUP, i, i);
+        }
+
+        assertEquals(999, registry.getIntervalMillis(registry.get(TEST_GROUP, "t999").getSlot()));
+        assertEquals(1000, registry.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChannelIsRejected() {
+        registry.register(trigger("a", "foo:\\bad.uri"), TEST_GROUP, 1000, 0);
+    }
+
+    private static IntervalTrigger trigger(String id, String channel) {
+        Map<String, Object> params = new HashMap<>(Collections.singletonMap("test", "Value1"));
+        return new IntervalTrigger(id, 1, "SECONDS", channel, "start", params);
+    }
+
+    @Test
+    public void testEquivalentTriggersBecomeAliases() {
+        ScheduledTrigger primary = registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0);
+        ScheduledTrigger alias = registry.register(trigger("b", "/ch"), TEST_GROUP, 1000, 5);
+
+        assertFalse(primary.isAlias());
+        assertTrue(alias.isAlias());
+        assertSame(primary, alias.getPrimary());
+        assertArrayEquals(new ScheduledTrigger[]{alias}, primary.getAliases());
+        assertEquals(0, registry.getStartMillis(alias.getSlot()));
+        assertEquals(1, registry.primaries());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testTriggersDifferingInScheduleOrGroupAreNotAliases() {
+        registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0);
+
+        IntervalTrigger slower = new IntervalTrigger("b", 2, "SECONDS", "/ch", "start", Collections.singletonMap("test", "Value1"));
+        assertFalse(registry.register(slower, TEST_GROUP, 2000, 0).isAlias());
+        assertFalse(registry.register(trigger("c", "/ch"), "other-group", 1000, 0).isAlias());
+        assertFalse(registry.register(trigger("d", "/other"), TEST_GROUP, 1000, 0).isAlias());
+        IntervalTrigger expiring = trigger("e", "/ch");
+        expiring.setDeadlineMillis(500L);
+        assertFalse(registry.register(expiring, TEST_GROUP, 1000, 0).isAlias());
+        assertEquals(5, registry.primaries());
+    }
+
+    @Test
+    public void testRemovingAliasDetachesItAndRemovingPrimaryRemovesAliases() {
+        ScheduledTrigger primary = registry.register(trigger("a", "/ch"), TEST_GROUP, 1000, 0);
+        registry.register(trigger("b", "/ch"), TEST_GROUP, 1000, 0);
+        registry.register(trigger("c", "/ch"), TEST_GROUP, 1000, 0);
+
+        registry.remove(TEST_GROUP, "b");
+        assertEquals(1, primary.getAliases().length);
+
+        registry.remove(TEST_GROUP, "a");
+        assertNull(registry.get(TEST_GROUP, "c"));
+        assertEquals(0, registry.size());
+        assertFalse(registry.register(trigger("d", "/ch"), TEST_GROUP, 1000, 0).isAlias());
+    }
+
+    @Test
+    public void testGroupSuspensionIsSharedByAllTriggersOfTheGroup() {
+        ScheduledTrigger a = registry.register(trigger("a", "/a"), TEST_GROUP, 1000, 0);
+        ScheduledTrigger other = registry.register(trigger("b", "/b"), "other-group", 1000, 0);
+
+        registry.setGroupSuspended(TEST_GROUP, true);
+        ScheduledTrigger later = registry.register(trigger("c", "/c"), TEST_GROUP, 1000, 0);
+
+        assertTrue(a.isGroupSuspended());
+        assertTrue(later.isGroupSuspended());
+        assertFalse(other.isGroupSuspended());
+
+        registry.setGroupSuspended(TEST_GROUP, false);
+        assertFalse(a.isGroupSuspended());
+        assertFalse(registry.isGroupSuspended(TEST_GROUP));
+    }
+
+    @Test
+    public void testTriggerSuspension() {
+        ScheduledTrigger a = registry.register(trigger("a", "/a"), TEST_GROUP, 1000, 0);
+
+        assertTrue(registry.setTriggerSuspended(TEST_GROUP, "a", true));
+        assertTrue(a.isSuspended());
+        assertTrue(registry.setTriggerSuspended(TEST_GROUP, "a", false));
+        assertFalse(a.isSuspended());
+        assertFalse(registry.setTriggerSuspended(TEST_GROUP, "missing", true));
+    }
+}
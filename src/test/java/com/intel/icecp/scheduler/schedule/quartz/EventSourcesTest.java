@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.core.Channel;
+import com.intel.icecp.core.Node;
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.core.misc.OnPublish;
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.schedule.EventGate;
+import com.intel.icecp.scheduler.schedule.FireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.trigger.EventTrigger;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventSourcesTest {
+    private static final URI SOURCE = URI.create("/source");
+    @Mock
+    private Node mockNode;
+    @Mock
+    private Channel<BytesMessage> mockChannel;
+    private final List<ScheduledTrigger> fired = new ArrayList<>();
+    private final CountDownLatch firedLatch = new CountDownLatch(1);
+    private final FireHandler handler = trigger -> {
+        synchronized (fired) {
+            fired.add(trigger);
+        }
+        firedLatch.countDown();
+    };
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(mockNode.openChannel(eq(SOURCE), eq(BytesMessage.class), any(), any())).thenReturn((Channel) mockChannel);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSourceIsSubscribedOnceAndFiresEveryTrigger() throws Exception {
+        EventSources sources = new EventSources(() -> mockNode, handler, System::nanoTime);
+        ScheduledTrigger a = trigger("a");
+        ScheduledTrigger b = trigger("b");
+        sources.add(SOURCE, new EventGate(a, new EventTrigger("a", "/source", "/a", "start", null), 0));
+        sources.add(SOURCE, new EventGate(b, new EventTrigger("b", "/source", "/b", "start", null), 0));
+        sources.start();
+
+        ArgumentCaptor<OnPublish> callback = ArgumentCaptor.forClass(OnPublish.class);
+        verify(mockNode, times(1)).openChannel(eq(SOURCE), eq(BytesMessage.class), any(), any());
+        verify(mockChannel).subscribe(callback.capture());
+        callback.getValue().onPublish(new BytesMessage(new byte[0]));
+
+        assertEquals(2, fired.size());
+        assertEquals(1, sources.size());
+
+        sources.setPaused(true);
+        callback.getValue().onPublish(new BytesMessage(new byte[0]));
+        assertEquals(2, fired.size());
+
+        sources.close();
+        verify(mockChannel).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDebouncedMessagesFireOnce() throws Exception {
+        EventSources sources = new EventSources(() -> mockNode, handler, System::nanoTime);
+        EventTrigger config = new EventTrigger("a", "/source", "/a", "start", null);
+        config.setDebounceMillis(50L);
+        sources.add(SOURCE, new EventGate(trigger("a"), config, System.nanoTime()));
+        sources.start();
+
+        ArgumentCaptor<OnPublish> callback = ArgumentCaptor.forClass(OnPublish.class);
+        verify(mockChannel).subscribe(callback.capture());
+        for (int i = 0; i < 5; i++) {
+            callback.getValue().onPublish(new BytesMessage(new byte[0]));
+        }
+
+        assertTrue(firedLatch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        synchronized (fired) {
+            assertEquals(1, fired.size());
+        }
+        assertEquals(5, sources.getGates(SOURCE).get(0).getReceived());
+        sources.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMessageHandledWhileClosingDoesNotCreateTimer() throws Exception {
+        EventSources[] holder = new EventSources[1];
+        boolean[] closeOnNextRead = new boolean[1];
+        EventSources sources = new EventSources(() -> mockNode, handler, () -> {
+            if (closeOnNextRead[0]) {
+                // the sources are closed after the message passed the running check
+                closeOnNextRead[0] = false;
+                holder[0].close();
+            }
+            return System.nanoTime();
+        });
+        holder[0] = sources;
+        EventTrigger config = new EventTrigger("a", "/source", "/a", "start", null);
+        config.setDebounceMillis(50L);
+        sources.add(SOURCE, new EventGate(trigger("a"), config, System.nanoTime()));
+        sources.start();
+
+        ArgumentCaptor<OnPublish> callback = ArgumentCaptor.forClass(OnPublish.class);
+        verify(mockChannel).subscribe(callback.capture());
+        closeOnNextRead[0] = true;
+        callback.getValue().onPublish(new BytesMessage(new byte[0]));
+
+        assertFalse(sources.hasTimer());
+        assertEquals(0, fired.size());
+    }
+
+    private static ScheduledTrigger trigger(String id) {
+        return new ScheduledTrigger(id, "group", URI.create("/" + id), CommandRequest.from("start"));
+    }
+}
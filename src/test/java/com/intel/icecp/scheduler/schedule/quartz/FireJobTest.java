@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.scheduler.schedule.FireHandler;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.TriggerKey;
+
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FireJobTest {
+    private static final String TEST_GROUP = "test-group";
+    @Mock
+    private FireHandler mockHandler;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private JobExecutionContext mockContext;
+    private TriggerRegistry registry;
+    private FireJob job;
+
+    @Before
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        registry = new TriggerRegistry();
+        job = new FireJob(registry, mockHandler);
+    }
+
+    @Test
+    public void testExecuteHandsRegisteredTriggerToHandler() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test1", "Value1");
+        ScheduledTrigger trigger = registry.register(new IntervalTrigger("jobid", 1, "SECONDS", "mock.uri", "Start", params), TEST_GROUP, 1000, 0);
+        when(mockContext.getTrigger().getKey()).thenReturn(new TriggerKey("jobid", TEST_GROUP));
+        when(mockContext.getScheduledFireTime()).thenReturn(new Date(1000L));
+
+        job.execute(mockContext);
+
+        verify(mockHandler, times(1)).fire(trigger, 1000L);
+    }
+
+    @Test
+    public void testExecuteDropsFireExcludedByCalendar() throws Exception {
+        IntervalTrigger config = new IntervalTrigger("jobid", 1, "SECONDS", "mock.uri", "Start", null);
+        config.setCalendar("always");
+        registry.register(config, TEST_GROUP, 1000, 0);
+        registry.defineCalendar(new ExclusionCalendar("always", null, null,
+                Collections.singletonList(new ExclusionCalendar.Window("12:00 AM", "12:00 AM"))), ZoneOffset.UTC);
+        when(mockContext.getTrigger().getKey()).thenReturn(new TriggerKey("jobid", TEST_GROUP));
+        when(mockContext.getScheduledFireTime()).thenReturn(new Date(1000L));
+
+        job.execute(mockContext);
+
+        verify(mockHandler, never()).fire(any(ScheduledTrigger.class), anyLong());
+    }
+
+    @Test (expected = JobExecutionException.class)
+    public void testExecuteWithoutScheduledTriggerThrows() throws Exception {
+        when(mockContext.getTrigger().getKey()).thenReturn(new TriggerKey("jobid", TEST_GROUP));
+
+        try {
+            job.execute(mockContext);
+        } finally {
+            verify(mockHandler, never()).fire(any(ScheduledTrigger.class), anyLong());
+        }
+    }
+}
@@ -17,11 +17,13 @@
 package com.intel.icecp.scheduler.schedule.quartz;
 
 import com.intel.icecp.scheduler.schedule.Schedule;
+import com.intel.icecp.scheduler.trigger.IntervalTiming;
 import com.intel.icecp.scheduler.trigger.IntervalTrigger;
 import com.intel.icecp.scheduler.trigger.RangeTrigger;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -98,4 +100,51 @@ public class QuartzScheduleTest {
         // cant give null here, since it creates a range key object
         assertFalse(schedule.checkJobExists("", TEST_GROUP));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEquivalentTriggerSharesJob() throws Exception {
+        Map params = new HashMap<String, String>();
+        params.put("test", "Value1");
+        IntervalTrigger duplicate = new IntervalTrigger("interval-copy", 15, "MINUTES", "/foo", "start", params);
+
+        QuartzSchedule quartz = (QuartzSchedule) schedule;
+        quartz.scheduleIntervalTrigger(interval, TEST_GROUP);
+        quartz.scheduleIntervalTrigger(duplicate, TEST_GROUP);
+
+        assertTrue(schedule.checkJobExists(duplicate.getId(), TEST_GROUP));
+        assertTrue(quartz.getRegistry().get(TEST_GROUP, duplicate.getId()).isAlias());
+        assertEquals(1, quartz.getRegistry().primaries());
+    }
+
+    @Test
+    public void testSuspendAndResumeGroup() {
+        schedule.scheduleIntervalTrigger(interval, TEST_GROUP);
+
+        assertTrue(schedule.suspendGroup(TEST_GROUP));
+        assertTrue(((QuartzSchedule) schedule).getRegistry().get(TEST_GROUP, interval.getId()).isGroupSuspended());
+        assertTrue(schedule.resumeGroup(TEST_GROUP));
+        assertFalse(((QuartzSchedule) schedule).getRegistry().get(TEST_GROUP, interval.getId()).isGroupSuspended());
+        assertFalse(schedule.suspendGroup(null));
+    }
+
+    @Test
+    public void testSuspendAndResumeTrigger() {
+        schedule.scheduleIntervalTrigger(interval, TEST_GROUP);
+
+        assertTrue(schedule.suspendTrigger(interval.getId(), TEST_GROUP));
+        assertTrue(schedule.resumeTrigger(interval.getId(), TEST_GROUP));
+        assertFalse(schedule.suspendTrigger("missing", TEST_GROUP));
+    }
+
+    @Test
+    public void testMonotonicIntervalTriggerRunsOnTimer() {
+        interval.setTiming(IntervalTiming.FIXED_RATE);
+        QuartzSchedule quartz = (QuartzSchedule) schedule;
+        quartz.scheduleIntervalTrigger(interval, TEST_GROUP);
+
+        assertTrue(schedule.checkJobExists(interval.getId(), TEST_GROUP));
+        assertEquals(1, quartz.getTimer().size());
+        assertTrue(schedule.stop());
+        assertEquals(0, quartz.getTimer().size());
+    }
+}
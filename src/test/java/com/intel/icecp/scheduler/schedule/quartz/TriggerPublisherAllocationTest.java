@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.schedule.quartz;
+
+import com.intel.icecp.core.Channel;
+import com.intel.icecp.core.Node;
+import com.intel.icecp.core.channels.OnLatest;
+import com.intel.icecp.core.misc.OnPublish;
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.scheduler.schedule.Dispatcher;
+import com.intel.icecp.scheduler.schedule.FireEventLog;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Regression test for the steady-state fire path: after the channel has been opened, firing a trigger must not
+ * allocate. One test covers {@link TriggerPublisher#fire(ScheduledTrigger)} alone; the other covers the whole path a
+ * Quartz fire takes, from {@link FireJob} through the {@link Dispatcher} queue and its worker thread to the publisher,
+ * counting the allocations of both threads. Fires are handed to the dispatcher in bursts, as Quartz fires due triggers
+ * in batches; the lock queue node allocated when the idle worker is woken is spread over the burst. Quartz itself (its
+ * scheduler thread and the job context it builds for every fire) is outside the measured path. Uses a hand written
+ * channel since Mockito records (and allocates for) every invocation.
+ */
+public class TriggerPublisherAllocationTest {
+    private static final int WARMUP_FIRES = 50_000;
+    private static final int MEASURED_FIRES = 200_000;
+    private static final int BURST = 256;
+    private static final double MAX_BYTES_PER_FIRE = 8.0;
+
+    private com.sun.management.ThreadMXBean threads;
+    private Node node;
+    private TriggerPublisher publisher;
+    private ScheduledTrigger trigger;
+    private NoopChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        channel = new NoopChannel();
+        node = mock(Node.class);
+        doReturn(channel).when(node).openChannel(any(URI.class), any(), any());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("test", "Value1");
+        trigger = ScheduledTrigger.from(new IntervalTrigger("alloc", 1, "SECONDS", "/alloc", "start", params), "test-group");
+        publisher = new TriggerPublisher(node, new FireEventLog(0, 0));
+    }
+
+    @Test
+    public void steadyStateFireDoesNotAllocate() {
+        fire(WARMUP_FIRES);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        fire(MEASURED_FIRES);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        double perFire = (double) allocated / MEASURED_FIRES;
+        assertTrue("fire path allocated " + perFire + " bytes per fire", perFire <= MAX_BYTES_PER_FIRE);
+        assertEquals(WARMUP_FIRES + MEASURED_FIRES, channel.published);
+    }
+
+    @Test
+    public void steadyStateFireJobToPublishDoesNotAllocate() throws Exception {
+        TriggerRegistry registry = new TriggerRegistry();
+        Map<String, Object> params = new HashMap<>();
+        params.put("test", "Value1");
+        registry.register(new IntervalTrigger("alloc", 1, "SECONDS", "/alloc", "start", params), "test-group", 1000, 0);
+        publisher = new TriggerPublisher(node, new FireEventLog(0, 0));
+
+        try (Dispatcher dispatcher = new Dispatcher(publisher, 1, BURST)) {
+            FireJob job = new FireJob(registry, dispatcher);
+            JobExecutionContext ctx = context(job);
+            dispatcher.start();
+            Thread worker = worker();
+
+            execute(job, ctx, WARMUP_FIRES);
+
+            long[] ids = {Thread.currentThread().getId(), worker.getId()};
+            long before = sum(threads.getThreadAllocatedBytes(ids));
+            execute(job, ctx, MEASURED_FIRES);
+            long allocated = sum(threads.getThreadAllocatedBytes(ids)) - before;
+
+            double perFire = (double) allocated / MEASURED_FIRES;
+            assertTrue("fire job to publish allocated " + perFire + " bytes per fire", perFire <= MAX_BYTES_PER_FIRE);
+            assertEquals(WARMUP_FIRES + MEASURED_FIRES, channel.published);
+        }
+    }
+
+    private void fire(int count) {
+        for (int i = 0; i < count; i++) {
+            publisher.fire(trigger);
+        }
+    }
+
+    private void execute(FireJob job, JobExecutionContext ctx, int count) throws JobExecutionException {
+        long target = channel.published;
+        for (int fired = 0; fired < count; fired += BURST) {
+            int burst = Math.min(BURST, count - fired);
+            for (int i = 0; i < burst; i++) {
+                job.execute(ctx);
+            }
+            target += burst;
+            while (channel.published < target) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private static JobExecutionContext context(FireJob job) {
+        OperableTrigger fired = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("alloc", "test-group").build();
+        Date now = new Date();
+        TriggerFiredBundle bundle = new TriggerFiredBundle(JobBuilder.newJob(FireJob.class).build(), fired, null, false,
+                now, now, null, null);
+        return new JobExecutionContextImpl(null, bundle, job);
+    }
+
+    private static Thread worker() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("scheduler-dispatch-0")) {
+                return thread;
+            }
+        }
+        throw new IllegalStateException("Dispatch worker is not running");
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static class NoopChannel implements Channel<CommandRequest> {
+        private volatile long published;
+
+        @Override
+        public URI getName() {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Void> open() {
+            return null;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void publish(CommandRequest message) {
+            published++;
+        }
+
+        @Override
+        public boolean isPublishing() {
+            return true;
+        }
+
+        @Override
+        public void subscribe(OnPublish<CommandRequest> callback) {
+        }
+
+        @Override
+        public boolean isSubscribing() {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<CommandRequest> latest() {
+            return null;
+        }
+
+        @Override
+        public void onLatest(OnLatest<CommandRequest> callback) {
+        }
+    }
+}
@@ -19,25 +19,45 @@ package com.intel.icecp.scheduler.schedule.quartz;
 import com.intel.icecp.core.Channel;
 import com.intel.icecp.core.Message;
 import com.intel.icecp.core.Node;
+import com.intel.icecp.core.messages.BytesMessage;
+import com.intel.icecp.core.metadata.formats.BytesFormat;
 import com.intel.icecp.core.misc.ChannelIOException;
-import com.intel.icecp.scheduler.message.TriggerMessage;
+import com.intel.icecp.core.misc.OnPublish;
+import com.intel.icecp.rpc.CommandRequest;
+import com.intel.icecp.rpc.CommandResponse;
+import com.intel.icecp.scheduler.message.MetricsMessage;
+import com.intel.icecp.scheduler.schedule.FireEvent;
+import com.intel.icecp.scheduler.schedule.FireEventLog;
+import com.intel.icecp.scheduler.schedule.FireFlow;
+import com.intel.icecp.scheduler.schedule.LocalFirePublisher;
+import com.intel.icecp.scheduler.schedule.ScheduledTrigger;
+import com.intel.icecp.scheduler.schedule.TriggerRegistry;
+import com.intel.icecp.scheduler.trigger.AdaptiveFeedback;
+import com.intel.icecp.scheduler.trigger.AdaptivePolicy;
+import com.intel.icecp.scheduler.trigger.FireDelivery;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.PayloadFormat;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.quartz.JobDataMap;
-import org.quartz.JobDetail;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobKey;
 
 import java.net.URI;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -45,16 +65,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TriggerPublisherTest {
+    private static final String TEST_GROUP = "test-group";
     @Mock
     private Node mockNode;
-    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
-    private JobExecutionContext mockContext;
     @Mock
     private Channel<Message> mockResponseChannel;
     @Mock
-    private JobDataMap mockJobDetailMap;
-    @Mock
-    private JobDetail mockJobDetail;
+    private Channel<Message> mockOtherChannel;
 
     @Before
     public void before() {
@@ -67,70 +84,334 @@ public class TriggerPublisherTest {
     }
 
     @Test
-    public void testExecute() throws Exception {
-        String jobId = "jobid";
-        JobKey key = new JobKey(jobId);
-        Date date = new Date();
+    public void testFire() throws Exception {
         String cmd = "Start";
         Map params = new HashMap<String, String>();
         params.put("test1", "Value1");
 
         when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
-        createMockJobContext(key, date, "mock.uri", cmd, params);
 
         TriggerPublisher publisher = new TriggerPublisher(mockNode);
-        publisher.execute(mockContext);
+        publisher.fire(createScheduledTrigger("mock.uri", cmd, params));
+
+        verify(mockResponseChannel, times(1)).publish(any(CommandRequest.class));
+        verify(mockResponseChannel, never()).close();
+    }
+
+    @Test
+    public void testFireReusesChannelUntilClosed() throws Exception {
+        Map params = new HashMap<String, String>();
+        params.put("test1", "Value1");
+
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        ScheduledTrigger trigger = createScheduledTrigger("mock.uri", "Start", params);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+        publisher.close();
+        assertEquals(2, publisher.getChannelHits());
+        assertEquals(1, publisher.getChannelMisses());
 
-        verify(mockResponseChannel, times(1)).publish(any(TriggerMessage.class));
+        verify(mockNode, times(1)).openChannel(any(URI.class), any(), any());
+        verify(mockResponseChannel, times(3)).publish(any(CommandRequest.class));
         verify(mockResponseChannel, times(1)).close();
     }
 
     @Test
-    public void testExecuteWhenPublishThrows() throws Exception {
-        String jobId = "jobid";
-        JobKey key = new JobKey(jobId);
-        Date date = new Date();
+    public void testFireCompactPayloadPublishesPreEncodedBytes() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test1", "Value1");
+        IntervalTrigger config = new IntervalTrigger("jobid", 1, "SECONDS", "/compact", "Start", params);
+        config.setPayloadFormat(PayloadFormat.CBOR);
+        ScheduledTrigger trigger = ScheduledTrigger.from(config, TEST_GROUP);
+
+        when(mockNode.openChannel(any(URI.class), any(), any(), any())).thenReturn(mockResponseChannel);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+
+        verify(mockNode, times(1)).openChannel(eq(URI.create("/compact")), eq(BytesMessage.class), any(), any(BytesFormat.class));
+        verify(mockResponseChannel, times(2)).publish(trigger.getPayload());
+    }
+
+    @Test
+    public void testFireWhenPublishThrows() throws Exception {
         String cmd = "stop";
         Map params = new HashMap<String, String>();
         params.put("test2", "Value2");
 
         when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
-        createMockJobContext(key, date, "mock.uri", cmd, params);
-
-        doThrow(new ChannelIOException("mock exception")).when(mockResponseChannel).publish(any(TriggerMessage.class));
+        doThrow(new ChannelIOException("mock exception")).when(mockResponseChannel).publish(any(CommandRequest.class));
 
         TriggerPublisher publisher = new TriggerPublisher(mockNode);
-        publisher.execute(mockContext);
+        publisher.fire(createScheduledTrigger("mock.uri", cmd, params));
 
-        verify(mockResponseChannel, times(1)).publish(any(TriggerMessage.class));
+        // a failed channel is closed so the next fire reopens it
+        verify(mockResponseChannel, times(1)).publish(any(CommandRequest.class));
         verify(mockResponseChannel, times(1)).close();
     }
 
     @Test (expected = IllegalArgumentException.class)
-    public void testExecuteWhenUriIsInvalid() throws Exception {
-        String jobId = "jobid";
-        JobKey key = new JobKey(jobId);
-        Date date = new Date();
-        String cmd = "pause";
+    public void testScheduledTriggerWhenUriIsInvalid() throws Exception {
         Map params = new HashMap<String, String>();
         params.put("test3", "Value3");
 
+        createScheduledTrigger("foo:\\bad.uri", "pause", params);
+    }
+
+    @Test
+    public void testFailedPublishBacksOffAdaptiveTrigger() throws Exception {
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+        doThrow(new ChannelIOException("mock exception")).when(mockResponseChannel).publish(any(CommandRequest.class));
+        IntervalTrigger config = new IntervalTrigger("jobid", 1, "SECONDS", "/adaptive", "Start", null);
+        config.setAdaptive(new AdaptivePolicy(1, 60, null, null, null, null));
+        ScheduledTrigger trigger = ScheduledTrigger.from(config, TEST_GROUP);
+
+        new TriggerPublisher(mockNode).fire(trigger);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(2), trigger.getAdaptive().getIntervalNanos());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResponsesAreFedBackToAdaptiveTrigger() throws Exception {
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+        IntervalTrigger config = new IntervalTrigger("jobid", 10, "SECONDS", "/adaptive", "Start", null);
+        config.setAdaptive(new AdaptivePolicy(1, 60, AdaptiveFeedback.RESPONSE, null, null, null));
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger trigger = registry.register(config, TEST_GROUP, 10000, 0);
+        ScheduledTrigger plain = registry.register(new IntervalTrigger("plain", 10, "SECONDS", "/adaptive", "Start", null),
+                TEST_GROUP, 10000, 0);
+        assertNotSame(plain.getRequest(), trigger.getRequest());
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+
+        ArgumentCaptor<OnPublish> callback = ArgumentCaptor.forClass(OnPublish.class);
+        verify(mockNode, times(1)).openChannel(eq(trigger.getRequest().responseUri), eq(CommandResponse.class), any());
+        verify(mockResponseChannel, times(1)).subscribe(callback.capture());
+        // the first fire was unanswered when the second was published
+        assertEquals(TimeUnit.SECONDS.toNanos(20), trigger.getAdaptive().getIntervalNanos());
+        callback.getValue().onPublish(CommandResponse.fromValid("ok"));
+        assertEquals(TimeUnit.SECONDS.toNanos(19), trigger.getAdaptive().getIntervalNanos());
+
+        publisher.close();
+        verify(mockResponseChannel, times(2)).close();
+    }
+
+    private ScheduledTrigger createScheduledTrigger(String uri, String cmd, Map<String, Object> params) {
+        return ScheduledTrigger.from(new IntervalTrigger("jobid", 1, "SECONDS", uri, cmd, params), TEST_GROUP);
+    }
+
+    @Test
+    public void testFireCountsOutcomesPerTrigger() throws Exception {
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger trigger = registry.register(new IntervalTrigger("a", 1, "SECONDS", "/ch", "Start", null), TEST_GROUP, 1000, 0);
+        publisher.fire(trigger);
+        doThrow(new ChannelIOException("mock exception")).when(mockResponseChannel).publish(any(CommandRequest.class));
+        publisher.fire(trigger);
+
+        assertEquals("TriggerStats{group='test-group', id='a', fired=2, published=1, failed=1, skipped=0}",
+                registry.getCounters().getStats(trigger).toString());
+    }
+
+    @Test
+    public void testFireFansOutToAliasesButPublishesOnce() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test1", "Value1");
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger primary = registry.register(new IntervalTrigger("a", 1, "SECONDS", "/ch", "Start", params), TEST_GROUP, 1000, 0);
+        ScheduledTrigger alias = registry.register(new IntervalTrigger("b", 1, "SECONDS", "/ch", "Start", params), TEST_GROUP, 1000, 0);
+        publisher.fire(primary);
+
+        verify(mockResponseChannel, times(1)).publish(any(CommandRequest.class));
+        assertEquals(1, primary.getFireCount());
+        assertEquals(1, alias.getFireCount());
+    }
+
+    @Test
+    public void testFireSkipsSuspendedGroupAndTriggers() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test1", "Value1");
         when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
-        createMockJobContext(key, date, "foo:\\bad.uri", cmd, params);
 
         TriggerPublisher publisher = new TriggerPublisher(mockNode);
-        publisher.execute(mockContext);
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger primary = registry.register(new IntervalTrigger("a", 1, "SECONDS", "/ch", "Start", params), TEST_GROUP, 1000, 0);
+        ScheduledTrigger alias = registry.register(new IntervalTrigger("b", 1, "SECONDS", "/ch", "Start", params), TEST_GROUP, 1000, 0);
+
+        registry.setGroupSuspended(TEST_GROUP, true);
+        publisher.fire(primary);
+        verify(mockResponseChannel, never()).publish(any(CommandRequest.class));
+
+        registry.setGroupSuspended(TEST_GROUP, false);
+        registry.setTriggerSuspended(TEST_GROUP, "a", true);
+        publisher.fire(primary);
+        verify(mockResponseChannel, times(1)).publish(any(CommandRequest.class));
+        assertEquals(0, primary.getFireCount());
+        assertEquals(1, alias.getFireCount());
+
+        registry.setTriggerSuspended(TEST_GROUP, "b", true);
+        publisher.fire(primary);
+        verify(mockResponseChannel, times(1)).publish(any(CommandRequest.class));
+    }
+
+    @Test
+    public void testFirePublishesOnEveryChannelAndCountsOutcomes() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("test1", "Value1");
+        IntervalTrigger config = new IntervalTrigger("jobid", 1, "SECONDS", "/a", "Start", params);
+        config.setPublishChannels(Arrays.asList("/b", "/a"));
+        ScheduledTrigger trigger = ScheduledTrigger.from(config, TEST_GROUP);
+        URI a = trigger.getChannels()[0];
+        URI b = trigger.getChannels()[1];
+        assertEquals(2, trigger.getChannels().length);
+
+        when(mockNode.openChannel(eq(a), any(), any())).thenReturn(mockResponseChannel);
+        when(mockNode.openChannel(eq(b), any(), any())).thenReturn(mockOtherChannel);
+        doThrow(new ChannelIOException("mock exception")).when(mockOtherChannel).publish(any(CommandRequest.class));
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+        publisher.close();
+
+        // the duplicate channel is published on once per fire, the request is shared by both channels
+        verify(mockResponseChannel, times(2)).publish(trigger.getRequest());
+        verify(mockOtherChannel, times(2)).publish(trigger.getRequest());
+        assertEquals(2, publisher.getChannelStats(a).getPublished());
+        assertEquals(0, publisher.getChannelStats(a).getFailed());
+        assertEquals(0, publisher.getChannelStats(b).getPublished());
+        assertEquals(2, publisher.getChannelStats(b).getFailed());
+        assertNull(publisher.getChannelStats(URI.create("/c")));
+        assertEquals(2, publisher.getChannelStats().size());
+        assertEquals(2, trigger.getFireCount());
+
+        // the same outcomes are reported in the scheduler metrics
+        Map<URI, MetricsMessage.ChannelMetrics> metrics = new HashMap<>();
+        for (MetricsMessage.ChannelMetrics channel : publisher.getChannelMetrics()) {
+            metrics.put(channel.getChannel(), channel);
+        }
+        assertEquals(2, metrics.size());
+        assertEquals(2, metrics.get(a).getPublished());
+        assertEquals(2, metrics.get(b).getFailed());
+    }
+
+    @Test
+    public void testFireIsDeliveredToLocalSubscribers() throws Exception {
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+        LocalFirePublisher local = new LocalFirePublisher(Runnable::run, 10);
+        List<FireEvent> events = new ArrayList<>();
+        local.subscribe(new FireFlow.Subscriber<FireEvent>() {
+            @Override
+            public void onSubscribe(FireFlow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(FireEvent item) {
+                events.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode, FireEventLog.getDefault(), local);
+        ScheduledTrigger trigger = createScheduledTrigger("/local", "Start", new HashMap<>());
+        publisher.fire(trigger);
+
+        assertEquals(1, events.size());
+        assertSame(trigger.getRequest(), events.get(0).getRequest());
+        verify(mockResponseChannel, times(1)).publish(trigger.getRequest());
+    }
+
+    @Test
+    public void testLocalDeliveryDoesNotTouchChannels() throws Exception {
+        LocalFirePublisher local = new LocalFirePublisher(Runnable::run, 10);
+        List<FireEvent> events = subscribe(local);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode, FireEventLog.getDefault(), local);
+        IntervalTrigger config = new IntervalTrigger("local", 1, "SECONDS", "/local", "Start", null);
+        config.setDelivery(FireDelivery.LOCAL);
+        ScheduledTrigger trigger = ScheduledTrigger.from(config, TEST_GROUP);
+        publisher.fire(trigger);
+        publisher.fire(trigger);
+
+        assertEquals(2, events.size());
+        assertEquals(2, trigger.getFireCount());
+        verify(mockNode, never()).openChannel(any(URI.class), any(), any());
+        assertEquals(0, publisher.getChannelStats().size());
+        assertEquals(0, publisher.getChannelMisses());
     }
 
-    private void createMockJobContext(JobKey key, Date date, String uri, String cmd, Map<String, String> params) {
-        when(mockContext.getJobDetail().getJobDataMap()).thenReturn(mockJobDetailMap);
+    @Test
+    public void testLocalFireNobodyAcceptedIsSkipped() throws Exception {
+        LocalFirePublisher local = new LocalFirePublisher(Runnable::run, 10);
+        TriggerPublisher publisher = new TriggerPublisher(mockNode, FireEventLog.getDefault(), local);
+        IntervalTrigger config = new IntervalTrigger("local", 1, "SECONDS", "/local", "Start", null);
+        config.setDelivery(FireDelivery.LOCAL);
+        TriggerRegistry registry = new TriggerRegistry();
+        ScheduledTrigger trigger = registry.register(config, TEST_GROUP, 1000, 0);
+        publisher.fire(trigger);
+
+        assertEquals("TriggerStats{group='" + TEST_GROUP + "', id='local', fired=0, published=0, failed=0, skipped=1}",
+                registry.getCounters().getStats(trigger).toString());
+        verify(mockNode, never()).openChannel(any(URI.class), any(), any());
+    }
+
+    @Test
+    public void testChannelsDeliverySkipsLocalSubscribers() throws Exception {
+        when(mockNode.openChannel(any(URI.class), any(), any())).thenReturn(mockResponseChannel);
+        LocalFirePublisher local = new LocalFirePublisher(Runnable::run, 10);
+        List<FireEvent> events = subscribe(local);
+
+        TriggerPublisher publisher = new TriggerPublisher(mockNode, FireEventLog.getDefault(), local);
+        IntervalTrigger config = new IntervalTrigger("remote", 1, "SECONDS", "/remote", "Start", null);
+        config.setDelivery(FireDelivery.CHANNELS);
+        ScheduledTrigger trigger = ScheduledTrigger.from(config, TEST_GROUP);
+        publisher.fire(trigger);
+
+        assertEquals(0, events.size());
+        verify(mockResponseChannel, times(1)).publish(trigger.getRequest());
+    }
+
+    private static List<FireEvent> subscribe(LocalFirePublisher local) {
+        List<FireEvent> events = new ArrayList<>();
+        local.subscribe(new FireFlow.Subscriber<FireEvent>() {
+            @Override
+            public void onSubscribe(FireFlow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(FireEvent item) {
+                events.add(item);
+            }
 
-        when(mockJobDetailMap.getString("publishChannel")).thenReturn(uri);
-        when(mockJobDetailMap.getString("cmd")).thenReturn(cmd);
-        when((Map<String, String>) mockJobDetailMap.get("params")).thenReturn(params);
-        when(mockJobDetailMap.getWrappedMap()).thenReturn(mockJobDetailMap);
+            @Override
+            public void onError(Throwable throwable) {
+            }
 
-        when(mockContext.getFireTime()).thenReturn(date);
-        when(mockContext.getJobDetail().getKey()).thenReturn(key);
+            @Override
+            public void onComplete() {
+            }
+        });
+        return events;
     }
-}
\ No newline at end of file
+}
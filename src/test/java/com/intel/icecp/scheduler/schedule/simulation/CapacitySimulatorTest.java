@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.simulation;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CapacitySimulatorTest {
+    private static final Instant MIDNIGHT = Instant.parse("2017-03-01T00:00:00Z");
+    private static final String CONFIG = "{\"intervalTriggers\":[" +
+            "{\"id\":\"a\",\"interval\":1,\"unit\":\"SECONDS\",\"publishChannel\":\"/a\",\"cmd\":\"start\"}," +
+            "{\"id\":\"b\",\"interval\":1,\"unit\":\"SECONDS\",\"publishChannel\":\"/a\",\"cmd\":\"start\"}," +
+            "{\"id\":\"c\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"/c\",\"cmd\":\"start\"}]," +
+            "\"rangeTriggers\":[{\"id\":\"r\",\"startTime\":\"1:00 AM\",\"publishChannel\":\"/r\",\"cmd\":\"start\"}]}";
+
+    @Test
+    public void testReportsDensityBurstsAndHotSpots() throws Exception {
+        CapacityReport report = CapacitySimulator.simulate(CONFIG, Duration.ofHours(1), MIDNIGHT, ZoneOffset.UTC);
+
+        // a and b are equivalent: both fire every second but publish once; c fires every 10s, r once at 1:00 AM
+        assertEquals(3601 + 361 + 1, report.getPublishes());
+        assertEquals(2 * 3601 + 361 + 1, report.getFires());
+        assertEquals(3, report.getPeakPerSecond());
+        assertEquals(Instant.parse("2017-03-01T01:00:00Z").toEpochMilli(), report.getPeakSecondMillis());
+        assertEquals(12, report.getWorstBurst(10));
+        assertEquals(67, report.getWorstBurst(60));
+        assertArrayEquals(new long[]{0, 3601 - 361, 361}, report.getDensityHistogram());
+
+        CapacityReport.ChannelLoad hottest = report.getChannels().get(0);
+        assertEquals(URI.create("/a/$cmd"), hottest.getChannel());
+        assertEquals(3601, hottest.getPublishes());
+        assertEquals(1, hottest.getPeakPerSecond());
+        assertEquals(3, report.getChannels().size());
+        assertTrue(report.toString().contains("Channel hot spots"));
+    }
+
+    @Test
+    public void testWeekRunsQuickly() throws Exception {
+        long start = System.nanoTime();
+        CapacityReport report = CapacitySimulator.simulate(CONFIG, Duration.ofDays(7), MIDNIGHT, ZoneOffset.UTC);
+
+        assertEquals(7, report.getChannels().stream().filter(c -> c.getChannel().getPath().startsWith("/r")).findFirst().get().getPublishes());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+    }
+
+    @Test
+    public void testParseDuration() {
+        assertEquals(Duration.ofHours(24), CapacitySimulator.parseDuration("24h"));
+        assertEquals(Duration.ofDays(7), CapacitySimulator.parseDuration("7d"));
+        assertEquals(Duration.ofHours(36), CapacitySimulator.parseDuration("PT36H"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidDurationThrows() {
+        CapacitySimulator.parseDuration("a week");
+    }
+}
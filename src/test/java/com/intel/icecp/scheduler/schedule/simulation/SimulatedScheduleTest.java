@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intel.icecp.scheduler.schedule.simulation;
+
+import com.intel.icecp.scheduler.schedule.VirtualClock;
+import com.intel.icecp.scheduler.trigger.ExclusionCalendar;
+import com.intel.icecp.scheduler.trigger.IntervalTrigger;
+import com.intel.icecp.scheduler.trigger.RangeTrigger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedScheduleTest {
+    private static final String TEST_GROUP = "test-group";
+    private static final LocalDateTime START = LocalDateTime.of(2017, 3, 1, 0, 0);
+
+    private VirtualClock clock;
+    private List<Fire> fires;
+    private SimulatedSchedule schedule;
+
+    @Before
+    public void before() {
+        clock = new VirtualClock(START.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        fires = new ArrayList<>();
+        schedule = new SimulatedSchedule(clock, (trigger, scheduledMillis) -> {
+            assertEquals(scheduledMillis, clock.millis());
+            fires.add(new Fire(trigger.getId(), scheduledMillis));
+        });
+    }
+
+    @Test
+    public void testWeekOfIntervalAndRangeFires() {
+        schedule.scheduleIntervalTrigger(interval("minutely", "/ch", 1, "MINUTES"), TEST_GROUP);
+        schedule.scheduleRangeTrigger(new RangeTrigger("daily", "1:00 PM", null, "/daily", "start", null), TEST_GROUP);
+        schedule.start();
+
+        long delivered = schedule.advance(Duration.ofDays(7));
+
+        // the interval trigger fires at start and then every minute up to and including the end of the week
+        long minutely = fires.stream().filter(f -> f.id.equals("minutely")).count();
+        assertEquals(7 * 24 * 60 + 1, minutely);
+        assertEquals(7, fires.stream().filter(f -> f.id.equals("daily")).count());
+        assertEquals(fires.size(), delivered);
+        assertEquals(START.plusDays(7).toInstant(ZoneOffset.UTC).toEpochMilli(), clock.millis());
+        assertEquals(START.plusHours(13).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                fires.stream().filter(f -> f.id.equals("daily")).findFirst().get().millis);
+    }
+
+    @Test
+    public void testFiresAreDeliveredInTimeOrder() {
+        schedule.scheduleIntervalTrigger(interval("fast", "/a", 3, "SECONDS"), TEST_GROUP);
+        schedule.scheduleIntervalTrigger(interval("slow", "/b", 7, "SECONDS"), TEST_GROUP);
+        schedule.start();
+        schedule.advance(Duration.ofMinutes(10));
+
+        List<Long> times = new ArrayList<>();
+        fires.forEach(f -> times.add(f.millis));
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        assertEquals(sorted, times);
+    }
+
+    @Test
+    public void testEquivalentTriggersShareOneFire() {
+        schedule.scheduleIntervalTrigger(interval("a", "/ch", 1, "SECONDS"), TEST_GROUP);
+        schedule.scheduleIntervalTrigger(interval("b", "/ch", 1, "SECONDS"), TEST_GROUP);
+        schedule.start();
+
+        assertEquals(11, schedule.advance(Duration.ofSeconds(10)));
+        assertTrue(schedule.checkJobExists("b", TEST_GROUP));
+        assertTrue(schedule.getRegistry().get(TEST_GROUP, "b").isAlias());
+    }
+
+    @Test
+    public void testNoFiresBeforeStartOrWhileSuspended() {
+        schedule.scheduleIntervalTrigger(interval("a", "/ch", 1, "SECONDS"), TEST_GROUP);
+
+        assertEquals(0, schedule.advance(Duration.ofSeconds(10)));
+        schedule.start();
+        assertEquals(10, schedule.advance(Duration.ofSeconds(10)));
+        schedule.suspend();
+        assertEquals(0, schedule.advance(Duration.ofSeconds(10)));
+        schedule.resume();
+        assertEquals(10, schedule.advance(Duration.ofSeconds(10)));
+        schedule.stop();
+        assertEquals(0, schedule.advance(Duration.ofSeconds(10)));
+        assertFalse(schedule.checkJobExists("a", TEST_GROUP));
+    }
+
+    @Test
+    public void testCalendarExcludesFiresEvenWhenDefinedAfterTrigger() {
+        // 2017-03-01 is a Wednesday, so the week from it has one Sunday
+        RangeTrigger daily = new RangeTrigger("daily", "1:00 PM", null, "/daily", "start", null);
+        daily.setCalendar("weekends");
+        schedule.scheduleRangeTrigger(daily, TEST_GROUP);
+        schedule.addCalendar(new ExclusionCalendar("weekends", Collections.singletonList("2017-03-04"),
+                Collections.singletonList("SUNDAY"), null));
+        schedule.start();
+
+        assertEquals(5, schedule.advance(Duration.ofDays(7)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceBackwardsThrows() {
+        schedule.advanceTo(clock.millis() - 1);
+    }
+
+    private static IntervalTrigger interval(String id, String channel, int interval, String unit) {
+        return new IntervalTrigger(id, interval, unit, channel, "start", Collections.singletonMap("test", "Value1"));
+    }
+
+    private static final class Fire {
+        private final String id;
+        private final long millis;
+
+        Fire(String id, long millis) {
+            this.id = id;
+            this.millis = millis;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 Intel Corporation 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intel.icecp.scheduler.trigger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventTriggerTest {
+
+    @Test
+    public void testIsParsedAndValidated() throws Exception {
+        String json = "{\"id\":\"door\",\"sourceChannel\":\"/door\",\"publishChannel\":\"/ack\",\"cmd\":\"check\"," +
+                "\"debounceMillis\":250,\"throttleMillis\":1000,\"maxPerSecond\":0.5}";
+
+        EventTrigger trigger = new ObjectMapper().readValue(json, EventTrigger.class);
+        assertTrue(trigger.isValid());
+        assertEquals("/door", trigger.getSourceChannel());
+        assertEquals(Long.valueOf(250), trigger.getDebounceMillis());
+        assertEquals(Long.valueOf(1000), trigger.getThrottleMillis());
+        assertEquals(Double.valueOf(0.5), trigger.getMaxPerSecond());
+
+        trigger.setMaxPerSecond(0.0);
+        assertFalse(trigger.isValid());
+        assertFalse(new EventTrigger("door", null, "/ack", "check", null).isValid());
+    }
+
+    @Test
+    public void testEqualTriggersAreNeverEquivalent() {
+        EventTrigger first = new EventTrigger("door", "/door", "/ack", "check", null);
+        EventTrigger second = new EventTrigger("door", "/door", "/ack", "check", null);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertFalse(first.isDeduplicable());
+        assertFalse(second.isDeduplicable());
+    }
+}
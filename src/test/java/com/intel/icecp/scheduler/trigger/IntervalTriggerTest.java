@@ -16,13 +16,22 @@
 
 package com.intel.icecp.scheduler.trigger;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class IntervalTriggerTest {
 
@@ -87,4 +96,137 @@ public class IntervalTriggerTest {
         IntervalTrigger trigger = new IntervalTrigger("foo", interval, unit, PUBLISH_CHANNEL, cmd, params);
         assertTrue(trigger.toString().contains("IntervalTrigger"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTypedParamsKeepTheirJsonTypes() throws Exception {
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"params\":{\"count\":3,\"ratio\":0.5,\"enabled\":true,\"tags\":[\"a\",\"b\"],\"nested\":{\"name\":\"x\"}}}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+
+        Map<String, Object> params = trigger.getParams();
+        assertEquals(3, params.get("count"));
+        assertEquals(0.5, params.get("ratio"));
+        assertEquals(true, params.get("enabled"));
+        assertEquals(Arrays.asList("a", "b"), params.get("tags"));
+        assertEquals("x", ((Map) params.get("nested")).get("name"));
+    }
+
+    @Test
+    public void testParamsAreImmutableCopies() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("tags", Arrays.asList("a", "b"));
+
+        IntervalTrigger trigger = new IntervalTrigger("foo", 10, "SECONDS", PUBLISH_CHANNEL, "start", params);
+        params.put("other", 1);
+
+        assertEquals(1, trigger.getParams().size());
+        try {
+            trigger.getParams().put("other", 1);
+            fail("params should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            ((List<Object>) trigger.getParams().get("tags")).add("c");
+            fail("nested params should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnsupportedParamTypeIsRejected() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("when", new Object());
+
+        IntervalTrigger trigger = new IntervalTrigger("foo", 10, "SECONDS", PUBLISH_CHANNEL, "start", params);
+        assertFalse(trigger.isValid());
+        assertNotNull(trigger.getParamsError());
+        assertNull(trigger.getParams());
+    }
+
+    @Test
+    public void testTooDeeplyNestedParamsMakeTheTriggerInvalid() throws Exception {
+        StringBuilder nested = new StringBuilder("1");
+        for (int i = 0; i <= TriggerParams.MAX_DEPTH; i++) {
+            nested.insert(0, "[").append("]");
+        }
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"params\":{\"deep\":" + nested + "}}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertFalse(trigger.isValid());
+        assertNotNull(trigger.getParamsError());
+    }
+
+    @Test
+    public void testDeadlineIsParsedAndMustBePositive() throws Exception {
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"deadlineMillis\":2500}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertEquals(Long.valueOf(2500), trigger.getDeadlineMillis());
+        assertTrue(trigger.isValid());
+
+        trigger.setDeadlineMillis(0L);
+        assertFalse(trigger.isValid());
+    }
+
+    @Test
+    public void testTimingIsParsedAndSeparatesScheduleKeys() throws Exception {
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"timing\":\"FIXED_RATE\"}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertEquals(IntervalTiming.FIXED_RATE, trigger.getTiming());
+        IntervalTrigger wall = new IntervalTrigger("foo", 10, "SECONDS", PUBLISH_CHANNEL, "start", null);
+        assertEquals(IntervalTiming.WALL_CLOCK, wall.getTiming());
+        assertEquals(TimeUnit.SECONDS.toNanos(10), wall.getScheduleKey());
+        assertNotEquals(wall.getScheduleKey(), trigger.getScheduleKey());
+
+        trigger.setTiming(IntervalTiming.FIXED_DELAY);
+        assertNotEquals(-1, trigger.getScheduleKey());
+        assertNotEquals(wall.getScheduleKey(), trigger.getScheduleKey());
+    }
+
+    @Test
+    public void testAdaptiveIsParsedAndNeverDeduplicated() throws Exception {
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"adaptive\":{\"minInterval\":5,\"maxInterval\":300,\"feedback\":\"RESPONSE\"," +
+                "\"backoffFactor\":1.5}}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertEquals(new AdaptivePolicy(5, 300, AdaptiveFeedback.RESPONSE, null, 1.5, null), trigger.getAdaptive());
+        assertTrue(trigger.isValid());
+        IntervalTrigger same = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertEquals(trigger, same);
+        assertEquals(trigger.getScheduleKey(), same.getScheduleKey());
+        assertFalse(trigger.isDeduplicable());
+        assertTrue(new IntervalTrigger("plain", 10, "SECONDS", PUBLISH_CHANNEL, "start", null).isDeduplicable());
+
+        // responses require RPC requests
+        trigger.setPayloadFormat(PayloadFormat.CBOR);
+        assertFalse(trigger.isValid());
+        trigger.setAdaptive(new AdaptivePolicy(5, 300, AdaptiveFeedback.LATENCY, null, null, null));
+        assertFalse(trigger.isValid());
+        trigger.setAdaptive(new AdaptivePolicy(500, 300, null, null, null, null));
+        assertFalse(trigger.isValid());
+    }
+
+    @Test
+    public void testPublishChannelsAreParsedAndDeduplicated() throws Exception {
+        String json = "{\"id\":\"foo\",\"interval\":10,\"unit\":\"SECONDS\",\"publishChannel\":\"" + PUBLISH_CHANNEL + "\"," +
+                "\"cmd\":\"start\",\"publishChannels\":[\"/other\",\"" + PUBLISH_CHANNEL + "\",\"/other\"]}";
+
+        IntervalTrigger trigger = new ObjectMapper().readValue(json, IntervalTrigger.class);
+        assertTrue(trigger.isValid());
+        assertEquals(Arrays.asList(PUBLISH_CHANNEL, "/other"), trigger.getAllPublishChannels());
+        IntervalTrigger single = new IntervalTrigger("foo", 10, "SECONDS", PUBLISH_CHANNEL, "start", null);
+        assertEquals(Collections.singletonList(PUBLISH_CHANNEL), single.getAllPublishChannels());
+        assertNotEquals(single, trigger);
+
+        trigger.setPublishChannels(Arrays.asList("/other", null));
+        assertFalse(trigger.isValid());
+    }
+}
@@ -18,7 +18,11 @@ package com.intel.icecp.scheduler.trigger;
 
 import org.junit.Test;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -138,6 +142,18 @@ public class RangeTriggerTest {
         RangeTrigger trigger = new RangeTrigger("foo", start, end, PUBLISH_CHANNEL, cmd, params);
         assertTrue(trigger.toString().contains("RangeTrigger"));
     }
+
+    @Test
+    public void testNextFireIsTodayOrTomorrowByClock() {
+        RangeTrigger trigger = new RangeTrigger("foo", "1:00 PM", null, PUBLISH_CHANNEL, "start", null);
+        Instant morning = LocalDateTime.of(2017, 3, 1, 9, 0).toInstant(ZoneOffset.UTC);
+        Instant evening = LocalDateTime.of(2017, 3, 1, 18, 0).toInstant(ZoneOffset.UTC);
+
+        assertEquals(LocalDateTime.of(2017, 3, 1, 13, 0).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                trigger.getNextFireMillis(Clock.fixed(morning, ZoneOffset.UTC)));
+        assertEquals(LocalDateTime.of(2017, 3, 2, 13, 0).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                trigger.getNextFireMillis(Clock.fixed(evening, ZoneOffset.UTC)));
+    }
     
     
     